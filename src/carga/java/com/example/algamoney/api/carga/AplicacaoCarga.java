@@ -0,0 +1,105 @@
+package com.example.algamoney.api.carga;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.example.algamoney.api.AlgamoneyApiApplication;
+
+/**
+ * A aplicação roda numa JVM separada da que gera a carga, para as duas não
+ * disputarem o mesmo heap e as mesmas pausas do GC. O log dela vai para um
+ * arquivo.
+ */
+class AplicacaoCarga implements Closeable {
+
+	private final Process processo;
+	private final String endereco;
+
+	private AplicacaoCarga(Process processo, String endereco) {
+		this.processo = processo;
+		this.endereco = endereco;
+	}
+
+	static AplicacaoCarga iniciar(BancoCarga banco, String opcoesJvm, File log)
+			throws IOException, InterruptedException {
+		int porta = portaLivre();
+
+		List<String> comando = new ArrayList<>();
+		comando.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		if (!opcoesJvm.trim().isEmpty()) {
+			comando.addAll(Arrays.asList(opcoesJvm.trim().split("\\s+")));
+		}
+		// O devtools está no classpath, mas não pode reiniciar a aplicação nem mudar as
+		// propriedades padrão durante a medição.
+		comando.add("-Dspring.devtools.restart.enabled=false");
+		comando.add("-Dspring.devtools.add-properties=false");
+		comando.add("-classpath");
+		comando.add(System.getProperty("java.class.path"));
+		comando.add(AlgamoneyApiApplication.class.getName());
+		comando.add("--server.port=" + porta);
+		comando.add("--spring.datasource.url=" + banco.getUrl());
+		comando.add("--spring.datasource.username=" + banco.getUsuario());
+
+		Process processo = new ProcessBuilder(comando).redirectErrorStream(true)
+				.redirectOutput(ProcessBuilder.Redirect.to(log)).start();
+		AplicacaoCarga aplicacao = new AplicacaoCarga(processo, "http://localhost:" + porta);
+		aplicacao.aguardarInicio(log);
+		return aplicacao;
+	}
+
+	String getEndereco() {
+		return endereco;
+	}
+
+	/**
+	 * O /actuator/health é liberado sem token.
+	 */
+	private void aguardarInicio(File log) throws IOException, InterruptedException {
+		long limite = System.nanoTime() + TimeUnit.MINUTES.toNanos(3);
+		while (System.nanoTime() < limite) {
+			if (!processo.isAlive()) {
+				throw new IOException("A aplicação não subiu, veja o log em " + log);
+			}
+			try {
+				HttpURLConnection con = (HttpURLConnection) new URL(endereco + "/actuator/health").openConnection();
+				if (con.getResponseCode() == HttpURLConnection.HTTP_OK) {
+					return;
+				}
+			} catch (IOException e) {
+				// ainda subindo
+			}
+			TimeUnit.MILLISECONDS.sleep(500);
+		}
+		close();
+		throw new IOException("A aplicação não subiu em 3 minutos, veja o log em " + log);
+	}
+
+	private static int portaLivre() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	@Override
+	public void close() {
+		processo.destroy();
+		try {
+			if (!processo.waitFor(30, TimeUnit.SECONDS)) {
+				processo.destroyForcibly();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			processo.destroyForcibly();
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.example.algamoney.api.carga;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * PostgreSQL de verdade, mas embutido: o binário vem num jar do Maven e roda num
+ * diretório temporário, numa porta livre. Assim as migrações (pg_trgm, busca
+ * textual) e os planos de execução são os mesmos da produção, sem precisar de
+ * rede nem de um banco instalado.
+ *
+ * O PostgreSQL não roda como root, então o teste também não.
+ */
+class BancoCarga implements Closeable {
+
+	private static final String USUARIO = "postgres";
+
+	private final EmbeddedPostgres postgres;
+
+	private BancoCarga(EmbeddedPostgres postgres) {
+		this.postgres = postgres;
+	}
+
+	static BancoCarga iniciar() throws IOException {
+		return new BancoCarga(EmbeddedPostgres.builder().start());
+	}
+
+	String getUrl() {
+		return postgres.getJdbcUrl(USUARIO, USUARIO);
+	}
+
+	String getUsuario() {
+		return USUARIO;
+	}
+
+	/**
+	 * Cria as tabelas pelas migrações da aplicação e gera os dados. Os dados são
+	 * sempre os mesmos para os mesmos parâmetros, para as rodadas serem
+	 * comparáveis.
+	 */
+	void popular(int pessoas, int lancamentos) throws SQLException {
+		DataSource dataSource = postgres.getPostgresDatabase();
+		Flyway.configure().dataSource(dataSource).load().migrate();
+
+		try (Connection con = dataSource.getConnection()) {
+			executar(con, "insert into pessoa (nome, logradouro, numero, complemento, bairro, cep, cidade, estado, ativo)"
+					+ " select 'Pessoa ' || i, 'Rua ' || i % 500, (i % 2000)::text,"
+					+ " case when i % 3 = 0 then 'Apto ' || i % 300 end, 'Bairro ' || i % 100,"
+					+ " lpad((i % 100000)::text, 5, '0') || '-000', 'Cidade ' || i % 200,"
+					+ " (array['MG', 'SP', 'RJ', 'RS', 'BA', 'GO'])[1 + i % 6], i % 10 <> 0"
+					+ " from generate_series(1, ?) i", pessoas);
+
+			int totalPessoas = pessoas + 10;
+			int lote = 500_000;
+			for (int inicio = 1; inicio <= lancamentos; inicio += lote) {
+				int fim = Math.min(inicio + lote - 1, lancamentos);
+				executar(con, "insert into lancamento (descricao, data_vencimento, data_pagamento, valor, observacao,"
+						+ " tipo, codigo_categoria, codigo_pessoa)"
+						+ " select (array['Salário mensal', 'Supermercado', 'Conta de luz', 'Farmácia', 'Restaurante',"
+						+ " 'Aluguel', 'Combustível', 'Internet', 'Academia', 'Cinema'])[1 + i % 10] || ' ' || i,"
+						+ " date '2015-01-01' + i % 2500,"
+						+ " case when i % 3 = 0 then null else date '2015-01-01' + i % 2500 end,"
+						+ " (i::bigint * 7919 % 500000) / 100.0, case when i % 7 = 0 then 'Observação ' || i end,"
+						+ " case when i % 4 = 0 then 'RECEITA' else 'DESPESA' end, 1 + i % 5,"
+						+ " 1 + i::bigint * 31 % ? from generate_series(?, ?) i", totalPessoas, inicio, fim);
+				System.out.printf("  %,d de %,d lançamentos%n", fim, lancamentos);
+			}
+
+			try (Statement stmt = con.createStatement()) {
+				stmt.execute("vacuum analyze");
+			}
+		}
+	}
+
+	private void executar(Connection con, String sql, int... parametros) throws SQLException {
+		try (PreparedStatement stmt = con.prepareStatement(sql)) {
+			for (int i = 0; i < parametros.length; i++) {
+				stmt.setInt(i + 1, parametros[i]);
+			}
+			stmt.executeUpdate();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		postgres.close();
+	}
+
+}
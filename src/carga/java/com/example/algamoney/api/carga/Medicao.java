@@ -0,0 +1,59 @@
+package com.example.algamoney.api.carga;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Latências, em microssegundos, e erros de um endpoint. O Recorder aceita
+ * gravações de várias threads sem trava, e cada getIntervalHistogram devolve só
+ * o que foi gravado desde o anterior, o que separa o aquecimento da medição.
+ */
+class Medicao {
+
+	private final String endpoint;
+
+	private final Recorder latencias = new Recorder(3);
+	private final LongAdder erros = new LongAdder();
+
+	private Histogram histograma;
+	private long errosMedidos;
+
+	Medicao(String endpoint) {
+		this.endpoint = endpoint;
+	}
+
+	void registrar(long latenciaEmMicrossegundos, boolean erro) {
+		latencias.recordValue(latenciaEmMicrossegundos);
+		if (erro) {
+			erros.increment();
+		}
+	}
+
+	/**
+	 * Descarta o que foi gravado até agora.
+	 */
+	void iniciar() {
+		latencias.reset();
+		erros.reset();
+	}
+
+	void encerrar() {
+		histograma = latencias.getIntervalHistogram();
+		errosMedidos = erros.sumThenReset();
+	}
+
+	String getEndpoint() {
+		return endpoint;
+	}
+
+	Histogram getHistograma() {
+		return histograma;
+	}
+
+	long getErros() {
+		return errosMedidos;
+	}
+
+}
@@ -0,0 +1,185 @@
+package com.example.algamoney.api.carga;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * As requisições que os usuários virtuais fazem. O peso é a proporção de cada
+ * uma no tráfego; as de escrita só são feitas pelo cliente angular, que tem o
+ * escopo write.
+ */
+enum Operacao {
+
+	PESQUISAR_LANCAMENTOS("GET /lancamentos", 20, false) {
+		@Override
+		Requisicao criar(Random random, Massa massa) {
+			return Requisicao.get("/lancamentos?page=" + random.nextInt(50) + "&size=20");
+		}
+	},
+
+	PESQUISAR_LANCAMENTOS_RESUMO("GET /lancamentos?resumo", 15, false) {
+		@Override
+		Requisicao criar(Random random, Massa massa) {
+			return Requisicao.get("/lancamentos?resumo&page=" + random.nextInt(50) + "&size=20");
+		}
+	},
+
+	PESQUISAR_LANCAMENTOS_DESCRICAO("GET /lancamentos?descricao", 10, false) {
+		@Override
+		Requisicao criar(Random random, Massa massa) {
+			return Requisicao.get("/lancamentos?resumo&size=20&descricao=" + TRECHOS[random.nextInt(TRECHOS.length)]);
+		}
+	},
+
+	PESQUISAR_LANCAMENTOS_VENCIMENTO("GET /lancamentos?dataVencimento", 5, false) {
+		@Override
+		Requisicao criar(Random random, Massa massa) {
+			LocalDate de = LocalDate.of(2015, 1, 1).plusDays(random.nextInt(2500));
+			return Requisicao.get("/lancamentos?resumo&size=20&dataVencimentoDe=" + de + "&dataVencimentoAte="
+					+ de.plusDays(30));
+		}
+	},
+
+	PESQUISAR_LANCAMENTOS_CURSOR("GET /lancamentos?cursor", 5, false) {
+		@Override
+		Requisicao criar(Random random, Massa massa) {
+			return Requisicao.get("/lancamentos?resumo&cursor=&size=20");
+		}
+	},
+
+	BUSCAR_LANCAMENTO("GET /lancamentos/{codigo}", 10, false) {
+		@Override
+		Requisicao criar(Random random, Massa massa) {
+			return Requisicao.get("/lancamentos/" + (1 + random.nextInt(massa.getLancamentos())));
+		}
+	},
+
+	CRIAR_LANCAMENTO("POST /lancamentos", 5, true) {
+		@Override
+		Requisicao criar(Random random, Massa massa) {
+			// As dez pessoas das migrações estão sempre ativas.
+			return Requisicao.post("/lancamentos", "{\"descricao\":\"Carga\",\"dataVencimento\":\""
+					+ LocalDate.of(2020, 1, 1).plusDays(random.nextInt(365)) + "\",\"valor\":"
+					+ (1 + random.nextInt(100000)) / 100.0 + ",\"tipo\":\"DESPESA\",\"categoria\":{\"codigo\":"
+					+ (1 + random.nextInt(5)) + "},\"pessoa\":{\"codigo\":" + (1 + random.nextInt(10)) + "}}");
+		}
+	},
+
+	BUSCAR_PESSOA("GET /pessoas/{codigo}", 8, false) {
+		@Override
+		Requisicao criar(Random random, Massa massa) {
+			return Requisicao.get("/pessoas/" + (1 + random.nextInt(massa.getPessoas())));
+		}
+	},
+
+	ATUALIZAR_PESSOA_ATIVO("PUT /pessoas/{codigo}/ativo", 2, true) {
+		@Override
+		Requisicao criar(Random random, Massa massa) {
+			return Requisicao.put("/pessoas/" + (11 + random.nextInt(massa.getPessoas() - 10)) + "/ativo",
+					String.valueOf(random.nextBoolean()));
+		}
+	},
+
+	LISTAR_CATEGORIAS("GET /categorias", 8, false) {
+		@Override
+		Requisicao criar(Random random, Massa massa) {
+			return Requisicao.get("/categorias");
+		}
+	},
+
+	BUSCAR_CATEGORIA("GET /categorias/{codigo}", 2, false) {
+		@Override
+		Requisicao criar(Random random, Massa massa) {
+			return Requisicao.get("/categorias/" + (1 + random.nextInt(5)));
+		}
+	};
+
+	private static final String[] TRECHOS = { "mercado", "luz", "aluguel", "farm", "restaurante", "cinema" };
+
+	private final String endpoint;
+	private final int peso;
+	private final boolean escrita;
+
+	Operacao(String endpoint, int peso, boolean escrita) {
+		this.endpoint = endpoint;
+		this.peso = peso;
+		this.escrita = escrita;
+	}
+
+	abstract Requisicao criar(Random random, Massa massa);
+
+	String getEndpoint() {
+		return endpoint;
+	}
+
+	int getPeso() {
+		return peso;
+	}
+
+	boolean isEscrita() {
+		return escrita;
+	}
+
+	/**
+	 * Quantos registros foram gerados, para sortear códigos que existem.
+	 */
+	static class Massa {
+
+		private final int lancamentos;
+		private final int pessoas;
+
+		Massa(int lancamentos, int pessoas) {
+			// Mais os que vêm nas migrações.
+			this.lancamentos = lancamentos + 15;
+			this.pessoas = pessoas + 10;
+		}
+
+		int getLancamentos() {
+			return lancamentos;
+		}
+
+		int getPessoas() {
+			return pessoas;
+		}
+
+	}
+
+	static class Requisicao {
+
+		private final String metodo;
+		private final String caminho;
+		private final String corpo;
+
+		private Requisicao(String metodo, String caminho, String corpo) {
+			this.metodo = metodo;
+			this.caminho = caminho;
+			this.corpo = corpo;
+		}
+
+		static Requisicao get(String caminho) {
+			return new Requisicao("GET", caminho, null);
+		}
+
+		static Requisicao post(String caminho, String corpo) {
+			return new Requisicao("POST", caminho, corpo);
+		}
+
+		static Requisicao put(String caminho, String corpo) {
+			return new Requisicao("PUT", caminho, corpo);
+		}
+
+		String getMetodo() {
+			return metodo;
+		}
+
+		String getCaminho() {
+			return caminho;
+		}
+
+		String getCorpo() {
+			return corpo;
+		}
+
+	}
+
+}
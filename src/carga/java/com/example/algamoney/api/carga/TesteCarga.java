@@ -0,0 +1,157 @@
+package com.example.algamoney.api.carga;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Teste de carga da api. Sobe um PostgreSQL embutido com milhões de
+ * lançamentos, sobe a aplicação apontando para ele, e coloca usuários virtuais
+ * dos clientes angular e mobile fazendo requisições em /lancamentos, /pessoas e
+ * /categorias. No fim, mostra a vazão e os percentis de latência de cada
+ * endpoint. Tudo roda na máquina local.
+ *
+ * Os parâmetros são propriedades do sistema (o profile carga do pom já passa
+ * todas):
+ * <ul>
+ * <li>carga.lancamentos e carga.pessoas: quantos registros gerar;</li>
+ * <li>carga.threads: quantos usuários virtuais, metade de cada cliente;</li>
+ * <li>carga.taxa: requisições por segundo somando todos os usuários. Com 0,
+ * cada usuário faz a próxima requisição assim que a anterior volta;</li>
+ * <li>carga.aquecimento e carga.duracao: segundos de aquecimento, que não
+ * entram no resultado, e de medição;</li>
+ * <li>carga.jvm: opções da JVM da aplicação;</li>
+ * <li>carga.resultado: diretório do resumo, dos histogramas e do log da
+ * aplicação.</li>
+ * </ul>
+ */
+public class TesteCarga {
+
+	public static void main(String[] args) throws Exception {
+		int lancamentos = Integer.getInteger("carga.lancamentos", 2_000_000);
+		int pessoas = Integer.getInteger("carga.pessoas", 20_000);
+		int threads = Integer.getInteger("carga.threads", 16);
+		double taxa = Double.parseDouble(System.getProperty("carga.taxa", "0"));
+		int aquecimento = Integer.getInteger("carga.aquecimento", 20);
+		int duracao = Integer.getInteger("carga.duracao", 60);
+		String opcoesJvm = System.getProperty("carga.jvm", "");
+		File resultado = new File(System.getProperty("carga.resultado", "target/carga"));
+		Files.createDirectories(resultado.toPath());
+
+		try (BancoCarga banco = BancoCarga.iniciar()) {
+			System.out.printf("Gerando %,d pessoas e %,d lançamentos%n", pessoas, lancamentos);
+			banco.popular(pessoas, lancamentos);
+
+			System.out.println("Subindo a aplicação");
+			File log = new File(resultado, "aplicacao.log");
+			try (AplicacaoCarga aplicacao = AplicacaoCarga.iniciar(banco, opcoesJvm, log)) {
+				Map<Operacao, Medicao> medicoes = new EnumMap<>(Operacao.class);
+				for (Operacao operacao : Operacao.values()) {
+					medicoes.put(operacao, new Medicao(operacao.getEndpoint()));
+				}
+				Medicao login = new Medicao("POST /oauth/token");
+				Operacao.Massa massa = new Operacao.Massa(lancamentos, pessoas);
+
+				List<UsuarioVirtual> usuarios = new ArrayList<>();
+				for (int i = 0; i < threads; i++) {
+					UsuarioVirtual.Cliente cliente = i % 2 == 0 ? UsuarioVirtual.Cliente.ANGULAR
+							: UsuarioVirtual.Cliente.MOBILE;
+					usuarios.add(new UsuarioVirtual(aplicacao.getEndereco(), cliente, i, massa, medicoes, login,
+							taxa / threads));
+				}
+
+				ExecutorService executor = Executors.newFixedThreadPool(threads);
+				List<Future<?>> execucoes = new ArrayList<>();
+				for (UsuarioVirtual usuario : usuarios) {
+					execucoes.add(executor.submit(usuario));
+				}
+
+				System.out.printf("Aquecendo por %d segundos com %d usuários%n", aquecimento, threads);
+				TimeUnit.SECONDS.sleep(aquecimento);
+				medicoes.values().forEach(Medicao::iniciar);
+				long inicio = System.nanoTime();
+
+				System.out.printf("Medindo por %d segundos%n", duracao);
+				TimeUnit.SECONDS.sleep(duracao);
+				medicoes.values().forEach(Medicao::encerrar);
+				login.encerrar();
+				double segundos = (System.nanoTime() - inicio) / 1e9;
+
+				usuarios.forEach(UsuarioVirtual::parar);
+				executor.shutdown();
+				for (Future<?> execucao : execucoes) {
+					try {
+						execucao.get();
+					} catch (ExecutionException e) {
+						throw new IllegalStateException("O teste foi interrompido, veja o log em " + log,
+								e.getCause());
+					}
+				}
+
+				List<Medicao> endpoints = new ArrayList<>(medicoes.values());
+				relatar(endpoints, login, segundos, resultado);
+			}
+		}
+	}
+
+	/**
+	 * Mostra o resumo e grava, para cada endpoint, a distribuição completa no
+	 * formato .hgrm, que dá para abrir no HdrHistogram plotter. O login só
+	 * acontece no começo de cada usuário, então entra no resumo mas não no total.
+	 */
+	private static void relatar(List<Medicao> endpoints, Medicao login, double segundos, File resultado)
+			throws IOException {
+		Histogram total = new Histogram(3);
+		long errosTotal = 0;
+		for (Medicao medicao : endpoints) {
+			total.add(medicao.getHistograma());
+			errosTotal += medicao.getErros();
+		}
+
+		StringBuilder resumo = new StringBuilder();
+		resumo.append(String.format("%-34s %12s %8s %9s %9s %9s %9s %9s%n", "Endpoint", "Requisições", "Erros",
+				"Req/s", "p50 ms", "p99 ms", "p99,9 ms", "Máx ms"));
+		for (Medicao medicao : endpoints) {
+			resumo.append(linha(medicao.getEndpoint(), medicao.getHistograma(), medicao.getErros(), segundos));
+		}
+		resumo.append(linha(login.getEndpoint(), login.getHistograma(), login.getErros(), segundos));
+		resumo.append(linha("Total", total, errosTotal, segundos));
+
+		System.out.println();
+		System.out.print(resumo);
+		Files.write(new File(resultado, "resumo.txt").toPath(), resumo.toString().getBytes(StandardCharsets.UTF_8));
+
+		endpoints.add(login);
+		for (Medicao medicao : endpoints) {
+			String arquivo = medicao.getEndpoint().replaceAll("[^A-Za-z0-9]+", "_") + ".hgrm";
+			try (PrintStream saida = new PrintStream(new FileOutputStream(new File(resultado, arquivo)), false,
+					StandardCharsets.UTF_8.name())) {
+				medicao.getHistograma().outputPercentileDistribution(saida, 1000.0);
+			}
+		}
+		System.out.println();
+		System.out.println("Histogramas em " + resultado);
+	}
+
+	private static String linha(String endpoint, Histogram histograma, long erros, double segundos) {
+		return String.format("%-34s %,12d %,8d %,9.1f %9.2f %9.2f %9.2f %9.2f%n", endpoint,
+				histograma.getTotalCount(), erros, histograma.getTotalCount() / segundos,
+				histograma.getValueAtPercentile(50) / 1000.0, histograma.getValueAtPercentile(99) / 1000.0,
+				histograma.getValueAtPercentile(99.9) / 1000.0, histograma.getMaxValue() / 1000.0);
+	}
+
+}
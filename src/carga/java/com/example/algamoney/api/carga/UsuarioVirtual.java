@@ -0,0 +1,205 @@
+package com.example.algamoney.api.carga;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Um usuário logado por um dos clientes, fazendo uma requisição atrás da outra
+ * até o teste acabar.
+ *
+ * Com taxa definida, cada usuário tem horários marcados para as requisições, e a
+ * latência é contada a partir do horário marcado, não de quando a requisição
+ * saiu. Assim, quando a aplicação trava e as requisições atrasam, a espera
+ * também entra nos percentis (o que o HdrHistogram chama de coordinated
+ * omission). Sem taxa, cada usuário manda a próxima assim que a anterior volta.
+ */
+class UsuarioVirtual implements Runnable {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final String endereco;
+	private final Cliente cliente;
+	private final Random random;
+	private final Operacao.Massa massa;
+	private final Map<Operacao, Medicao> medicoes;
+	private final Medicao medicaoLogin;
+	private final long intervaloEmNanos;
+
+	private final List<Operacao> sorteio = new ArrayList<>();
+	private final byte[] buffer = new byte[16 * 1024];
+
+	private volatile boolean parar;
+
+	private String token;
+
+	UsuarioVirtual(String endereco, Cliente cliente, long semente, Operacao.Massa massa,
+			Map<Operacao, Medicao> medicoes, Medicao medicaoLogin, double taxaPorUsuario) {
+		this.endereco = endereco;
+		this.cliente = cliente;
+		this.random = new Random(semente);
+		this.massa = massa;
+		this.medicoes = medicoes;
+		this.medicaoLogin = medicaoLogin;
+		this.intervaloEmNanos = taxaPorUsuario > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / taxaPorUsuario) : 0;
+
+		for (Operacao operacao : Operacao.values()) {
+			if (!operacao.isEscrita() || cliente.isEscrita()) {
+				for (int i = 0; i < operacao.getPeso(); i++) {
+					sorteio.add(operacao);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+		try {
+			obterToken();
+			long planejado = System.nanoTime();
+			while (!parar) {
+				if (intervaloEmNanos > 0) {
+					planejado += intervaloEmNanos;
+					long espera;
+					while (!parar && (espera = planejado - System.nanoTime()) > 0) {
+						LockSupport.parkNanos(espera);
+					}
+				} else {
+					planejado = System.nanoTime();
+				}
+				if (!parar) {
+					executar(sorteio.get(random.nextInt(sorteio.size())), planejado);
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Usuário virtual do cliente " + cliente + " parou", e);
+		}
+	}
+
+	void parar() {
+		parar = true;
+	}
+
+	private void executar(Operacao operacao, long planejado) throws IOException {
+		Operacao.Requisicao requisicao = operacao.criar(random, massa);
+		int status = enviar(requisicao.getMetodo(), requisicao.getCaminho(), requisicao.getCorpo(),
+				"application/json", "Bearer " + token, false);
+		medicoes.get(operacao).registrar(microssegundosDesde(planejado), status >= 400);
+
+		if (status == HttpURLConnection.HTTP_UNAUTHORIZED) {
+			obterToken();
+		}
+	}
+
+	/**
+	 * Faz o login pelo password grant. O login é limitado na aplicação, e quem
+	 * passa do limite recebe 429 ou 503; nesse caso, tenta de novo depois de um
+	 * segundo.
+	 */
+	private void obterToken() throws IOException {
+		String corpo = "grant_type=password&username=" + URLEncoder.encode(cliente.usuario, "UTF-8") + "&password="
+				+ URLEncoder.encode(cliente.senha, "UTF-8");
+		String autorizacao = "Basic " + Base64.getEncoder()
+				.encodeToString((cliente.id + ":" + cliente.segredo).getBytes(StandardCharsets.UTF_8));
+
+		for (int tentativa = 1; !parar; tentativa++) {
+			long inicio = System.nanoTime();
+			int status = enviar("POST", "/oauth/token", corpo, "application/x-www-form-urlencoded", autorizacao, true);
+			medicaoLogin.registrar(microssegundosDesde(inicio), status >= 400);
+
+			if (status == HttpURLConnection.HTTP_OK) {
+				return;
+			}
+			if ((status != 429 && status != HttpURLConnection.HTTP_UNAVAILABLE) || tentativa == 30) {
+				throw new IOException("Login do cliente " + cliente.id + " falhou com status " + status);
+			}
+			LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+		}
+	}
+
+	/**
+	 * Manda a requisição e lê a resposta inteira, para a conexão voltar ao
+	 * keep-alive do HttpURLConnection e ser reaproveitada.
+	 */
+	private int enviar(String metodo, String caminho, String corpo, String tipo, String autorizacao,
+			boolean lerToken) throws IOException {
+		HttpURLConnection con = (HttpURLConnection) new URL(endereco + caminho).openConnection();
+		con.setRequestMethod(metodo);
+		con.setRequestProperty("Authorization", autorizacao);
+		con.setRequestProperty("Accept", "application/json");
+		if (corpo != null) {
+			byte[] bytes = corpo.getBytes(StandardCharsets.UTF_8);
+			con.setDoOutput(true);
+			con.setRequestProperty("Content-Type", tipo);
+			con.setFixedLengthStreamingMode(bytes.length);
+			try (OutputStream out = con.getOutputStream()) {
+				out.write(bytes);
+			}
+		}
+
+		int status = con.getResponseCode();
+		InputStream in = status < 400 ? con.getInputStream() : con.getErrorStream();
+		if (in != null) {
+			try (InputStream resposta = in) {
+				if (lerToken && status == HttpURLConnection.HTTP_OK) {
+					JsonNode json = MAPPER.readTree(resposta);
+					token = json.get("access_token").asText();
+				} else {
+					while (resposta.read(buffer) != -1) {
+						// só consome o corpo
+					}
+				}
+			}
+		}
+		return status;
+	}
+
+	private static long microssegundosDesde(long inicio) {
+		return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - inicio);
+	}
+
+	/**
+	 * Os dois clientes do AuthorizationServerConfig, cada um com um dos usuários
+	 * das migrações. O mobile só tem o escopo read.
+	 */
+	enum Cliente {
+
+		ANGULAR("angular", "@ngul@r0", "admin@algamoney.com", "admin", true),
+
+		MOBILE("mobile", "m0b1l30", "maria@algamoney.com", "maria", false);
+
+		private final String id;
+		private final String segredo;
+		private final String usuario;
+		private final String senha;
+		private final boolean escrita;
+
+		Cliente(String id, String segredo, String usuario, String senha, boolean escrita) {
+			this.id = id;
+			this.segredo = segredo;
+			this.usuario = usuario;
+			this.senha = senha;
+			this.escrita = escrita;
+		}
+
+		boolean isEscrita() {
+			return escrita;
+		}
+
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.example.algamoney.api.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.algamoney.api.config.property.AlgamoneyApiProperty;
+import com.example.algamoney.api.cors.CorsFilter;
+import com.example.algamoney.api.token.PasswordGrantBulkheadFilter;
+import com.example.algamoney.api.token.RefreshTokenCookiePreProcessorFilter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Os filtros da aplicação que rodam antes do Spring Security, na mesma ordem do
+ * @Order de cada um, para uma requisição comum da api e para a renovação do
+ * access token com o refresh token no cookie.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FiltrosBenchmark {
+
+	private CorsFilter corsFilter;
+	private RefreshTokenCookiePreProcessorFilter refreshTokenFilter;
+	private PasswordGrantBulkheadFilter passwordGrantFilter;
+
+	@Setup
+	public void iniciar() {
+		corsFilter = new CorsFilter();
+		refreshTokenFilter = new RefreshTokenCookiePreProcessorFilter();
+		passwordGrantFilter = new PasswordGrantBulkheadFilter(new AlgamoneyApiProperty(), new SimpleMeterRegistry());
+	}
+
+	@Benchmark
+	public MockHttpServletResponse pesquisa() throws IOException, ServletException {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/lancamentos");
+		request.addHeader("Origin", "http://localhost:8000");
+		request.addHeader("Authorization", "Bearer token");
+		return executar(request);
+	}
+
+	@Benchmark
+	public MockHttpServletResponse refreshToken() throws IOException, ServletException {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/oauth/token");
+		request.addHeader("Origin", "http://localhost:8000");
+		request.addParameter("grant_type", "refresh_token");
+		request.setCookies(new Cookie("refreshToken", "token"));
+		return executar(request);
+	}
+
+	private MockHttpServletResponse executar(MockHttpServletRequest request) throws IOException, ServletException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		new MockFilterChain(SERVLET, corsFilter, refreshTokenFilter, passwordGrantFilter).doFilter(request, response);
+		return response;
+	}
+
+	/**
+	 * No lugar do Spring Security e do DispatcherServlet, que não entram na
+	 * medição.
+	 */
+	private static final HttpServlet SERVLET = new HttpServlet() {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void service(HttpServletRequest req, HttpServletResponse resp) {
+		}
+
+	};
+
+}
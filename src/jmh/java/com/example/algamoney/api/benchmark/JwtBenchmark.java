@@ -0,0 +1,115 @@
+package com.example.algamoney.api.benchmark;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.client.BaseClientDetails;
+import org.springframework.security.oauth2.provider.client.InMemoryClientDetailsService;
+import org.springframework.security.oauth2.provider.token.DefaultTokenServices;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+
+import com.example.algamoney.api.config.property.AlgamoneyApiProperty;
+import com.example.algamoney.api.token.CachingResourceServerTokenServices;
+import com.example.algamoney.api.token.JwtTokenStoreComRevogacao;
+import com.example.algamoney.api.token.TokensRevogados;
+
+/**
+ * Validação de um access token JWT como o servidor de recursos faz a cada
+ * requisição: decodificando e conferindo a assinatura pelo
+ * JwtAccessTokenConverter, e pelo CachingResourceServerTokenServices com o token
+ * já no cache. O tokenEmCacheComRevogados mede o mesmo cache com 10 mil outros
+ * tokens revogados, que é o custo da consulta aos TokensRevogados para um token
+ * que não foi revogado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+	private String token;
+	private DefaultTokenServices tokenServices;
+	private CachingResourceServerTokenServices tokenServicesComCache;
+	private CachingResourceServerTokenServices tokenServicesComRevogados;
+
+	@Setup
+	public void iniciar() throws Exception {
+		// Mesma chave do AuthorizationServerConfig.
+		JwtAccessTokenConverter accessTokenConverter = new JwtAccessTokenConverter();
+		accessTokenConverter.setSigningKey("algaworks");
+		accessTokenConverter.afterPropertiesSet();
+
+		OAuth2Request request = new OAuth2Request(Collections.emptyMap(), "angular", AuthorityUtils.NO_AUTHORITIES,
+				true, new HashSet<>(Arrays.asList("read", "write")), null, null, null, null);
+		OAuth2Authentication autenticacao = new OAuth2Authentication(request,
+				new UsernamePasswordAuthenticationToken("admin@algamoney.com", "N/A",
+						AuthorityUtils.createAuthorityList("ROLE_CADASTRAR_CATEGORIA", "ROLE_PESQUISAR_CATEGORIA",
+								"ROLE_CADASTRAR_PESSOA", "ROLE_REMOVER_PESSOA", "ROLE_PESQUISAR_PESSOA",
+								"ROLE_CADASTRAR_LANCAMENTO", "ROLE_REMOVER_LANCAMENTO",
+								"ROLE_PESQUISAR_LANCAMENTO")));
+
+		// O valor vira o jti do JWT.
+		DefaultOAuth2AccessToken accessToken = new DefaultOAuth2AccessToken(UUID.randomUUID().toString());
+		accessToken.setExpiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)));
+		accessToken.setScope(request.getScope());
+		token = accessTokenConverter.enhance(accessToken, autenticacao).getValue();
+
+		InMemoryClientDetailsService clientDetailsService = new InMemoryClientDetailsService();
+		clientDetailsService.setClientDetailsStore(Collections.singletonMap("angular",
+				new BaseClientDetails("angular", null, "read,write", "password,refresh_token", null)));
+
+		TokensRevogados semRevogados = new TokensRevogados(new AlgamoneyApiProperty());
+		JwtTokenStoreComRevogacao tokenStore = new JwtTokenStoreComRevogacao(accessTokenConverter, semRevogados);
+		tokenServices = new DefaultTokenServices();
+		tokenServices.setTokenStore(tokenStore);
+		tokenServices.setClientDetailsService(clientDetailsService);
+		tokenServicesComCache = new CachingResourceServerTokenServices(tokenStore, clientDetailsService, 100,
+				semRevogados);
+
+		TokensRevogados tokensRevogados = new TokensRevogados(new AlgamoneyApiProperty());
+		Date ate = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+		for (int i = 0; i < 10_000; i++) {
+			tokensRevogados.revogar(UUID.randomUUID().toString(), ate);
+		}
+		tokenServicesComRevogados = new CachingResourceServerTokenServices(
+				new JwtTokenStoreComRevogacao(accessTokenConverter, tokensRevogados), clientDetailsService, 100,
+				tokensRevogados);
+	}
+
+	@Benchmark
+	public OAuth2Authentication decodificarEValidar() {
+		return tokenServices.loadAuthentication(token);
+	}
+
+	@Benchmark
+	public OAuth2Authentication tokenEmCache() {
+		return tokenServicesComCache.loadAuthentication(token);
+	}
+
+	@Benchmark
+	public OAuth2Authentication tokenEmCacheComRevogados() {
+		return tokenServicesComRevogados.loadAuthentication(token);
+	}
+
+}
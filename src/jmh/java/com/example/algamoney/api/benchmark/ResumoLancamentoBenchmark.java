@@ -0,0 +1,64 @@
+package com.example.algamoney.api.benchmark;
+
+import java.lang.reflect.Constructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.algamoney.api.model.TipoLancamento;
+import com.example.algamoney.api.repository.projection.ResumoLancamento;
+
+/**
+ * Criação das projeções ResumoLancamento. O Hibernate cria cada linha do
+ * construct da Criteria pelo construtor via reflexão, então as duas formas são
+ * medidas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResumoLancamentoBenchmark {
+
+	private Long codigo = 1L;
+	private String descricao = "Salário mensal";
+	private LocalDate dataVencimento = LocalDate.of(2017, 6, 10);
+	private LocalDate dataPagamento = LocalDate.of(2017, 6, 10);
+	private BigDecimal valor = new BigDecimal("6500.00");
+	private TipoLancamento tipo = TipoLancamento.RECEITA;
+	private String categoria = "Lazer";
+	private String pessoa = "João Silva";
+
+	private Constructor<ResumoLancamento> construtor;
+
+	@Setup
+	public void iniciar() throws NoSuchMethodException {
+		construtor = ResumoLancamento.class.getConstructor(Long.class, String.class, LocalDate.class,
+				LocalDate.class, BigDecimal.class, TipoLancamento.class, String.class, String.class);
+	}
+
+	@Benchmark
+	public ResumoLancamento construtor() {
+		return new ResumoLancamento(codigo, descricao, dataVencimento, dataPagamento, valor, tipo, categoria,
+				pessoa);
+	}
+
+	@Benchmark
+	public ResumoLancamento reflexao() throws ReflectiveOperationException {
+		return construtor.newInstance(codigo, descricao, dataVencimento, dataPagamento, valor, tipo, categoria,
+				pessoa);
+	}
+
+}
@@ -0,0 +1,142 @@
+package com.example.algamoney.api.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.algamoney.api.model.Categoria;
+import com.example.algamoney.api.model.Endereco;
+import com.example.algamoney.api.model.Lancamento;
+import com.example.algamoney.api.model.Pessoa;
+import com.example.algamoney.api.model.TipoLancamento;
+import com.example.algamoney.api.repository.projection.LancamentoDetalhe;
+import com.example.algamoney.api.repository.projection.ResumoLancamento;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Serialização de uma página da pesquisa de lançamentos, com a entidade
+ * completa (pessoa com endereço e categoria), com o LancamentoDetalhe, que gera
+ * o mesmo JSON, e com o resumo. O ObjectMapper é configurado como o do Spring
+ * Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializacaoLancamentoBenchmark {
+
+	@Param({ "20", "100" })
+	private int tamanhoPagina;
+
+	private ObjectMapper objectMapper;
+	private Page<Lancamento> lancamentos;
+	private Page<ResumoLancamento> resumos;
+	private Page<LancamentoDetalhe> detalhes;
+
+	@Setup
+	public void iniciar() {
+		objectMapper = Jackson2ObjectMapperBuilder.json()
+				.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+		List<Lancamento> conteudoLancamentos = new ArrayList<>();
+		List<ResumoLancamento> conteudoResumos = new ArrayList<>();
+		List<LancamentoDetalhe> conteudoDetalhes = new ArrayList<>();
+		for (long i = 1; i <= tamanhoPagina; i++) {
+			Lancamento lancamento = lancamento(i);
+			conteudoLancamentos.add(lancamento);
+			conteudoResumos.add(new ResumoLancamento(lancamento.getCodigo(), lancamento.getDescricao(),
+					lancamento.getDataVencimento(), lancamento.getDataPagamento(), lancamento.getValor(),
+					lancamento.getTipo(), lancamento.getCategoria().getNome(), lancamento.getPessoa().getNome()));
+			conteudoDetalhes.add(detalhe(lancamento));
+		}
+
+		PageRequest pageable = PageRequest.of(0, tamanhoPagina);
+		lancamentos = new PageImpl<>(conteudoLancamentos, pageable, 10_000);
+		resumos = new PageImpl<>(conteudoResumos, pageable, 10_000);
+		detalhes = new PageImpl<>(conteudoDetalhes, pageable, 10_000);
+	}
+
+	@Benchmark
+	public byte[] paginaDeLancamentos() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(lancamentos);
+	}
+
+	@Benchmark
+	public byte[] paginaDeResumos() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(resumos);
+	}
+
+	/**
+	 * O mesmo JSON da paginaDeLancamentos, pelo LancamentoDetalheSerializer.
+	 */
+	@Benchmark
+	public byte[] paginaDeDetalhes() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(detalhes);
+	}
+
+	private LancamentoDetalhe detalhe(Lancamento lancamento) {
+		Pessoa pessoa = lancamento.getPessoa();
+		Endereco endereco = pessoa.getEndereco();
+		return new LancamentoDetalhe(lancamento.getCodigo(), lancamento.getDescricao(),
+				lancamento.getDataVencimento(), lancamento.getDataPagamento(), lancamento.getValor(),
+				lancamento.getObservacao(), lancamento.getTipo(), lancamento.getCategoria().getCodigo(),
+				lancamento.getCategoria().getNome(), pessoa.getCodigo(), pessoa.getNome(), pessoa.getAtivo(),
+				endereco.getLogradouro(), endereco.getNumero(), endereco.getComplemento(), endereco.getBairro(),
+				endereco.getCep(), endereco.getCidade(), endereco.getEstado());
+	}
+
+	private Lancamento lancamento(long codigo) {
+		Endereco endereco = new Endereco();
+		endereco.setLogradouro("Rua do Abacaxi");
+		endereco.setNumero("10");
+		endereco.setBairro("Brasil");
+		endereco.setCep("38.400-12");
+		endereco.setCidade("Uberlândia");
+		endereco.setEstado("MG");
+
+		Pessoa pessoa = new Pessoa();
+		pessoa.setCodigo(codigo % 10 + 1);
+		pessoa.setNome("João Silva");
+		pessoa.setEndereco(endereco);
+		pessoa.setAtivo(true);
+
+		Categoria categoria = new Categoria();
+		categoria.setCodigo(codigo % 5 + 1);
+		categoria.setNome("Alimentação");
+
+		Lancamento lancamento = new Lancamento();
+		lancamento.setCodigo(codigo);
+		lancamento.setDescricao("Lançamento " + codigo);
+		lancamento.setDataVencimento(LocalDate.of(2017, 6, 10).plusDays(codigo));
+		lancamento.setDataPagamento(LocalDate.of(2017, 6, 10).plusDays(codigo));
+		lancamento.setValor(new BigDecimal("100.32").add(BigDecimal.valueOf(codigo)));
+		lancamento.setObservacao("Observação do lançamento");
+		lancamento.setTipo(codigo % 2 == 0 ? TipoLancamento.RECEITA : TipoLancamento.DESPESA);
+		lancamento.setCategoria(categoria);
+		lancamento.setPessoa(pessoa);
+		return lancamento;
+	}
+
+}
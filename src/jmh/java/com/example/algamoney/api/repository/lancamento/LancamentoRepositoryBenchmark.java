@@ -0,0 +1,127 @@
+package com.example.algamoney.api.repository.lancamento;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.PostgreSQL10Dialect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.orm.jpa.hibernate.SpringPhysicalNamingStrategy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.algamoney.api.config.FuncoesSqlMetadataBuilderContributor;
+import com.example.algamoney.api.model.Categoria;
+import com.example.algamoney.api.model.Lancamento;
+import com.example.algamoney.api.model.Permissao;
+import com.example.algamoney.api.model.Pessoa;
+import com.example.algamoney.api.model.Usuario;
+import com.example.algamoney.api.repository.filter.LancamentoFilter;
+
+/**
+ * Mede a montagem da consulta de lançamentos com a Criteria: só as restrições,
+ * e as restrições mais a compilação da consulta pelo Hibernate até o SQL. O
+ * Hibernate sobe sem banco (não lê os metadados do JDBC), pois nenhuma consulta
+ * é executada.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LancamentoRepositoryBenchmark {
+
+	@Param({ "nenhum", "descricao", "textual", "vencimento" })
+	private String filtro;
+
+	private SessionFactory sessionFactory;
+	private EntityManager manager;
+	private LancamentoRepositoryImpl repository;
+	private LancamentoFilter lancamentoFilter;
+
+	@Setup(Level.Trial)
+	public void iniciar() {
+		StandardServiceRegistry registro = new StandardServiceRegistryBuilder()
+				.applySetting(AvailableSettings.DIALECT, PostgreSQL10Dialect.class.getName())
+				.applySetting("hibernate.temp.use_jdbc_metadata_defaults", false)
+				.applySetting(AvailableSettings.PHYSICAL_NAMING_STRATEGY, SpringPhysicalNamingStrategy.class.getName())
+				.build();
+
+		MetadataSources fontes = new MetadataSources(registro).addAnnotatedClass(Categoria.class)
+				.addAnnotatedClass(Lancamento.class).addAnnotatedClass(Pessoa.class)
+				.addAnnotatedClass(Permissao.class).addAnnotatedClass(Usuario.class);
+		MetadataBuilder metadataBuilder = fontes.getMetadataBuilder();
+		new FuncoesSqlMetadataBuilderContributor().contribute(metadataBuilder);
+
+		sessionFactory = metadataBuilder.build().buildSessionFactory();
+		manager = sessionFactory.createEntityManager();
+
+		repository = new LancamentoRepositoryImpl();
+		ReflectionTestUtils.setField(repository, "manager", manager);
+
+		lancamentoFilter = new LancamentoFilter();
+		switch (filtro) {
+		case "descricao":
+			lancamentoFilter.setDescricao("conta");
+			break;
+		case "textual":
+			lancamentoFilter.setDescricao("conta de luz");
+			lancamentoFilter.setBuscaTextual(true);
+			break;
+		case "vencimento":
+			lancamentoFilter.setDataVencimentoDe(LocalDate.of(2017, 1, 1));
+			lancamentoFilter.setDataVencimentoAte(LocalDate.of(2017, 12, 31));
+			break;
+		default:
+			break;
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void encerrar() {
+		manager.close();
+		sessionFactory.close();
+	}
+
+	@Benchmark
+	public Predicate[] criarRestricoes() {
+		CriteriaBuilder builder = manager.getCriteriaBuilder();
+		CriteriaQuery<Lancamento> criteria = builder.createQuery(Lancamento.class);
+		Root<Lancamento> root = criteria.from(Lancamento.class);
+		return repository.criarRestricoes(lancamentoFilter, builder, root);
+	}
+
+	@Benchmark
+	public TypedQuery<Lancamento> criarConsulta() {
+		CriteriaBuilder builder = manager.getCriteriaBuilder();
+		CriteriaQuery<Lancamento> criteria = builder.createQuery(Lancamento.class);
+		Root<Lancamento> root = criteria.from(Lancamento.class);
+		criteria.where(repository.criarRestricoes(lancamentoFilter, builder, root));
+		return manager.createQuery(criteria);
+	}
+
+}
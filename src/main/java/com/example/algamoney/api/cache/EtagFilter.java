@@ -0,0 +1,52 @@
+package com.example.algamoney.api.cache;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+/**
+ * Coloca ETag nas buscas de um lançamento, de uma pessoa ou de uma categoria
+ * pelo código, inclusive na de lançamento em /reativo. O ETag é o hash do corpo
+ * da resposta, então a consulta ao banco continua acontecendo, mas quando o
+ * cliente manda o If-None-Match com o ETag que já tem e nada mudou, a resposta
+ * é só um 304, sem corpo.
+ *
+ * O Cache-Control é private, porque a resposta depende do token, e no-cache,
+ * para o cliente sempre conferir com a api antes de usar o que guardou. Sem
+ * ele, o Spring Security manda no-store, e o cliente nem guardaria a resposta.
+ *
+ * O ETag é fraco (W/) porque o Tomcat não comprime respostas com ETag forte.
+ *
+ * Roda depois do filtro do Spring Security, então só chegam aqui requisições
+ * autenticadas.
+ */
+@Component
+public class EtagFilter extends ShallowEtagHeaderFilter {
+
+	private static final Pattern RECURSO = Pattern.compile("(/reativo)?/(lancamentos|pessoas|categorias)/\\d+");
+
+	public EtagFilter() {
+		setWriteWeakETag(true);
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !"GET".equals(request.getMethod()) || !RECURSO.matcher(request.getRequestURI()).matches();
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+			FilterChain filterChain) throws ServletException, IOException {
+		response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+		super.doFilterInternal(request, response, filterChain);
+	}
+
+}
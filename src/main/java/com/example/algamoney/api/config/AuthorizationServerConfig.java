@@ -1,5 +1,7 @@
 package com.example.algamoney.api.config;
 
+import java.util.Arrays;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,9 +11,13 @@ import org.springframework.security.oauth2.config.annotation.configurers.ClientD
 import org.springframework.security.oauth2.config.annotation.web.configuration.AuthorizationServerConfigurerAdapter;
 import org.springframework.security.oauth2.config.annotation.web.configuration.EnableAuthorizationServer;
 import org.springframework.security.oauth2.config.annotation.web.configurers.AuthorizationServerEndpointsConfigurer;
+import org.springframework.security.oauth2.provider.token.TokenEnhancerChain;
 import org.springframework.security.oauth2.provider.token.TokenStore;
 import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
-import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
+
+import com.example.algamoney.api.token.JwtTokenStoreComRevogacao;
+import com.example.algamoney.api.token.SessaoTokenEnhancer;
+import com.example.algamoney.api.token.TokensRevogados;
 
 /**
  * Configura o servidor de autorização.
@@ -33,6 +39,9 @@ public class AuthorizationServerConfig extends AuthorizationServerConfigurerAdap
 	@Autowired
 	private UserDetailsService userDetailsService;
 
+	@Autowired
+	private TokensRevogados tokensRevogados;
+
 	/**
 	 * Configura a aplicação, ou seja, o cliente. No exemplo do facebook, seria o
 	 * site terceiro, que solicita o token.
@@ -76,20 +85,29 @@ public class AuthorizationServerConfig extends AuthorizationServerConfigurerAdap
 				.accessTokenValiditySeconds(1800)
 				// Configura a validade do refresh token para durar 1 dia.
 				.refreshTokenValiditySeconds(3600 * 24)
-				//
-				.and().withClient("mobile").secret("m0b1l30").scopes("read")
+				// Assim como a do angular, a senha fica com BCrypt, que é o PasswordEncoder
+				// configurado. Em texto puro, o login do mobile nunca dava certo.
+//				.secret("m0b1l30")
+				.and().withClient("mobile").secret("$2a$10$UIEeAApSlL2MhPhrZwA2G.XIx6kRYlA8hGf5StvxdtGMSz9VUUuXW")
+				.scopes("read")
 				.authorizedGrantTypes("password", "refresh_token").accessTokenValiditySeconds(1800)
 				.refreshTokenValiditySeconds(3600 * 24);
 	}
 
 	@Override
 	public void configure(AuthorizationServerEndpointsConfigurer endpoints) throws Exception {
+		// A sessao entra no token antes da conversão para JWT, para ir também no
+		// refresh token.
+		TokenEnhancerChain tokenEnhancer = new TokenEnhancerChain();
+		tokenEnhancer.setTokenEnhancers(Arrays.asList(new SessaoTokenEnhancer(), accessTokenConverter()));
+
 		endpoints
 				// Eu preciso armazenar esses tokens em algum lugar. Onde? Num TokenStore.
 				.tokenStore(tokenStore())
 				// Como mudamos do token oAuth para o JWT, precisamos adicionar um token
 				// converter.
 				.accessTokenConverter(accessTokenConverter())
+				.tokenEnhancer(tokenEnhancer)
 				// Setando para não reusar o refresh token, sempre que eu pedir um novo access
 				// token usando o refresh token, um novo refresh token é gerado. Então, enquanto
 				// o usuário estiver usando a aplicação, ele não vai ser deslogado, pois o
@@ -123,7 +141,9 @@ public class AuthorizationServerConfig extends AuthorizationServerConfigurerAdap
 		// Armazena os tokens em memória, por enquanto. Depois será usado o token JWT,
 		// que não precisa ser armazenado assim.
 //		return new InMemoryTokenStore();
-		return new JwtTokenStore(accessTokenConverter());
+		// O JWT continua sem ser guardado, só os tokens revogados no logout ficam em
+		// memória para serem recusados.
+		return new JwtTokenStoreComRevogacao(accessTokenConverter(), tokensRevogados);
 	}
 
 }
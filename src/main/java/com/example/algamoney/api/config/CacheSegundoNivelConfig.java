@@ -0,0 +1,62 @@
+package com.example.algamoney.api.config;
+
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ObjectUtils;
+
+import com.example.algamoney.api.config.property.AlgamoneyApiProperty;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+/**
+ * Cache de segundo nível do Hibernate pelo JCache, com o Caffeine guardando os
+ * itens. Cada região é criada aqui com o tamanho e a expiração de
+ * algamoney.cache-segundo-nivel.regioes, e o Hibernate recebe o CacheManager
+ * pronto. Os acertos de cada região são publicados pelo
+ * CacheSegundoNivelMetrics.
+ */
+@Configuration
+public class CacheSegundoNivelConfig {
+
+	/**
+	 * O CacheManager padrão do JCache é um só para a JVM inteira. Cada contexto do
+	 * Spring (os testes sobem vários na mesma JVM) precisa do seu, senão o segundo
+	 * encontra as regiões já criadas, então a URI leva a identidade desta
+	 * configuração.
+	 */
+	@Bean(destroyMethod = "close")
+	public CacheManager cacheManagerSegundoNivel(AlgamoneyApiProperty algamoneyApiProperty) {
+		CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+		CacheManager cacheManager = provider.getCacheManager(
+				URI.create("algamoney:segundo-nivel:" + ObjectUtils.getIdentityHexString(this)),
+				provider.getDefaultClassLoader());
+
+		algamoneyApiProperty.getCacheSegundoNivel().getRegioes().forEach((nome, regiao) -> {
+			CaffeineConfiguration<Object, Object> configuracao = new CaffeineConfiguration<>();
+			configuracao.setMaximumSize(OptionalLong.of(regiao.getTamanhoMaximo()));
+			if (regiao.getExpiracaoEmSegundos() > 0) {
+				configuracao.setExpireAfterWrite(
+						OptionalLong.of(TimeUnit.SECONDS.toNanos(regiao.getExpiracaoEmSegundos())));
+			}
+			cacheManager.createCache(nome, configuracao);
+		});
+
+		return cacheManager;
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer cacheSegundoNivel(CacheManager cacheManagerSegundoNivel) {
+		return propriedades -> propriedades.put(ConfigSettings.CACHE_MANAGER, cacheManagerSegundoNivel);
+	}
+
+}
@@ -0,0 +1,113 @@
+package com.example.algamoney.api.config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.example.algamoney.api.config.property.AlgamoneyApiProperty;
+import com.example.algamoney.api.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Só é usada quando há réplicas de leitura configuradas. Nesse caso, o
+ * spring.datasource vira o primário e o DataSource da aplicação passa a ser o
+ * ReplicaRoutingDataSource. Sem réplicas, fica o DataSource padrão do Spring
+ * Boot.
+ *
+ * O ReplicaRoutingDataSource e os pools não são beans. Um segundo bean do tipo
+ * DataSource faz o Spring Boot procurar o DataSource principal enquanto ele
+ * ainda está sendo criado, e a aplicação não sobe. Por isso as métricas e o
+ * fechamento deles são feitos por esta configuração.
+ */
+@Configuration
+@ConditionalOnProperty("algamoney.banco.replicas[0].url")
+public class DataSourceConfig implements DisposableBean {
+
+	private final List<HikariDataSource> pools = new ArrayList<>();
+
+	private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+	/**
+	 * O Lazy adia a escolha do banco até o primeiro comando da transação, quando já
+	 * se sabe se ela é somente leitura.
+	 */
+	@Bean
+	@Primary
+	public DataSource dataSource(DataSourceProperties dataSourceProperties,
+			AlgamoneyApiProperty algamoneyApiProperty) {
+		HikariDataSource primario = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class)
+				.build();
+		configurarPool(primario, "primario");
+
+		List<DataSource> replicas = new ArrayList<>();
+		List<AlgamoneyApiProperty.Banco.Replica> configuracoes = algamoneyApiProperty.getBanco().getReplicas();
+		for (int i = 0; i < configuracoes.size(); i++) {
+			AlgamoneyApiProperty.Banco.Replica configuracao = configuracoes.get(i);
+			HikariDataSource replica = DataSourceBuilder.create().type(HikariDataSource.class)
+					.url(configuracao.getUrl()).username(configuracao.getUsername())
+					.password(configuracao.getPassword()).build();
+			configurarPool(replica, "replica-" + (i + 1));
+			replicas.add(replica);
+		}
+
+		replicaRoutingDataSource = new ReplicaRoutingDataSource(primario, replicas, algamoneyApiProperty.getBanco());
+		replicaRoutingDataSource.afterPropertiesSet();
+		return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+	}
+
+	/**
+	 * Por padrão, com o open-in-view, o Hibernate segura a primeira conexão até o
+	 * fim da requisição. Se a primeira transação fosse uma leitura, a escrita
+	 * seguinte iria junto para a réplica. Liberando a conexão ao fim de cada
+	 * transação, cada uma escolhe o próprio banco.
+	 */
+	@Bean
+	public HibernatePropertiesCustomizer conexaoPorTransacao() {
+		return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+				PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+	}
+
+	/**
+	 * As métricas das réplicas e dos pools do Hikari. O MeterRegistry não pode ser
+	 * pedido na criação do DataSource, porque ao ser criado ele chama todos os
+	 * MeterBinder, e alguns dependem do DataSource. O Hikari aceita as métricas
+	 * mesmo depois do pool aberto.
+	 */
+	@Bean
+	public MeterBinder metricasReplicas(DataSource dataSource) {
+		return registry -> {
+			replicaRoutingDataSource.bindTo(registry);
+			pools.forEach(pool -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+		};
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		if (replicaRoutingDataSource != null) {
+			replicaRoutingDataSource.destroy();
+		}
+	}
+
+	private void configurarPool(HikariDataSource pool, String nome) {
+		pool.setPoolName(nome);
+		pools.add(pool);
+	}
+
+}
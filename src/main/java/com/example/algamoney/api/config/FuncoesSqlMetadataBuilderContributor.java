@@ -0,0 +1,30 @@
+package com.example.algamoney.api.config;
+
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registra no Hibernate as funções do PostgreSQL que a Criteria não conhece,
+ * para podermos usá-las com o builder.function(...). É configurada no
+ * application.properties (hibernate.metadata_builder_contributor).
+ *
+ * A configuração de idioma fica fixa em 'portuguese', pois precisa ser
+ * exatamente a mesma expressão do índice idx_lancamento_descricao_fts, senão o
+ * banco não usa o índice.
+ */
+public class FuncoesSqlMetadataBuilderContributor implements MetadataBuilderContributor {
+
+	public static final String TEXTO_CORRESPONDE = "texto_corresponde";
+	public static final String RELEVANCIA_TEXTO = "relevancia_texto";
+
+	@Override
+	public void contribute(MetadataBuilder metadataBuilder) {
+		metadataBuilder.applySqlFunction(TEXTO_CORRESPONDE, new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN,
+				"(to_tsvector('portuguese', ?1) @@ plainto_tsquery('portuguese', ?2))"));
+		metadataBuilder.applySqlFunction(RELEVANCIA_TEXTO, new SQLFunctionTemplate(StandardBasicTypes.DOUBLE,
+				"ts_rank(to_tsvector('portuguese', ?1), plainto_tsquery('portuguese', ?2))"));
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.example.algamoney.api.config;
+
+import java.time.Duration;
+
+import javax.servlet.DispatcherType;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.algamoney.api.cache.EtagFilter;
+import com.example.algamoney.api.config.property.AlgamoneyApiProperty;
+import com.example.algamoney.api.repository.lancamento.LancamentoRepositoryReativo;
+import com.example.algamoney.api.repository.lancamento.TotaisLancamentoEmCache;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+
+/**
+ * Só é usada com algamoney.reativo.habilitado=true. O Spring Boot 2.2 ainda não
+ * configura o R2DBC sozinho, então o pool é montado aqui com as propriedades de
+ * algamoney.reativo.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "algamoney.reativo", name = "habilitado", havingValue = "true")
+public class ReativoConfig {
+
+	@Bean(destroyMethod = "dispose")
+	public ConnectionPool connectionPool(AlgamoneyApiProperty algamoneyApiProperty) {
+		AlgamoneyApiProperty.Reativo reativo = algamoneyApiProperty.getReativo();
+
+		ConnectionFactoryOptions.Builder opcoes = ConnectionFactoryOptions.parse(reativo.getUrl()).mutate();
+		if (reativo.getUsername() != null) {
+			opcoes.option(ConnectionFactoryOptions.USER, reativo.getUsername());
+		}
+		if (reativo.getPassword() != null) {
+			opcoes.option(ConnectionFactoryOptions.PASSWORD, reativo.getPassword());
+		}
+		ConnectionFactory connectionFactory = ConnectionFactories.get(opcoes.build());
+
+		return new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory).name("reativo")
+				.initialSize(1).maxSize(reativo.getTamanhoPool())
+				.maxAcquireTime(Duration.ofMillis(reativo.getTempoMaximoEsperaEmMilissegundos())).build());
+	}
+
+	@Bean
+	public LancamentoRepositoryReativo lancamentoRepositoryReativo(ConnectionPool connectionPool,
+			TotaisLancamentoEmCache totaisLancamentoEmCache) {
+		return new LancamentoRepositoryReativo(connectionPool, totaisLancamentoEmCache);
+	}
+
+	/**
+	 * O Spring Boot registra os filtros só para o dispatch REQUEST. A resposta de
+	 * um Mono é escrita num segundo dispatch, ASYNC, e sem ele o EtagFilter
+	 * guardaria o corpo sem nunca enviar.
+	 */
+	@Bean
+	public FilterRegistrationBean<EtagFilter> etagFilterRegistration(EtagFilter etagFilter) {
+		FilterRegistrationBean<EtagFilter> registro = new FilterRegistrationBean<>(etagFilter);
+		registro.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+		return registro;
+	}
+
+}
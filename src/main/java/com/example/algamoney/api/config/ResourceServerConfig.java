@@ -1,7 +1,9 @@
 package com.example.algamoney.api.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -9,7 +11,15 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.oauth2.config.annotation.web.configuration.EnableResourceServer;
 import org.springframework.security.oauth2.config.annotation.web.configuration.ResourceServerConfigurerAdapter;
 import org.springframework.security.oauth2.config.annotation.web.configurers.ResourceServerSecurityConfigurer;
+import org.springframework.security.oauth2.provider.ClientDetailsService;
 import org.springframework.security.oauth2.provider.expression.OAuth2MethodSecurityExpressionHandler;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+
+import com.example.algamoney.api.config.property.AlgamoneyApiProperty;
+import com.example.algamoney.api.token.CachingResourceServerTokenServices;
+import com.example.algamoney.api.token.TokensRevogados;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
 
 /**
  * Configura o servidor de recursos. Com o oAuth2, ele consulta o
@@ -25,6 +35,30 @@ import org.springframework.security.oauth2.provider.expression.OAuth2MethodSecur
 @EnableGlobalMethodSecurity(prePostEnabled = true)
 public class ResourceServerConfig extends ResourceServerConfigurerAdapter {
 
+	/**
+	 * Por causa do @EnableGlobalMethodSecurity, essa classe é criada antes dos
+	 * outros beans. Com o @Lazy, o TokenStore e as propriedades só são buscados
+	 * quando forem usados, e não arrastam a criação do resto da aplicação para
+	 * antes da hora.
+	 */
+	@Lazy
+	@Autowired
+	private TokenStore tokenStore;
+
+	@Lazy
+	@Autowired
+	private AlgamoneyApiProperty algamoneyApiProperty;
+
+	@Lazy
+	@Autowired
+	private TokensRevogados tokensRevogados;
+
+	@Lazy
+	@Autowired
+	private ClientDetailsService clientDetailsService;
+
+	private CachingResourceServerTokenServices tokenServicesComCache;
+
 	/**
 	 * Com o ResourceServer do oAuth2, o AuthenticationManagerBuilder é injetado pra
 	 * gente. Por isso uso o Autowired.
@@ -39,6 +73,9 @@ public class ResourceServerConfig extends ResourceServerConfigurerAdapter {
 		http.authorizeRequests()
 				// Libero todas as requisições para /categorias, sem autenticar.
 				.antMatchers("/categorias").permitAll()
+				// O health é usado pelo balanceador e o prometheus pelo coletor de métricas. Os dois
+				// só existem na porta do management.server.port, que não é publicada com a API.
+				.antMatchers("/actuator/health", "/actuator/prometheus").permitAll()
 				// Digo que para qualquer requisição, eu preciso estar autenticado.
 				.anyRequest().authenticated()
 				// Defino o tipo de autenticação que vou usar.
@@ -55,6 +92,33 @@ public class ResourceServerConfig extends ResourceServerConfigurerAdapter {
 	@Override
 	public void configure(ResourceServerSecurityConfigurer resources) throws Exception {
 		resources.stateless(true);
+		resources.tokenServices(tokenServicesComCache());
+	}
+
+	/**
+	 * Os tokens continuam sendo lidos pelo JwtTokenStore, mas só na primeira vez
+	 * que aparecem. Como no token services que o Spring montaria, o cliente do
+	 * token precisa continuar cadastrado. Não é um @Bean de propósito: com mais de
+	 * um ResourceServerTokenServices no contexto, o ResourceServerConfiguration do
+	 * Spring não sabe qual usar.
+	 */
+	private CachingResourceServerTokenServices tokenServicesComCache() {
+		if (tokenServicesComCache == null) {
+			tokenServicesComCache = new CachingResourceServerTokenServices(tokenStore, clientDetailsService,
+					algamoneyApiProperty.getSeguranca().getTamanhoCacheTokens(), tokensRevogados);
+		}
+		return tokenServicesComCache;
+	}
+
+	/**
+	 * As métricas do cache de tokens são registradas quando o MeterRegistry for
+	 * criado. Injetar o MeterRegistry aqui faria ele ser criado junto com a
+	 * segurança, antes da hora. É uma lambda para o bean não ser também um
+	 * ResourceServerTokenServices.
+	 */
+	@Bean
+	public MeterBinder metricasCacheTokens() {
+		return registry -> tokenServicesComCache().bindTo(registry);
 	}
 
 	/**
@@ -0,0 +1,397 @@
+package com.example.algamoney.api.config.property;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.example.algamoney.api.datasource.SelecaoReplica;
+
+/**
+ * Configurações da própria api, lidas do application.properties com o prefixo
+ * algamoney. Ex.: algamoney.seguranca.tamanho-cache-tokens=10000
+ */
+@ConfigurationProperties("algamoney")
+public class AlgamoneyApiProperty {
+
+	private final Seguranca seguranca = new Seguranca();
+
+	private final Login login = new Login();
+
+	private final Banco banco = new Banco();
+
+	private final Reativo reativo = new Reativo();
+
+	private final CacheSegundoNivel cacheSegundoNivel = new CacheSegundoNivel();
+
+	public Seguranca getSeguranca() {
+		return seguranca;
+	}
+
+	public Login getLogin() {
+		return login;
+	}
+
+	public Banco getBanco() {
+		return banco;
+	}
+
+	public Reativo getReativo() {
+		return reativo;
+	}
+
+	public CacheSegundoNivel getCacheSegundoNivel() {
+		return cacheSegundoNivel;
+	}
+
+	public static class Seguranca {
+
+		/**
+		 * Quantos tokens já validados ficam em cache no servidor de recursos.
+		 */
+		private long tamanhoCacheTokens = 10_000;
+
+		/**
+		 * Para quantos tokens revogados o filtro de Bloom é dimensionado. Passando
+		 * disso ele é montado de novo, maior.
+		 */
+		private int capacidadeTokensRevogados = 100_000;
+
+		/**
+		 * De quanto em quanto tempo os tokens revogados que já expiraram saem da
+		 * lista.
+		 */
+		private long intervaloLimpezaTokensRevogadosEmSegundos = 60;
+
+		public long getTamanhoCacheTokens() {
+			return tamanhoCacheTokens;
+		}
+
+		public void setTamanhoCacheTokens(long tamanhoCacheTokens) {
+			this.tamanhoCacheTokens = tamanhoCacheTokens;
+		}
+
+		public int getCapacidadeTokensRevogados() {
+			return capacidadeTokensRevogados;
+		}
+
+		public void setCapacidadeTokensRevogados(int capacidadeTokensRevogados) {
+			this.capacidadeTokensRevogados = capacidadeTokensRevogados;
+		}
+
+		public long getIntervaloLimpezaTokensRevogadosEmSegundos() {
+			return intervaloLimpezaTokensRevogadosEmSegundos;
+		}
+
+		public void setIntervaloLimpezaTokensRevogadosEmSegundos(long intervaloLimpezaTokensRevogadosEmSegundos) {
+			this.intervaloLimpezaTokensRevogadosEmSegundos = intervaloLimpezaTokensRevogadosEmSegundos;
+		}
+
+	}
+
+	/**
+	 * Limites do login pelo password grant, que confere as senhas com BCrypt e
+	 * por isso usa muita CPU.
+	 */
+	public static class Login {
+
+		/**
+		 * Quantos logins são processados ao mesmo tempo. Zero usa metade dos
+		 * processadores (no mínimo um), para sobrar CPU para o resto da api mesmo
+		 * com muitos logins juntos.
+		 */
+		private int concorrencia = 0;
+
+		/**
+		 * Quantos logins podem ficar esperando a vez. Acima disso a resposta é 429
+		 * na hora.
+		 */
+		private int tamanhoFila = 50;
+
+		/**
+		 * Quanto tempo um login espera a vez antes de receber 503.
+		 */
+		private long tempoMaximoEsperaEmMilissegundos = 2_000;
+
+		/**
+		 * Por quanto tempo o usuário e as permissões buscados no banco são
+		 * reaproveitados.
+		 */
+		private long tempoCacheUsuariosEmSegundos = 30;
+
+		public int getConcorrencia() {
+			return concorrencia > 0 ? concorrencia : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		}
+
+		public void setConcorrencia(int concorrencia) {
+			this.concorrencia = concorrencia;
+		}
+
+		public int getTamanhoFila() {
+			return tamanhoFila;
+		}
+
+		public void setTamanhoFila(int tamanhoFila) {
+			this.tamanhoFila = tamanhoFila;
+		}
+
+		public long getTempoMaximoEsperaEmMilissegundos() {
+			return tempoMaximoEsperaEmMilissegundos;
+		}
+
+		public void setTempoMaximoEsperaEmMilissegundos(long tempoMaximoEsperaEmMilissegundos) {
+			this.tempoMaximoEsperaEmMilissegundos = tempoMaximoEsperaEmMilissegundos;
+		}
+
+		public long getTempoCacheUsuariosEmSegundos() {
+			return tempoCacheUsuariosEmSegundos;
+		}
+
+		public void setTempoCacheUsuariosEmSegundos(long tempoCacheUsuariosEmSegundos) {
+			this.tempoCacheUsuariosEmSegundos = tempoCacheUsuariosEmSegundos;
+		}
+
+	}
+
+	/**
+	 * Réplicas de leitura do banco. Sem nenhuma réplica configurada, tudo vai para
+	 * o spring.datasource. Ex.: algamoney.banco.replicas[0].url=jdbc:postgresql://...
+	 */
+	public static class Banco {
+
+		private List<Replica> replicas = new ArrayList<>();
+
+		private SelecaoReplica selecaoReplica = SelecaoReplica.RODIZIO;
+
+		/**
+		 * Réplicas mais atrasadas que isso deixam de receber leituras até alcançarem
+		 * o primário.
+		 */
+		private double atrasoMaximoEmSegundos = 5;
+
+		/**
+		 * De quanto em quanto tempo o atraso das réplicas é conferido.
+		 */
+		private long intervaloVerificacaoAtrasoEmSegundos = 5;
+
+		/**
+		 * Consulta que retorna o atraso da réplica em segundos. A padrão é do
+		 * PostgreSQL, e retorna zero quando a réplica já aplicou tudo o que recebeu,
+		 * mesmo que o primário esteja parado há tempo.
+		 */
+		private String consultaAtraso = "select coalesce(case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0"
+				+ " else extract(epoch from now() - pg_last_xact_replay_timestamp()) end, 0)";
+
+		/**
+		 * Depois de uma escrita, as leituras do mesmo usuário ficam no primário por
+		 * esse tempo, para ele ver o que acabou de gravar mesmo com a réplica
+		 * atrasada.
+		 */
+		private long janelaLeituraAposEscritaEmSegundos = 5;
+
+		public List<Replica> getReplicas() {
+			return replicas;
+		}
+
+		public void setReplicas(List<Replica> replicas) {
+			this.replicas = replicas;
+		}
+
+		public SelecaoReplica getSelecaoReplica() {
+			return selecaoReplica;
+		}
+
+		public void setSelecaoReplica(SelecaoReplica selecaoReplica) {
+			this.selecaoReplica = selecaoReplica;
+		}
+
+		public double getAtrasoMaximoEmSegundos() {
+			return atrasoMaximoEmSegundos;
+		}
+
+		public void setAtrasoMaximoEmSegundos(double atrasoMaximoEmSegundos) {
+			this.atrasoMaximoEmSegundos = atrasoMaximoEmSegundos;
+		}
+
+		public long getIntervaloVerificacaoAtrasoEmSegundos() {
+			return intervaloVerificacaoAtrasoEmSegundos;
+		}
+
+		public void setIntervaloVerificacaoAtrasoEmSegundos(long intervaloVerificacaoAtrasoEmSegundos) {
+			this.intervaloVerificacaoAtrasoEmSegundos = intervaloVerificacaoAtrasoEmSegundos;
+		}
+
+		public String getConsultaAtraso() {
+			return consultaAtraso;
+		}
+
+		public void setConsultaAtraso(String consultaAtraso) {
+			this.consultaAtraso = consultaAtraso;
+		}
+
+		public long getJanelaLeituraAposEscritaEmSegundos() {
+			return janelaLeituraAposEscritaEmSegundos;
+		}
+
+		public void setJanelaLeituraAposEscritaEmSegundos(long janelaLeituraAposEscritaEmSegundos) {
+			this.janelaLeituraAposEscritaEmSegundos = janelaLeituraAposEscritaEmSegundos;
+		}
+
+		public static class Replica {
+
+			private String url;
+			private String username;
+			private String password;
+
+			public String getUrl() {
+				return url;
+			}
+
+			public void setUrl(String url) {
+				this.url = url;
+			}
+
+			public String getUsername() {
+				return username;
+			}
+
+			public void setUsername(String username) {
+				this.username = username;
+			}
+
+			public String getPassword() {
+				return password;
+			}
+
+			public void setPassword(String password) {
+				this.password = password;
+			}
+
+		}
+
+	}
+
+	/**
+	 * Leituras de lançamentos pelo driver R2DBC, em /reativo/lancamentos. Ficam
+	 * desligadas até algamoney.reativo.habilitado=true. A url pode apontar para uma
+	 * réplica, já que só há consultas.
+	 */
+	public static class Reativo {
+
+		private boolean habilitado;
+
+		private String url = "r2dbc:postgresql://localhost/algamoneyapi";
+		private String username;
+		private String password;
+
+		/**
+		 * Conexões abertas com o banco. Como nenhuma thread fica parada esperando a
+		 * resposta, cada conexão atende uma consulta atrás da outra, e não precisam
+		 * ser muitas.
+		 */
+		private int tamanhoPool = 10;
+
+		/**
+		 * Quanto tempo uma consulta espera por uma conexão livre antes de falhar.
+		 */
+		private long tempoMaximoEsperaEmMilissegundos = 5_000;
+
+		public boolean isHabilitado() {
+			return habilitado;
+		}
+
+		public void setHabilitado(boolean habilitado) {
+			this.habilitado = habilitado;
+		}
+
+		public String getUrl() {
+			return url;
+		}
+
+		public void setUrl(String url) {
+			this.url = url;
+		}
+
+		public String getUsername() {
+			return username;
+		}
+
+		public void setUsername(String username) {
+			this.username = username;
+		}
+
+		public String getPassword() {
+			return password;
+		}
+
+		public void setPassword(String password) {
+			this.password = password;
+		}
+
+		public int getTamanhoPool() {
+			return tamanhoPool;
+		}
+
+		public void setTamanhoPool(int tamanhoPool) {
+			this.tamanhoPool = tamanhoPool;
+		}
+
+		public long getTempoMaximoEsperaEmMilissegundos() {
+			return tempoMaximoEsperaEmMilissegundos;
+		}
+
+		public void setTempoMaximoEsperaEmMilissegundos(long tempoMaximoEsperaEmMilissegundos) {
+			this.tempoMaximoEsperaEmMilissegundos = tempoMaximoEsperaEmMilissegundos;
+		}
+
+	}
+
+	/**
+	 * Regiões do cache de segundo nível do Hibernate, pelo nome. Toda região usada
+	 * pelas entidades e consultas precisa estar aqui, senão a aplicação não sobe.
+	 * Ex.: algamoney.cache-segundo-nivel.regioes.categoria.tamanho-maximo=1000
+	 */
+	public static class CacheSegundoNivel {
+
+		private Map<String, Regiao> regioes = new LinkedHashMap<>();
+
+		public Map<String, Regiao> getRegioes() {
+			return regioes;
+		}
+
+		public void setRegioes(Map<String, Regiao> regioes) {
+			this.regioes = regioes;
+		}
+
+		public static class Regiao {
+
+			private long tamanhoMaximo = 1_000;
+
+			/**
+			 * Tempo de vida de cada item desde que foi gravado no cache. Zero não expira.
+			 */
+			private long expiracaoEmSegundos;
+
+			public long getTamanhoMaximo() {
+				return tamanhoMaximo;
+			}
+
+			public void setTamanhoMaximo(long tamanhoMaximo) {
+				this.tamanhoMaximo = tamanhoMaximo;
+			}
+
+			public long getExpiracaoEmSegundos() {
+				return expiracaoEmSegundos;
+			}
+
+			public void setExpiracaoEmSegundos(long expiracaoEmSegundos) {
+				this.expiracaoEmSegundos = expiracaoEmSegundos;
+			}
+
+		}
+
+	}
+
+}
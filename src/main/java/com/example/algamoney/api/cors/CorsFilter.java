@@ -50,6 +50,9 @@ public class CorsFilter implements Filter {
 		// Esse daqui eu adiciono por causa do Cookie do refresh token, para que esse
 		// cookie seja enviado.
 		response.setHeader("Access-Control-Allow-Credentials", "true");
+		// Sem isso, o javascript do browser não consegue ler o ETag para mandar no
+		// If-None-Match.
+		response.setHeader("Access-Control-Expose-Headers", "ETag");
 
 		// Então, se a requisição for um OPTIONS e a origem que veio do browser for da
 		// nossa origem permitida, eu vou autorizar o pre_flight request. Caso
@@ -67,7 +70,7 @@ public class CorsFilter implements Filter {
 			response.setHeader("Access-Control-Allow-Methods", "POST, GET, DELETE, PUT, OPTIONS");
 			// Os headers que vamos permitir. Qualquer requisição com header diferente, será
 			// barrada.
-			response.setHeader("Access-Control-Allow-Headers", "Authorization, Content-Type, Accept");
+			response.setHeader("Access-Control-Allow-Headers", "Authorization, Content-Type, Accept, If-None-Match");
 			// O tempo que o browser vai esperar até a próxima requisição, em segundos.
 			// Nesse caso, o browser vai requisitar a cada uma hora.
 			response.setHeader("Access-Control-Max-Age", "3600");
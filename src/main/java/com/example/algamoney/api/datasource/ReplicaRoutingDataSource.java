@@ -0,0 +1,292 @@
+package com.example.algamoney.api.datasource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.algamoney.api.config.property.AlgamoneyApiProperty;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Manda as transações somente leitura (@Transactional(readOnly = true)) para uma
+ * das réplicas, e todo o resto para o primário.
+ *
+ * Precisa ficar dentro de um LazyConnectionDataSourceProxy. Sem ele, a conexão é
+ * pega no começo da transação, antes do Spring marcar a transação como somente
+ * leitura, e tudo iria para o primário.
+ *
+ * Uma réplica só recebe leituras enquanto o atraso dela, conferido de tempos em
+ * tempos, estiver dentro do tolerado. Sem nenhuma réplica disponível, as leituras
+ * vão para o primário. E depois que um usuário grava alguma coisa, as leituras
+ * dele ficam no primário por alguns segundos, para ele não deixar de ver o que
+ * acabou de gravar.
+ *
+ * O que é lido de uma réplica não vai para o cache de segundo nível do
+ * Hibernate, só o que é lido do primário.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements MeterBinder, DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+	static final String PRIMARIO = "primario";
+
+	private final DataSource primario;
+	private final List<Replica> replicas = new ArrayList<>();
+
+	private final SelecaoReplica selecaoReplica;
+	private final double atrasoMaximoEmSegundos;
+	private final long intervaloVerificacaoAtrasoEmSegundos;
+	private final String consultaAtraso;
+
+	private final AtomicInteger proximaReplica = new AtomicInteger();
+
+	/**
+	 * Usuários que gravaram alguma coisa dentro da janela de leitura após escrita.
+	 */
+	private final Cache<String, Boolean> escritasRecentes;
+
+	private ScheduledExecutorService verificadorAtraso;
+
+	public ReplicaRoutingDataSource(DataSource primario, List<DataSource> replicas, AlgamoneyApiProperty.Banco banco) {
+		this.primario = primario;
+		this.selecaoReplica = banco.getSelecaoReplica();
+		this.atrasoMaximoEmSegundos = banco.getAtrasoMaximoEmSegundos();
+		this.intervaloVerificacaoAtrasoEmSegundos = banco.getIntervaloVerificacaoAtrasoEmSegundos();
+		this.consultaAtraso = banco.getConsultaAtraso();
+		this.escritasRecentes = Caffeine.newBuilder()
+				.expireAfterWrite(banco.getJanelaLeituraAposEscritaEmSegundos(), TimeUnit.SECONDS).build();
+
+		Map<Object, Object> destinos = new HashMap<>();
+		destinos.put(PRIMARIO, primario);
+		for (int i = 0; i < replicas.size(); i++) {
+			Replica replica = new Replica("replica-" + (i + 1), replicas.get(i));
+			this.replicas.add(replica);
+			destinos.put(replica.nome, replica.dataSource);
+		}
+		setTargetDataSources(destinos);
+		setDefaultTargetDataSource(primario);
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		super.afterPropertiesSet();
+		verificarAtraso();
+		if (!replicas.isEmpty() && intervaloVerificacaoAtrasoEmSegundos > 0) {
+			verificadorAtraso = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "verificador-atraso-replicas");
+				thread.setDaemon(true);
+				return thread;
+			});
+			verificadorAtraso.scheduleWithFixedDelay(this::verificarAtraso, intervaloVerificacaoAtrasoEmSegundos,
+					intervaloVerificacaoAtrasoEmSegundos, TimeUnit.SECONDS);
+		}
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			registrarEscrita();
+			return PRIMARIO;
+		}
+
+		String usuario = usuarioAtual();
+		if (usuario != null && escritasRecentes.getIfPresent(usuario) != null) {
+			return PRIMARIO;
+		}
+
+		Replica replica = selecionarReplica();
+		if (replica == null) {
+			return PRIMARIO;
+		}
+		naoGuardarNoCacheDeSegundoNivel();
+		return replica.nome;
+	}
+
+	/**
+	 * O cache de segundo nível é um só para todos os usuários, e os acertos nele
+	 * nem chegam a passar por aqui. Se uma linha lida de uma réplica atrasada fosse
+	 * para o cache, todos passariam a ver a versão antiga até a região expirar,
+	 * inclusive quem acabou de gravar e deveria ler do primário. Por isso, enquanto
+	 * a transação estiver numa réplica, a sessão do Hibernate só lê do cache. As
+	 * gravações continuam invalidando o cache normalmente.
+	 */
+	private void naoGuardarNoCacheDeSegundoNivel() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return;
+		}
+		for (Object recurso : TransactionSynchronizationManager.getResourceMap().values()) {
+			if (!(recurso instanceof EntityManagerHolder)) {
+				continue;
+			}
+			Session sessao = ((EntityManagerHolder) recurso).getEntityManager().unwrap(Session.class);
+			CacheMode anterior = sessao.getCacheMode();
+			if (!anterior.isPutEnabled()) {
+				continue;
+			}
+
+			// Com o open-in-view, a mesma sessão segue para as próximas transações da
+			// requisição, que podem ir para o primário.
+			sessao.setCacheMode(CacheMode.GET);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					if (sessao.isOpen()) {
+						sessao.setCacheMode(anterior);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Quando a transação de escrita for confirmada, começa a janela em que as
+	 * leituras do usuário ficam no primário.
+	 */
+	private void registrarEscrita() {
+		String usuario = usuarioAtual();
+		if (usuario == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				escritasRecentes.put(usuario, Boolean.TRUE);
+			}
+		});
+	}
+
+	private String usuarioAtual() {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		return authentication != null ? authentication.getName() : null;
+	}
+
+	private Replica selecionarReplica() {
+		List<Replica> disponiveis = new ArrayList<>(replicas.size());
+		for (Replica replica : replicas) {
+			if (replica.disponivel) {
+				disponiveis.add(replica);
+			}
+		}
+		if (disponiveis.isEmpty()) {
+			return null;
+		}
+
+		switch (selecaoReplica) {
+		case ALEATORIA:
+			return disponiveis.get(ThreadLocalRandom.current().nextInt(disponiveis.size()));
+		case MENOR_ATRASO:
+			return Collections.min(disponiveis, Comparator.comparingDouble(r -> r.atrasoEmSegundos));
+		default:
+			return disponiveis.get(Math.floorMod(proximaReplica.getAndIncrement(), disponiveis.size()));
+		}
+	}
+
+	/**
+	 * Confere o atraso de cada réplica. Uma réplica que não responde fica
+	 * indisponível até a próxima verificação dar certo.
+	 */
+	void verificarAtraso() {
+		for (Replica replica : replicas) {
+			boolean estavaDisponivel = replica.disponivel;
+			try (Connection con = replica.dataSource.getConnection();
+					Statement stmt = con.createStatement();
+					ResultSet rs = stmt.executeQuery(consultaAtraso)) {
+				rs.next();
+				replica.atrasoEmSegundos = rs.getDouble(1);
+				replica.disponivel = replica.atrasoEmSegundos <= atrasoMaximoEmSegundos;
+			} catch (SQLException e) {
+				replica.atrasoEmSegundos = Double.NaN;
+				replica.disponivel = false;
+				if (estavaDisponivel) {
+					logger.warn("Não foi possível conferir o atraso da {}", replica.nome, e);
+				}
+			}
+
+			if (estavaDisponivel != replica.disponivel) {
+				logger.info("{} {} (atraso de {} segundos)", replica.nome,
+						replica.disponivel ? "voltou a receber leituras" : "deixou de receber leituras",
+						replica.atrasoEmSegundos);
+			}
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		for (Replica replica : replicas) {
+			Gauge.builder("algamoney.banco.replica.atraso", replica, r -> r.atrasoEmSegundos).tag("replica", replica.nome)
+					.baseUnit("seconds").description("Atraso da réplica na última verificação").register(registry);
+			Gauge.builder("algamoney.banco.replica.disponivel", replica, r -> r.disponivel ? 1 : 0)
+					.tag("replica", replica.nome).description("Se a réplica está recebendo leituras")
+					.register(registry);
+		}
+	}
+
+	/**
+	 * Os pools não são beans, então são fechados aqui.
+	 */
+	@Override
+	public void destroy() throws IOException {
+		if (verificadorAtraso != null) {
+			verificadorAtraso.shutdownNow();
+		}
+		fechar(primario);
+		for (Replica replica : replicas) {
+			fechar(replica.dataSource);
+		}
+	}
+
+	private void fechar(DataSource dataSource) throws IOException {
+		if (dataSource instanceof Closeable) {
+			((Closeable) dataSource).close();
+		}
+	}
+
+	private static class Replica {
+
+		private final String nome;
+		private final DataSource dataSource;
+
+		private volatile boolean disponivel;
+		private volatile double atrasoEmSegundos = Double.NaN;
+
+		Replica(String nome, DataSource dataSource) {
+			this.nome = nome;
+			this.dataSource = dataSource;
+		}
+
+	}
+
+}
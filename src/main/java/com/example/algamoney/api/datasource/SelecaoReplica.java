@@ -0,0 +1,24 @@
+package com.example.algamoney.api.datasource;
+
+/**
+ * Como escolher a réplica de cada transação somente leitura, entre as que estão
+ * dentro do atraso tolerado.
+ */
+public enum SelecaoReplica {
+
+	/**
+	 * Uma de cada vez, em ordem.
+	 */
+	RODIZIO,
+
+	/**
+	 * Sorteia uma réplica a cada transação.
+	 */
+	ALEATORIA,
+
+	/**
+	 * A réplica com o menor atraso na última verificação.
+	 */
+	MENOR_ATRASO
+
+}
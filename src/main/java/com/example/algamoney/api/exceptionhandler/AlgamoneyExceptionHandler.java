@@ -23,6 +23,8 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+import com.example.algamoney.api.repository.paginacao.CursorInvalidoException;
+
 /**
  * ResponseEntityExceptionHandler captura exceções de resposta de entidades.
  * Adiciono o @ControllerAdvice, que faz com que a classe escute toda a
@@ -104,6 +106,19 @@ public class AlgamoneyExceptionHandler extends ResponseEntityExceptionHandler {
 		return handleExceptionInternal(ex, erros, new HttpHeaders(), HttpStatus.BAD_REQUEST, request);
 	}
 
+	/**
+	 * O cursor é gerado pela própria api, então se não conseguimos decodificar, foi
+	 * o cliente que mandou um valor alterado.
+	 */
+	@ExceptionHandler({ CursorInvalidoException.class })
+	public ResponseEntity<Object> handleCursorInvalidoException(CursorInvalidoException ex, WebRequest request) {
+		String mensagemUsuario = messageSource.getMessage("cursor.invalido", null, LocaleContextHolder.getLocale());
+		String mensagemDesenvolvedor = ex.toString();
+		List<Erro> erros = Arrays.asList(new Erro(mensagemUsuario, mensagemDesenvolvedor));
+
+		return handleExceptionInternal(ex, erros, new HttpHeaders(), HttpStatus.BAD_REQUEST, request);
+	}
+
 	/**
 	 * Trata para os casos de campos inválidos, pois a validação pode ter falhado em
 	 * vários campos.
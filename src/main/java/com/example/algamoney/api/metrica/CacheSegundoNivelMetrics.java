@@ -0,0 +1,71 @@
+package com.example.algamoney.api.metrica;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Acertos, falhas e taxa de acerto de cada região do cache de segundo nível, com
+ * a tag regiao (ex.: pessoa). As métricas hibernate.second.level.cache.* que o
+ * Spring Boot publica somam todas as regiões juntas.
+ *
+ * Os números vêm das estatísticas do Hibernate, então dependem do
+ * hibernate.generate_statistics=true.
+ */
+@Component
+public class CacheSegundoNivelMetrics implements MeterBinder {
+
+	private final SessionFactory sessionFactory;
+
+	public CacheSegundoNivelMetrics(EntityManagerFactory entityManagerFactory) {
+		this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Statistics estatisticas = sessionFactory.getStatistics();
+
+		// As regiões das entidades e coleções. A de timestamps só guarda quando cada
+		// tabela mudou, e as buscas nela já estão em hibernate.cache.update.timestamps.
+		for (String nome : estatisticas.getSecondLevelCacheRegionNames()) {
+			if (!RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME.equals(nome)) {
+				registrar(registry, nome, estatisticas.getDomainDataRegionStatistics(nome));
+			}
+		}
+
+		if (sessionFactory.getSessionFactoryOptions().isQueryCacheEnabled()) {
+			String nome = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+			registrar(registry, nome, estatisticas.getCacheRegionStatistics(nome));
+		}
+	}
+
+	private void registrar(MeterRegistry registry, String nome, CacheRegionStatistics regiao) {
+		if (regiao == null) {
+			return;
+		}
+
+		FunctionCounter.builder("algamoney.cache.segundo.nivel.requisicoes", regiao, r -> r.getHitCount())
+				.tag("regiao", nome).tag("resultado", "acerto").register(registry);
+		FunctionCounter.builder("algamoney.cache.segundo.nivel.requisicoes", regiao, r -> r.getMissCount())
+				.tag("regiao", nome).tag("resultado", "falha").register(registry);
+		Gauge.builder("algamoney.cache.segundo.nivel.taxa.acerto", regiao, this::taxaAcerto).tag("regiao", nome)
+				.description("Acertos sobre o total de buscas na região, desde que a aplicação subiu")
+				.register(registry);
+	}
+
+	private double taxaAcerto(CacheRegionStatistics regiao) {
+		long acertos = regiao.getHitCount();
+		long total = acertos + regiao.getMissCount();
+		return total == 0 ? 0 : (double) acertos / total;
+	}
+
+}
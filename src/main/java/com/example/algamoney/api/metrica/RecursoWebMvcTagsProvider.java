@@ -0,0 +1,45 @@
+package com.example.algamoney.api.metrica;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.actuate.metrics.web.servlet.DefaultWebMvcTagsProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Acrescenta nas métricas http.server.requests a tag recurso, com o nome da
+ * classe que atendeu a requisição (LancamentoResource, PessoaResource...). Assim
+ * dá para somar a latência de todos os endpoints de um recurso, além de olhar
+ * endpoint por endpoint pela tag uri.
+ *
+ * Por ser um WebMvcTagsProvider, substitui o padrão do Spring Boot. Por isso
+ * estende o DefaultWebMvcTagsProvider, para manter as tags que ele já gera.
+ */
+@Component
+public class RecursoWebMvcTagsProvider extends DefaultWebMvcTagsProvider {
+
+	private static final Tag RECURSO_NENHUM = Tag.of("recurso", "none");
+
+	@Override
+	public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Throwable exception) {
+		return Tags.of(super.getTags(request, response, handler, exception)).and(recurso(handler));
+	}
+
+	@Override
+	public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+		return Tags.of(super.getLongRequestTags(request, handler)).and(recurso(handler));
+	}
+
+	private Tag recurso(Object handler) {
+		if (handler instanceof HandlerMethod) {
+			return Tag.of("recurso", ((HandlerMethod) handler).getBeanType().getSimpleName());
+		}
+		return RECURSO_NENHUM;
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.example.algamoney.api.metrica;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Mede o tempo de cada método dos repositórios, na métrica algamoney.repositorio
+ * com as tags repositorio (ex.: LancamentoRepository), metodo (ex.: resumir) e
+ * excecao. Pega tanto os métodos que escrevemos quanto os herdados do
+ * JpaRepository, como o findById.
+ *
+ * O MeterRegistry é @Lazy porque os aspectos são criados cedo, junto com a
+ * infraestrutura de AOP, e ele arrastaria a criação das métricas para antes da
+ * hora.
+ */
+@Aspect
+@Component
+public class RepositorioMetricsAspect {
+
+	private final MeterRegistry meterRegistry;
+
+	/**
+	 * O nome do repositório de cada proxy. Buscar as interfaces do proxy a cada
+	 * chamada seria desperdício.
+	 */
+	private final Map<Class<?>, String> nomesRepositorios = new ConcurrentHashMap<>();
+
+	public RepositorioMetricsAspect(@Lazy MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Around("this(org.springframework.data.repository.Repository)")
+	public Object medir(ProceedingJoinPoint joinPoint) throws Throwable {
+		Timer.Sample amostra = Timer.start(meterRegistry);
+		String excecao = "none";
+		try {
+			return joinPoint.proceed();
+		} catch (Throwable e) {
+			excecao = e.getClass().getSimpleName();
+			throw e;
+		} finally {
+			amostra.stop(Timer.builder("algamoney.repositorio").description("Tempo dos métodos dos repositórios")
+					.tag("repositorio", nomeRepositorio(joinPoint.getThis()))
+					.tag("metodo", joinPoint.getSignature().getName()).tag("excecao", excecao)
+					.register(meterRegistry));
+		}
+	}
+
+	/**
+	 * O Spring Data coloca a interface do repositório como a primeira do proxy.
+	 */
+	private String nomeRepositorio(Object repositorio) {
+		return nomesRepositorios.computeIfAbsent(repositorio.getClass(),
+				c -> AopProxyUtils.proxiedUserInterfaces(repositorio)[0].getSimpleName());
+	}
+
+}
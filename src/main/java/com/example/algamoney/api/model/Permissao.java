@@ -1,10 +1,22 @@
 package com.example.algamoney.api.model;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * As permissões só mudam pelas migrações do Flyway, nunca pela aplicação, por
+ * isso a entidade é imutável e o cache dela pode ser READ_ONLY.
+ */
 @Entity
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "permissao")
 @Table(name = "permissao")
 public class Permissao {
 
@@ -1,9 +1,26 @@
 package com.example.algamoney.api.repository;
 
+import java.util.Collection;
+import java.util.List;
+
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.example.algamoney.api.model.Categoria;
 
 public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
 
+	/**
+	 * Dos códigos informados, retorna só os das categorias que existem. Como são
+	 * poucas categorias, cada lote da importação pergunta pelos mesmos códigos e a
+	 * resposta vem do cache de consultas.
+	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+	@Query("select c.codigo from Categoria c where c.codigo in :codigos")
+	public List<Long> buscarCodigosExistentes(@Param("codigos") Collection<Long> codigos);
+
 }
@@ -1,10 +1,23 @@
 package com.example.algamoney.api.repository;
 
+import java.util.Collection;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.algamoney.api.model.Lancamento;
 import com.example.algamoney.api.repository.lancamento.LancamentoRepositoryQuery;
 
 public interface LancamentoRepository extends JpaRepository<Lancamento, Long>, LancamentoRepositoryQuery {
 
+	/**
+	 * Um delete só para todos os códigos, sem carregar os lançamentos antes como o
+	 * deleteById faz. Precisa de uma transação aberta por quem chama.
+	 */
+	@Modifying
+	@Query("delete from Lancamento l where l.codigo in :codigos")
+	public int excluirPorCodigos(@Param("codigos") Collection<Long> codigos);
+
 }
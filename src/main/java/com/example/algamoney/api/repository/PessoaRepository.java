@@ -1,9 +1,43 @@
 package com.example.algamoney.api.repository;
 
+import java.util.Collection;
+import java.util.List;
+
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.example.algamoney.api.model.Pessoa;
+import com.example.algamoney.api.repository.pessoa.PessoaRepositoryQuery;
+
+public interface PessoaRepository extends JpaRepository<Pessoa, Long>, PessoaRepositoryQuery {
+
+	/**
+	 * Consulta derivada que só verifica se existe a linha, sem carregar a pessoa
+	 * com o endereço.
+	 */
+	public boolean existsByCodigoAndAtivoTrue(Long codigo);
+
+	/**
+	 * Dos códigos informados, retorna só os das pessoas que existem e estão
+	 * ativas, em uma consulta só. Os lotes da importação costumam repetir as
+	 * mesmas pessoas, então o resultado fica no cache de consultas, e qualquer
+	 * alteração de pessoa feita pelo PessoaService descarta ele.
+	 */
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+	@Query("select p.codigo from Pessoa p where p.codigo in :codigos and p.ativo = true")
+	public List<Long> buscarCodigosAtivos(@Param("codigos") Collection<Long> codigos);
 
-public interface PessoaRepository extends JpaRepository<Pessoa, Long> {
+	/**
+	 * Altera só a coluna ativo, sem buscar a pessoa antes. Precisa de uma transação
+	 * aberta por quem chama.
+	 */
+	@Modifying
+	@Query("update Pessoa p set p.ativo = :ativo where p.codigo = :codigo")
+	public int atualizarAtivo(@Param("codigo") Long codigo, @Param("ativo") Boolean ativo);
 
-}
\ No newline at end of file
+}
@@ -1,19 +1,50 @@
 package com.example.algamoney.api.repository.filter;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 
 import org.springframework.format.annotation.DateTimeFormat;
 
+import com.example.algamoney.api.model.TipoLancamento;
+
 public class LancamentoFilter {
 
 	private String descricao;
 
+	/**
+	 * Quando verdadeiro, a descrição é pesquisada por palavras (full-text), ao
+	 * invés de por trecho.
+	 */
+	private boolean buscaTextual;
+
+	/**
+	 * Ordena pelos lançamentos mais relevantes para a busca textual. Só tem efeito
+	 * junto com a buscaTextual.
+	 */
+	private boolean ordenarPorRelevancia;
+
 	@DateTimeFormat(pattern = "yyyy-MM-dd")
 	private LocalDate dataVencimentoDe;
 
 	@DateTimeFormat(pattern = "yyyy-MM-dd")
 	private LocalDate dataVencimentoAte;
 
+	private Long codigoPessoa;
+
+	private Long codigoCategoria;
+
+	private TipoLancamento tipo;
+
+	private BigDecimal valorDe;
+
+	private BigDecimal valorAte;
+
+	/**
+	 * Verdadeiro traz só os lançamentos com data de pagamento, falso só os sem.
+	 * Vazio traz os dois.
+	 */
+	private Boolean pago;
+
 	public String getDescricao() {
 		return descricao;
 	}
@@ -22,6 +53,22 @@ public class LancamentoFilter {
 		this.descricao = descricao;
 	}
 
+	public boolean isBuscaTextual() {
+		return buscaTextual;
+	}
+
+	public void setBuscaTextual(boolean buscaTextual) {
+		this.buscaTextual = buscaTextual;
+	}
+
+	public boolean isOrdenarPorRelevancia() {
+		return ordenarPorRelevancia;
+	}
+
+	public void setOrdenarPorRelevancia(boolean ordenarPorRelevancia) {
+		this.ordenarPorRelevancia = ordenarPorRelevancia;
+	}
+
 	public LocalDate getDataVencimentoDe() {
 		return dataVencimentoDe;
 	}
@@ -38,4 +85,132 @@ public class LancamentoFilter {
 		this.dataVencimentoAte = dataVencimentoAte;
 	}
 
+	public Long getCodigoPessoa() {
+		return codigoPessoa;
+	}
+
+	public void setCodigoPessoa(Long codigoPessoa) {
+		this.codigoPessoa = codigoPessoa;
+	}
+
+	public Long getCodigoCategoria() {
+		return codigoCategoria;
+	}
+
+	public void setCodigoCategoria(Long codigoCategoria) {
+		this.codigoCategoria = codigoCategoria;
+	}
+
+	public TipoLancamento getTipo() {
+		return tipo;
+	}
+
+	public void setTipo(TipoLancamento tipo) {
+		this.tipo = tipo;
+	}
+
+	public BigDecimal getValorDe() {
+		return valorDe;
+	}
+
+	public void setValorDe(BigDecimal valorDe) {
+		this.valorDe = valorDe;
+	}
+
+	public BigDecimal getValorAte() {
+		return valorAte;
+	}
+
+	public void setValorAte(BigDecimal valorAte) {
+		this.valorAte = valorAte;
+	}
+
+	public Boolean getPago() {
+		return pago;
+	}
+
+	public void setPago(Boolean pago) {
+		this.pago = pago;
+	}
+
+	/**
+	 * O filtro também é usado como chave do cache de totais, por isso o equals e o
+	 * hashCode consideram todos os campos.
+	 */
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((dataVencimentoAte == null) ? 0 : dataVencimentoAte.hashCode());
+		result = prime * result + ((dataVencimentoDe == null) ? 0 : dataVencimentoDe.hashCode());
+		result = prime * result + ((descricao == null) ? 0 : descricao.hashCode());
+		result = prime * result + (buscaTextual ? 1231 : 1237);
+		result = prime * result + (ordenarPorRelevancia ? 1231 : 1237);
+		result = prime * result + ((codigoPessoa == null) ? 0 : codigoPessoa.hashCode());
+		result = prime * result + ((codigoCategoria == null) ? 0 : codigoCategoria.hashCode());
+		result = prime * result + ((tipo == null) ? 0 : tipo.hashCode());
+		result = prime * result + ((valorDe == null) ? 0 : valorDe.hashCode());
+		result = prime * result + ((valorAte == null) ? 0 : valorAte.hashCode());
+		result = prime * result + ((pago == null) ? 0 : pago.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		LancamentoFilter other = (LancamentoFilter) obj;
+		if (dataVencimentoAte == null) {
+			if (other.dataVencimentoAte != null)
+				return false;
+		} else if (!dataVencimentoAte.equals(other.dataVencimentoAte))
+			return false;
+		if (dataVencimentoDe == null) {
+			if (other.dataVencimentoDe != null)
+				return false;
+		} else if (!dataVencimentoDe.equals(other.dataVencimentoDe))
+			return false;
+		if (descricao == null) {
+			if (other.descricao != null)
+				return false;
+		} else if (!descricao.equals(other.descricao))
+			return false;
+		if (buscaTextual != other.buscaTextual)
+			return false;
+		if (ordenarPorRelevancia != other.ordenarPorRelevancia)
+			return false;
+		if (codigoPessoa == null) {
+			if (other.codigoPessoa != null)
+				return false;
+		} else if (!codigoPessoa.equals(other.codigoPessoa))
+			return false;
+		if (codigoCategoria == null) {
+			if (other.codigoCategoria != null)
+				return false;
+		} else if (!codigoCategoria.equals(other.codigoCategoria))
+			return false;
+		if (tipo != other.tipo)
+			return false;
+		if (valorDe == null) {
+			if (other.valorDe != null)
+				return false;
+		} else if (!valorDe.equals(other.valorDe))
+			return false;
+		if (valorAte == null) {
+			if (other.valorAte != null)
+				return false;
+		} else if (!valorAte.equals(other.valorAte))
+			return false;
+		if (pago == null) {
+			if (other.pago != null)
+				return false;
+		} else if (!pago.equals(other.pago))
+			return false;
+		return true;
+	}
+
 }
@@ -1,75 +1,112 @@
 package com.example.algamoney.api.repository.lancamento;
 
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
 import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CompoundSelection;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.util.StringUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.algamoney.api.config.FuncoesSqlMetadataBuilderContributor;
+import com.example.algamoney.api.model.Categoria;
 import com.example.algamoney.api.model.Categoria_;
+import com.example.algamoney.api.model.Endereco;
+import com.example.algamoney.api.model.Endereco_;
 import com.example.algamoney.api.model.Lancamento;
 import com.example.algamoney.api.model.Lancamento_;
+import com.example.algamoney.api.model.Pessoa;
 import com.example.algamoney.api.model.Pessoa_;
+import com.example.algamoney.api.model.TipoLancamento;
 import com.example.algamoney.api.repository.filter.LancamentoFilter;
+import com.example.algamoney.api.repository.paginacao.CursorLancamento;
+import com.example.algamoney.api.repository.paginacao.ModoTotal;
+import com.example.algamoney.api.repository.paginacao.PaginaPorCursor;
+import com.example.algamoney.api.repository.projection.LancamentoDetalhe;
+import com.example.algamoney.api.repository.projection.LancamentoEstatisticaCategoria;
+import com.example.algamoney.api.repository.projection.LancamentoEstatisticaDia;
+import com.example.algamoney.api.repository.projection.LancamentoEstatisticaMes;
+import com.example.algamoney.api.repository.projection.LancamentoEstatisticaPessoa;
 import com.example.algamoney.api.repository.projection.ResumoLancamento;
-
+import com.example.algamoney.api.repository.projection.SaldoMensal;
+
+/**
+ * Só faz consultas, então roda em transações somente leitura. Com réplicas
+ * configuradas, elas vão para uma réplica. A exceção é o
+ * reconstruirSaldoMensal, que tem a própria transação.
+ */
+@Transactional(readOnly = true)
 public class LancamentoRepositoryImpl implements LancamentoRepositoryQuery {
 
+	private static final int TAMANHO_LOTE_EXPORTACAO = 1_000;
+
 	@PersistenceContext
 	private EntityManager manager;
 
-	@Override
-	public Page<Lancamento> filtrar(LancamentoFilter lancamentoFilter, Pageable pageable) {
-		// Criteria do JPA, pois a do Hibernate está depreciada.
-		// Primeira coisa, pegar o builder de Criteria.
-		CriteriaBuilder builder = manager.getCriteriaBuilder();
-		// Depois crio uma CriteriaQuery.
-		CriteriaQuery<Lancamento> criteria = builder.createQuery(Lancamento.class);
-
-		// ##### Inicio Filtros #####
-
-		// Adicionar os filtros.
-		// Primeiro crio um Root.
-		Root<Lancamento> root = criteria.from(Lancamento.class);
-
-		// criar as restrições
-		Predicate[] predicates = criarRestricoes(lancamentoFilter, builder, root);
-		criteria.where(predicates);
-
-		// ##### Fim Filtros #####
+	@Autowired
+	private TotaisLancamentoEmCache totaisEmCache;
 
-		// Crio a Query.
-		TypedQuery<Lancamento> query = manager.createQuery(criteria);
-
-		// Adiciona infos de paginação.
+	/**
+	 * Vou retornar um resumo do lancamento usando o construtor.
+	 */
+	@Override
+	public Page<ResumoLancamento> resumir(LancamentoFilter lancamentoFilter, Pageable pageable) {
+		TypedQuery<ResumoLancamento> query = criarConsultaResumir(lancamentoFilter);
 		adicionarRestricoesDePaginacao(query, pageable);
 
 		return new PageImpl<>(query.getResultList(), pageable, total(lancamentoFilter));
 	}
 
-	/**
-	 * Vou retornar um resumo do lancamento usando o construtor.
-	 */
 	@Override
-	public Page<ResumoLancamento> resumir(LancamentoFilter lancamentoFilter, Pageable pageable) {
+	public Slice<ResumoLancamento> resumir(LancamentoFilter lancamentoFilter, Pageable pageable,
+			ModoTotal modoTotal) {
+		return paginar(criarConsultaResumir(lancamentoFilter), lancamentoFilter, pageable, modoTotal);
+	}
+
+	private TypedQuery<ResumoLancamento> criarConsultaResumir(LancamentoFilter lancamentoFilter) {
 		CriteriaBuilder builder = manager.getCriteriaBuilder();
 		CriteriaQuery<ResumoLancamento> criteria = builder.createQuery(ResumoLancamento.class);
 		Root<Lancamento> root = criteria.from(Lancamento.class);
 
+		criteria.select(resumo(builder, root));
+
+		Predicate[] predicates = criarRestricoes(lancamentoFilter, builder, root);
+		criteria.where(predicates);
+		ordenarPorRelevancia(lancamentoFilter, criteria, builder, root);
+
+		return manager.createQuery(criteria);
+	}
+
+	private CompoundSelection<ResumoLancamento> resumo(CriteriaBuilder builder, Root<Lancamento> root) {
 		// Faço a projecao, passando a classe de resumo e os campos dela. Como usa o
 		// construtor, os campos informados precisam estar na mesma ordem que o
 		// construtor.
-		criteria.select(builder.construct(ResumoLancamento.class, root.get(Lancamento_.codigo),
+		return builder.construct(ResumoLancamento.class, root.get(Lancamento_.codigo),
 				root.get(Lancamento_.descricao), root.get(Lancamento_.dataVencimento),
 				root.get(Lancamento_.dataPagamento), root.get(Lancamento_.valor), root.get(Lancamento_.tipo),
 				// Como no resumo a categoria é uma String que passamos somente o nome, fazemos
@@ -77,47 +114,311 @@ public class LancamentoRepositoryImpl implements LancamentoRepositoryQuery {
 				root.get(Lancamento_.categoria).get(Categoria_.nome),
 				// Como no resumo a pessoa é uma String que passamos somente o nome, fazemos um
 				// get de pessoa e depois do nome.
-				root.get(Lancamento_.pessoa).get(Pessoa_.nome)));
+				root.get(Lancamento_.pessoa).get(Pessoa_.nome));
+	}
 
-		Predicate[] predicates = criarRestricoes(lancamentoFilter, builder, root);
-		criteria.where(predicates);
+	@Override
+	public Slice<LancamentoDetalhe> detalhar(LancamentoFilter lancamentoFilter, Pageable pageable,
+			ModoTotal modoTotal) {
+		CriteriaBuilder builder = manager.getCriteriaBuilder();
+		CriteriaQuery<LancamentoDetalhe> criteria = builder.createQuery(LancamentoDetalhe.class);
+		Root<Lancamento> root = criteria.from(Lancamento.class);
+
+		criteria.select(detalhe(builder, root));
+
+		criteria.where(criarRestricoes(lancamentoFilter, builder, root));
+		ordenarPorRelevancia(lancamentoFilter, criteria, builder, root);
+
+		return paginar(manager.createQuery(criteria), lancamentoFilter, pageable, modoTotal);
+	}
+
+	@Override
+	public PaginaPorCursor<LancamentoDetalhe> detalhar(LancamentoFilter lancamentoFilter, CursorLancamento cursor,
+			int tamanho) {
+		CriteriaBuilder builder = manager.getCriteriaBuilder();
+		CriteriaQuery<LancamentoDetalhe> criteria = builder.createQuery(LancamentoDetalhe.class);
+		Root<Lancamento> root = criteria.from(Lancamento.class);
+
+		criteria.select(detalhe(builder, root));
+
+		criteria.where(criarRestricoes(lancamentoFilter, cursor, builder, root));
+		ordenarPelaChaveDoCursor(criteria, builder, root);
+
+		return paginarPorCursor(manager.createQuery(criteria), tamanho,
+				detalhe -> new CursorLancamento(detalhe.getDataVencimento(), detalhe.getCodigo()));
+	}
+
+	/**
+	 * As colunas do lançamento, da categoria e da pessoa, sem montar as entidades.
+	 * Os campos precisam estar na ordem do construtor do LancamentoDetalhe. Os
+	 * joins são inner porque a pessoa e a categoria são obrigatórias, então nenhum
+	 * lançamento fica de fora.
+	 */
+	private CompoundSelection<LancamentoDetalhe> detalhe(CriteriaBuilder builder, Root<Lancamento> root) {
+		Join<Lancamento, Categoria> categoria = root.join(Lancamento_.categoria);
+		Join<Lancamento, Pessoa> pessoa = root.join(Lancamento_.pessoa);
+		Path<Endereco> endereco = pessoa.get(Pessoa_.endereco);
+
+		return builder.construct(LancamentoDetalhe.class, root.get(Lancamento_.codigo),
+				root.get(Lancamento_.descricao), root.get(Lancamento_.dataVencimento),
+				root.get(Lancamento_.dataPagamento), root.get(Lancamento_.valor), root.get(Lancamento_.observacao),
+				root.get(Lancamento_.tipo), categoria.get(Categoria_.codigo), categoria.get(Categoria_.nome),
+				pessoa.get(Pessoa_.codigo), pessoa.get(Pessoa_.nome), pessoa.get(Pessoa_.ativo),
+				endereco.get(Endereco_.logradouro), endereco.get(Endereco_.numero),
+				endereco.get(Endereco_.complemento), endereco.get(Endereco_.bairro), endereco.get(Endereco_.cep),
+				endereco.get(Endereco_.cidade), endereco.get(Endereco_.estado));
+	}
+
+	@Override
+	public PaginaPorCursor<ResumoLancamento> resumir(LancamentoFilter lancamentoFilter, CursorLancamento cursor,
+			int tamanho) {
+		CriteriaBuilder builder = manager.getCriteriaBuilder();
+		CriteriaQuery<ResumoLancamento> criteria = builder.createQuery(ResumoLancamento.class);
+		Root<Lancamento> root = criteria.from(Lancamento.class);
+
+		criteria.select(resumo(builder, root));
+
+		criteria.where(criarRestricoes(lancamentoFilter, cursor, builder, root));
+		ordenarPelaChaveDoCursor(criteria, builder, root);
+
+		return paginarPorCursor(manager.createQuery(criteria), tamanho,
+				resumo -> new CursorLancamento(resumo.getDataVencimento(), resumo.getCodigo()));
+	}
+
+	/**
+	 * Percorre todos os lançamentos do filtro sem paginar. O Stream é lido aos
+	 * poucos de um cursor no banco, de TAMANHO_LOTE_EXPORTACAO em
+	 * TAMANHO_LOTE_EXPORTACAO linhas, então a memória não cresce com o tamanho do
+	 * resultado. Para o driver do PostgreSQL usar o cursor, precisa ser chamado
+	 * dentro de uma transação, e quem chamar precisa fechar o Stream.
+	 */
+	@Override
+	public Stream<ResumoLancamento> exportar(LancamentoFilter lancamentoFilter) {
+		CriteriaBuilder builder = manager.getCriteriaBuilder();
+		CriteriaQuery<ResumoLancamento> criteria = builder.createQuery(ResumoLancamento.class);
+		Root<Lancamento> root = criteria.from(Lancamento.class);
+
+		criteria.select(resumo(builder, root));
+
+		criteria.where(criarRestricoes(lancamentoFilter, builder, root));
+		ordenarPelaChaveDoCursor(criteria, builder, root);
 
 		TypedQuery<ResumoLancamento> query = manager.createQuery(criteria);
-		adicionarRestricoesDePaginacao(query, pageable);
+		query.setHint(QueryHints.HINT_FETCH_SIZE, TAMANHO_LOTE_EXPORTACAO);
+		return query.getResultStream();
+	}
 
-		return new PageImpl<>(query.getResultList(), pageable, total(lancamentoFilter));
+	/*
+	 * As estatísticas são somadas com GROUP BY no próprio banco, que devolve uma
+	 * linha por grupo e tipo (RECEITA ou DESPESA), em vez dos lançamentos.
+	 */
+
+	@Override
+	public List<LancamentoEstatisticaCategoria> porCategoria(LancamentoFilter lancamentoFilter) {
+		CriteriaBuilder builder = manager.getCriteriaBuilder();
+		CriteriaQuery<LancamentoEstatisticaCategoria> criteria = builder
+				.createQuery(LancamentoEstatisticaCategoria.class);
+		Root<Lancamento> root = criteria.from(Lancamento.class);
+		Join<Lancamento, Categoria> categoria = root.join(Lancamento_.categoria);
+
+		criteria.select(builder.construct(LancamentoEstatisticaCategoria.class, categoria.get(Categoria_.codigo),
+				categoria.get(Categoria_.nome), root.get(Lancamento_.tipo), builder.sum(root.get(Lancamento_.valor))));
+
+		criteria.where(criarRestricoes(lancamentoFilter, builder, root));
+		criteria.groupBy(categoria.get(Categoria_.codigo), categoria.get(Categoria_.nome), root.get(Lancamento_.tipo));
+		criteria.orderBy(builder.asc(categoria.get(Categoria_.nome)), builder.asc(root.get(Lancamento_.tipo)));
+
+		return manager.createQuery(criteria).getResultList();
 	}
 
-	private Predicate[] criarRestricoes(LancamentoFilter lancamentoFilter, CriteriaBuilder builder,
-			Root<Lancamento> root) {
+	@Override
+	public List<LancamentoEstatisticaPessoa> porPessoa(LancamentoFilter lancamentoFilter) {
+		CriteriaBuilder builder = manager.getCriteriaBuilder();
+		CriteriaQuery<LancamentoEstatisticaPessoa> criteria = builder.createQuery(LancamentoEstatisticaPessoa.class);
+		Root<Lancamento> root = criteria.from(Lancamento.class);
+		Join<Lancamento, Pessoa> pessoa = root.join(Lancamento_.pessoa);
+
+		criteria.select(builder.construct(LancamentoEstatisticaPessoa.class, pessoa.get(Pessoa_.codigo),
+				pessoa.get(Pessoa_.nome), root.get(Lancamento_.tipo), builder.sum(root.get(Lancamento_.valor))));
+
+		criteria.where(criarRestricoes(lancamentoFilter, builder, root));
+		criteria.groupBy(pessoa.get(Pessoa_.codigo), pessoa.get(Pessoa_.nome), root.get(Lancamento_.tipo));
+		criteria.orderBy(builder.asc(pessoa.get(Pessoa_.nome)), builder.asc(root.get(Lancamento_.tipo)));
+
+		return manager.createQuery(criteria).getResultList();
+	}
+
+	@Override
+	public List<LancamentoEstatisticaDia> porDia(LancamentoFilter lancamentoFilter) {
+		CriteriaBuilder builder = manager.getCriteriaBuilder();
+		CriteriaQuery<LancamentoEstatisticaDia> criteria = builder.createQuery(LancamentoEstatisticaDia.class);
+		Root<Lancamento> root = criteria.from(Lancamento.class);
+
+		criteria.select(builder.construct(LancamentoEstatisticaDia.class, root.get(Lancamento_.dataVencimento),
+				root.get(Lancamento_.tipo), builder.sum(root.get(Lancamento_.valor))));
+
+		criteria.where(criarRestricoes(lancamentoFilter, builder, root));
+		criteria.groupBy(root.get(Lancamento_.dataVencimento), root.get(Lancamento_.tipo));
+		criteria.orderBy(builder.asc(root.get(Lancamento_.dataVencimento)), builder.asc(root.get(Lancamento_.tipo)));
+
+		return manager.createQuery(criteria).getResultList();
+	}
+
+	@Override
+	public List<LancamentoEstatisticaMes> porMes(LancamentoFilter lancamentoFilter) {
+		CriteriaBuilder builder = manager.getCriteriaBuilder();
+		CriteriaQuery<LancamentoEstatisticaMes> criteria = builder.createQuery(LancamentoEstatisticaMes.class);
+		Root<Lancamento> root = criteria.from(Lancamento.class);
+
+		// year e month são funções do Hibernate, que no PostgreSQL viram extract.
+		Expression<Integer> ano = builder.function("year", Integer.class, root.get(Lancamento_.dataVencimento));
+		Expression<Integer> mes = builder.function("month", Integer.class, root.get(Lancamento_.dataVencimento));
+
+		criteria.select(builder.construct(LancamentoEstatisticaMes.class, ano, mes, root.get(Lancamento_.tipo),
+				builder.sum(root.get(Lancamento_.valor))));
+
+		criteria.where(criarRestricoes(lancamentoFilter, builder, root));
+		criteria.groupBy(ano, mes, root.get(Lancamento_.tipo));
+		criteria.orderBy(builder.asc(ano), builder.asc(mes), builder.asc(root.get(Lancamento_.tipo)));
 
-		List<Predicate> predicates = new ArrayList<>();
+		return manager.createQuery(criteria).getResultList();
+	}
 
-		if (!StringUtils.isEmpty(lancamentoFilter.getDescricao())) {
-			// where lower(descricao) like '%descricao%'
-			// Para não precisar digitar uma string com o nome do atributo e correr o risco
-			// de uma mudança na classe não ser feita ness string, é usado o
-			// hibernate-jpamodelgen. Habilitamos ele na IDE e importamos o jar e ai ele
-			// cria as classes com o _ no final, assim importamos e usamos essa classe ao
-			// invés de digitar a string. Assim, qualquer alteração no model vai ser
-			// refletida no repository.
-			predicates.add(builder.like(builder.lower(root.get(Lancamento_.DESCRICAO)),
-					"%" + lancamentoFilter.getDescricao().toLowerCase() + "%"));
+	/**
+	 * Lê da tabela saldo_mensal_pessoa, que os triggers de lancamento mantêm
+	 * atualizada, então o custo depende só da quantidade de meses, e não de
+	 * lançamentos. As receitas e despesas de cada mês ficam em linhas separadas, e
+	 * são juntadas aqui.
+	 */
+	@Override
+	public List<SaldoMensal> saldoMensal(Long codigoPessoa, YearMonth de, YearMonth ate) {
+		StringBuilder sql = new StringBuilder("select mes,"
+				+ " coalesce(sum(total) filter (where tipo = 'RECEITA'), 0.00) as receitas,"
+				+ " coalesce(sum(total) filter (where tipo = 'DESPESA'), 0.00) as despesas"
+				+ " from saldo_mensal_pessoa where codigo_pessoa = :codigoPessoa");
+		if (de != null) {
+			sql.append(" and mes >= :de");
 		}
+		if (ate != null) {
+			sql.append(" and mes <= :ate");
+		}
+		sql.append(" group by mes order by mes");
 
-		if (lancamentoFilter.getDataVencimentoDe() != null) {
-			predicates.add(builder.greaterThanOrEqualTo(root.get(Lancamento_.dataVencimento),
-					lancamentoFilter.getDataVencimentoDe()));
+		Query query = manager.createNativeQuery(sql.toString()).setParameter("codigoPessoa", codigoPessoa);
+		if (de != null) {
+			query.setParameter("de", de.atDay(1));
+		}
+		if (ate != null) {
+			query.setParameter("ate", ate.atDay(1));
 		}
 
-		if (lancamentoFilter.getDataVencimentoAte() != null) {
-			predicates.add(builder.lessThanOrEqualTo(root.get(Lancamento_.dataVencimento),
-					lancamentoFilter.getDataVencimentoAte()));
+		List<SaldoMensal> saldos = new ArrayList<>();
+		for (Object linha : query.getResultList()) {
+			Object[] colunas = (Object[]) linha;
+			LocalDate mes = ((Date) colunas[0]).toLocalDate();
+			saldos.add(new SaldoMensal(mes.getYear(), mes.getMonthValue(), (BigDecimal) colunas[1],
+					(BigDecimal) colunas[2]));
+		}
+		return saldos;
+	}
+
+	/**
+	 * Refaz a saldo_mensal_pessoa inteira a partir dos lançamentos, para quando ela
+	 * for carregada por fora ou ficar diferente por algum motivo. O lock deixa ler
+	 * lancamento, mas segura as gravações até o fim da transação, para nenhuma
+	 * acontecer entre a soma e o commit.
+	 */
+	@Override
+	@Transactional
+	public int reconstruirSaldoMensal() {
+		executarNoSaldoMensal("lock table lancamento in share mode");
+		executarNoSaldoMensal("delete from saldo_mensal_pessoa");
+		return executarNoSaldoMensal("insert into saldo_mensal_pessoa"
+				+ " (codigo_pessoa, mes, tipo, total, quantidade)"
+				+ " select codigo_pessoa, cast(date_trunc('month', data_vencimento) as date), tipo, sum(valor),"
+				+ " count(*)"
+				+ " from lancamento group by 1, 2, 3");
+	}
+
+	/**
+	 * Sem saber quais tabelas um comando nativo altera, o Hibernate limpa o cache
+	 * de segundo nível inteiro a cada executeUpdate. Informando a tabela, nenhuma
+	 * entidade em cache é afetada.
+	 */
+	private int executarNoSaldoMensal(String sql) {
+		return manager.createNativeQuery(sql).unwrap(NativeQuery.class).addSynchronizedQuerySpace("saldo_mensal_pessoa")
+				.executeUpdate();
+	}
+
+	/**
+	 * Os códigos dos lançamentos do filtro em ordem, a partir do primeiro maior que
+	 * codigoMaiorQue, para percorrer o filtro em lotes sem voltar ao início a cada
+	 * lote. Chamado dentro da transação da exclusão, lê do primário.
+	 */
+	@Override
+	public List<Long> codigos(LancamentoFilter lancamentoFilter, Long codigoMaiorQue, int tamanho) {
+		CriteriaBuilder builder = manager.getCriteriaBuilder();
+		CriteriaQuery<Long> criteria = builder.createQuery(Long.class);
+		Root<Lancamento> root = criteria.from(Lancamento.class);
+
+		List<Predicate> predicates = new ArrayList<>(Arrays.asList(criarRestricoes(lancamentoFilter, builder, root)));
+		if (codigoMaiorQue != null) {
+			predicates.add(builder.greaterThan(root.get(Lancamento_.codigo), codigoMaiorQue));
+		}
+
+		criteria.select(root.get(Lancamento_.codigo));
+		criteria.where(predicates.toArray(new Predicate[predicates.size()]));
+		criteria.orderBy(builder.asc(root.get(Lancamento_.codigo)));
+		return manager.createQuery(criteria).setMaxResults(tamanho).getResultList();
+	}
+
+	private Predicate[] criarRestricoes(LancamentoFilter lancamentoFilter, CursorLancamento cursor,
+			CriteriaBuilder builder, Root<Lancamento> root) {
+		List<Predicate> predicates = new ArrayList<>(Arrays.asList(criarRestricoes(lancamentoFilter, builder, root)));
+
+		if (cursor != null) {
+			// Seria o mesmo que (data_vencimento, codigo) > (:data, :codigo), mas a
+			// Criteria não tem comparação de tuplas. Com o data_vencimento >= :data, o OR
+			// abaixo só deixa passar a mesma data quando o código for maior. E é esse >=
+			// fora do OR que permite ao banco posicionar direto no índice
+			// (data_vencimento, codigo), ao invés de percorrer ele desde o início.
+			predicates.add(builder.greaterThanOrEqualTo(root.get(Lancamento_.dataVencimento),
+					cursor.getDataVencimento()));
+			predicates.add(builder.or(
+					builder.greaterThan(root.get(Lancamento_.dataVencimento), cursor.getDataVencimento()),
+					builder.greaterThan(root.get(Lancamento_.codigo), cursor.getCodigo())));
 		}
 
 		return predicates.toArray(new Predicate[predicates.size()]);
 	}
 
+	/**
+	 * Visível no pacote para o LancamentoRepositoryBenchmark, em src/jmh/java,
+	 * medir a montagem das restrições.
+	 */
+	Predicate[] criarRestricoes(LancamentoFilter lancamentoFilter, CriteriaBuilder builder,
+			Root<Lancamento> root) {
+		RestricoesCriteria restricoes = new RestricoesCriteria(builder, root);
+		restricoes.aplicar(lancamentoFilter);
+		return restricoes.predicates.toArray(new Predicate[restricoes.predicates.size()]);
+	}
+
+	/**
+	 * Na busca textual, o cliente pode pedir os mais relevantes primeiro. O código
+	 * desempata, para a paginação ser estável.
+	 */
+	private void ordenarPorRelevancia(LancamentoFilter lancamentoFilter, CriteriaQuery<?> criteria,
+			CriteriaBuilder builder, Root<Lancamento> root) {
+		if (!RestricoesLancamento.ordenarPorRelevancia(lancamentoFilter)) {
+			return;
+		}
+
+		criteria.orderBy(
+				builder.desc(builder.function(FuncoesSqlMetadataBuilderContributor.RELEVANCIA_TEXTO, Double.class,
+						root.get(Lancamento_.descricao), builder.literal(lancamentoFilter.getDescricao()))),
+				builder.asc(root.get(Lancamento_.codigo)));
+	}
+
 	private void adicionarRestricoesDePaginacao(TypedQuery<?> query, Pageable pageable) {
 		int paginaAtual = pageable.getPageNumber();
 		int totalRegistrosPorPagina = pageable.getPageSize();
@@ -127,6 +428,88 @@ public class LancamentoRepositoryImpl implements LancamentoRepositoryQuery {
 		query.setMaxResults(totalRegistrosPorPagina);
 	}
 
+	private void ordenarPelaChaveDoCursor(CriteriaQuery<?> criteria, CriteriaBuilder builder, Root<Lancamento> root) {
+		criteria.orderBy(builder.asc(root.get(Lancamento_.dataVencimento)), builder.asc(root.get(Lancamento_.codigo)));
+	}
+
+	/**
+	 * Busca um registro a mais do que o tamanho da página. Se ele vier, existe uma
+	 * próxima página, e o cursor dela é a chave do último registro entregue.
+	 */
+	private <T> PaginaPorCursor<T> paginarPorCursor(TypedQuery<T> query, int tamanho,
+			Function<T, CursorLancamento> chave) {
+		query.setMaxResults(tamanho + 1);
+		List<T> conteudo = query.getResultList();
+
+		if (conteudo.size() <= tamanho) {
+			return new PaginaPorCursor<>(conteudo, null);
+		}
+
+		conteudo = conteudo.subList(0, tamanho);
+		return new PaginaPorCursor<>(conteudo, chave.apply(conteudo.get(tamanho - 1)));
+	}
+
+	/**
+	 * Pagina de acordo com o modo de total escolhido pelo cliente. O count(*) pode
+	 * custar tanto quanto a própria busca, então quem não precisa do total exato
+	 * pode evitar ele.
+	 */
+	private <T> Slice<T> paginar(TypedQuery<T> query, LancamentoFilter lancamentoFilter, Pageable pageable,
+			ModoTotal modoTotal) {
+		if (modoTotal == ModoTotal.NENHUM) {
+			return fatiar(query, pageable);
+		}
+
+		adicionarRestricoesDePaginacao(query, pageable);
+		List<T> conteudo = query.getResultList();
+
+		Long total = modoTotal == ModoTotal.ESTIMADO ? totalEstimado(lancamentoFilter) : total(lancamentoFilter);
+		return new PageImpl<>(conteudo, pageable, total);
+	}
+
+	/**
+	 * Sem o count, busca um registro a mais do que o tamanho da página somente para
+	 * saber se existe uma próxima.
+	 */
+	private <T> Slice<T> fatiar(TypedQuery<T> query, Pageable pageable) {
+		query.setFirstResult((int) pageable.getOffset());
+		query.setMaxResults(pageable.getPageSize() + 1);
+		List<T> conteudo = query.getResultList();
+
+		boolean existeProxima = conteudo.size() > pageable.getPageSize();
+		if (existeProxima) {
+			conteudo = conteudo.subList(0, pageable.getPageSize());
+		}
+		return new SliceImpl<>(conteudo, pageable, existeProxima);
+	}
+
+	/**
+	 * Sem nenhum filtro, a estimativa de linhas que o PostgreSQL guarda para o
+	 * planejador (atualizada pelo autovacuum/analyze) já basta. Com filtro, usa o
+	 * count(*) guardado em cache por alguns instantes para o mesmo filtro. Se a
+	 * tabela nunca foi analisada, o reltuples vem zerado ou negativo, então também
+	 * cai no count.
+	 */
+	private Long totalEstimado(LancamentoFilter lancamentoFilter) {
+		if (!possuiRestricoes(lancamentoFilter)) {
+			Number estimativa = (Number) manager
+					.createNativeQuery("select reltuples from pg_class where oid = cast('lancamento' as regclass)")
+					.getSingleResult();
+			if (estimativa.longValue() > 0) {
+				return estimativa.longValue();
+			}
+		}
+
+		return totaisEmCache.get(lancamentoFilter, this::total);
+	}
+
+	@Override
+	public boolean possuiRestricoes(LancamentoFilter lancamentoFilter) {
+		CriteriaBuilder builder = manager.getCriteriaBuilder();
+		Root<Lancamento> root = builder.createQuery(Long.class).from(Lancamento.class);
+		return criarRestricoes(lancamentoFilter, builder, root).length > 0;
+	}
+
 	private Long total(LancamentoFilter lancamentoFilter) {
 		CriteriaBuilder builder = manager.getCriteriaBuilder();
 		CriteriaQuery<Long> criteria = builder.createQuery(Long.class);
@@ -142,4 +525,107 @@ public class LancamentoRepositoryImpl implements LancamentoRepositoryQuery {
 		return manager.createQuery(criteria).getSingleResult();
 	}
 
+	/**
+	 * Cada restrição como um Predicate da Criteria.
+	 */
+	private static class RestricoesCriteria implements RestricoesLancamento {
+
+		private final CriteriaBuilder builder;
+		private final Root<Lancamento> root;
+		private final List<Predicate> predicates = new ArrayList<>();
+
+		RestricoesCriteria(CriteriaBuilder builder, Root<Lancamento> root) {
+			this.builder = builder;
+			this.root = root;
+		}
+
+		/**
+		 * where to_tsvector('portuguese', descricao) @@ plainto_tsquery('portuguese',
+		 * 'descricao'), atendido pelo índice idx_lancamento_descricao_fts.
+		 */
+		@Override
+		public void descricaoComAsPalavras(String descricao) {
+			predicates.add(builder.isTrue(builder.function(FuncoesSqlMetadataBuilderContributor.TEXTO_CORRESPONDE,
+					Boolean.class, root.get(Lancamento_.descricao), builder.literal(descricao))));
+		}
+
+		/**
+		 * where lower(descricao) like '%descricao%'
+		 *
+		 * Para não precisar digitar uma string com o nome do atributo e correr o risco
+		 * de uma mudança na classe não ser feita ness string, é usado o
+		 * hibernate-jpamodelgen. Habilitamos ele na IDE e importamos o jar e ai ele
+		 * cria as classes com o _ no final, assim importamos e usamos essa classe ao
+		 * invés de digitar a string. Assim, qualquer alteração no model vai ser
+		 * refletida no repository.
+		 *
+		 * O lower(descricao) precisa ser igual à expressão do índice de trigramas
+		 * idx_lancamento_descricao_trgm, que é o que atende o like com % no início.
+		 */
+		@Override
+		public void descricaoComOTrecho(String padraoLike) {
+			predicates.add(builder.like(builder.lower(root.get(Lancamento_.DESCRICAO)), padraoLike, '\\'));
+		}
+
+		@Override
+		public void vencimentoAPartirDe(LocalDate data) {
+			predicates.add(builder.greaterThanOrEqualTo(root.get(Lancamento_.dataVencimento), data));
+		}
+
+		@Override
+		public void vencimentoAte(LocalDate data) {
+			predicates.add(builder.lessThanOrEqualTo(root.get(Lancamento_.dataVencimento), data));
+		}
+
+		/**
+		 * O código da pessoa e da categoria é a própria chave estrangeira, então não
+		 * precisa de join. Junto com o período, são atendidos pelos índices
+		 * idx_lancamento_pessoa_vencimento e idx_lancamento_categoria_vencimento.
+		 */
+		@Override
+		public void pessoa(Long codigo) {
+			predicates.add(builder.equal(root.get(Lancamento_.pessoa).get(Pessoa_.codigo), codigo));
+		}
+
+		@Override
+		public void categoria(Long codigo) {
+			predicates.add(builder.equal(root.get(Lancamento_.categoria).get(Categoria_.codigo), codigo));
+		}
+
+		/**
+		 * Só existem dois tipos, então o tipo sozinho não tem índice: ele nunca
+		 * descarta linhas o suficiente para o banco preferir um índice.
+		 */
+		@Override
+		public void tipo(TipoLancamento tipo) {
+			predicates.add(builder.equal(root.get(Lancamento_.tipo), tipo));
+		}
+
+		@Override
+		public void valorAPartirDe(BigDecimal valor) {
+			predicates.add(builder.greaterThanOrEqualTo(root.get(Lancamento_.valor), valor));
+		}
+
+		@Override
+		public void valorAte(BigDecimal valor) {
+			predicates.add(builder.lessThanOrEqualTo(root.get(Lancamento_.valor), valor));
+		}
+
+		@Override
+		public void pago() {
+			predicates.add(builder.isNotNull(root.get(Lancamento_.dataPagamento)));
+		}
+
+		/**
+		 * Os não pagos, que são poucos, ficam no índice parcial
+		 * idx_lancamento_vencimento_nao_pago. O is null precisa ficar escrito assim
+		 * para o banco reconhecer a condição do índice.
+		 */
+		@Override
+		public void naoPago() {
+			predicates.add(builder.isNull(root.get(Lancamento_.dataPagamento)));
+		}
+
+	}
+
 }
@@ -1,15 +1,55 @@
 package com.example.algamoney.api.repository.lancamento;
 
+import java.time.YearMonth;
+import java.util.List;
+import java.util.stream.Stream;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
-import com.example.algamoney.api.model.Lancamento;
 import com.example.algamoney.api.repository.filter.LancamentoFilter;
+import com.example.algamoney.api.repository.paginacao.CursorLancamento;
+import com.example.algamoney.api.repository.paginacao.ModoTotal;
+import com.example.algamoney.api.repository.paginacao.PaginaPorCursor;
+import com.example.algamoney.api.repository.projection.LancamentoDetalhe;
+import com.example.algamoney.api.repository.projection.LancamentoEstatisticaCategoria;
+import com.example.algamoney.api.repository.projection.LancamentoEstatisticaDia;
+import com.example.algamoney.api.repository.projection.LancamentoEstatisticaMes;
+import com.example.algamoney.api.repository.projection.LancamentoEstatisticaPessoa;
 import com.example.algamoney.api.repository.projection.ResumoLancamento;
+import com.example.algamoney.api.repository.projection.SaldoMensal;
 
 public interface LancamentoRepositoryQuery {
 
-	public Page<Lancamento> filtrar(LancamentoFilter lancamentoFilter, Pageable pageable);
-
 	public Page<ResumoLancamento> resumir(LancamentoFilter lancamentoFilter, Pageable pageable);
+
+	public Slice<ResumoLancamento> resumir(LancamentoFilter lancamentoFilter, Pageable pageable, ModoTotal modoTotal);
+
+	public PaginaPorCursor<ResumoLancamento> resumir(LancamentoFilter lancamentoFilter, CursorLancamento cursor,
+			int tamanho);
+
+	public Slice<LancamentoDetalhe> detalhar(LancamentoFilter lancamentoFilter, Pageable pageable,
+			ModoTotal modoTotal);
+
+	public PaginaPorCursor<LancamentoDetalhe> detalhar(LancamentoFilter lancamentoFilter, CursorLancamento cursor,
+			int tamanho);
+
+	public Stream<ResumoLancamento> exportar(LancamentoFilter lancamentoFilter);
+
+	public List<LancamentoEstatisticaCategoria> porCategoria(LancamentoFilter lancamentoFilter);
+
+	public List<LancamentoEstatisticaPessoa> porPessoa(LancamentoFilter lancamentoFilter);
+
+	public List<LancamentoEstatisticaDia> porDia(LancamentoFilter lancamentoFilter);
+
+	public List<LancamentoEstatisticaMes> porMes(LancamentoFilter lancamentoFilter);
+
+	public List<SaldoMensal> saldoMensal(Long codigoPessoa, YearMonth de, YearMonth ate);
+
+	public int reconstruirSaldoMensal();
+
+	public List<Long> codigos(LancamentoFilter lancamentoFilter, Long codigoMaiorQue, int tamanho);
+
+	public boolean possuiRestricoes(LancamentoFilter lancamentoFilter);
 }
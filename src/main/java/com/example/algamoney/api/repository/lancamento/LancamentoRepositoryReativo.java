@@ -0,0 +1,296 @@
+package com.example.algamoney.api.repository.lancamento;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import com.example.algamoney.api.model.TipoLancamento;
+import com.example.algamoney.api.repository.filter.LancamentoFilter;
+import com.example.algamoney.api.repository.paginacao.ModoTotal;
+import com.example.algamoney.api.repository.projection.LancamentoDetalhe;
+import com.example.algamoney.api.repository.projection.ResumoLancamento;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * As consultas de resumo e de detalhe do LancamentoRepositoryImpl, feitas pelo
+ * driver R2DBC. Enquanto o banco responde, nenhuma thread fica parada: o
+ * resultado chega num Mono, que o Spring MVC escreve na resposta quando
+ * completar.
+ *
+ * O SQL é escrito à mão, mas as restrições saem do mesmo RestricoesLancamento
+ * e os joins são os mesmos, para usar os mesmos índices e trazer os mesmos
+ * registros. O cache dos totais estimados também é o mesmo.
+ */
+public class LancamentoRepositoryReativo {
+
+	private static final String COLUNAS_RESUMO = "select l.codigo, l.descricao, l.data_vencimento,"
+			+ " l.data_pagamento, l.valor, l.tipo, c.nome as nome_categoria, p.nome as nome_pessoa";
+
+	private static final String COLUNAS_DETALHE = "select l.codigo, l.descricao, l.data_vencimento,"
+			+ " l.data_pagamento, l.valor, l.observacao, l.tipo, c.codigo as codigo_categoria,"
+			+ " c.nome as nome_categoria, p.codigo as codigo_pessoa, p.nome as nome_pessoa, p.ativo,"
+			+ " p.logradouro, p.numero, p.complemento, p.bairro, p.cep, p.cidade, p.estado";
+
+	private static final String JOINS = " from lancamento l inner join categoria c on c.codigo = l.codigo_categoria"
+			+ " inner join pessoa p on p.codigo = l.codigo_pessoa";
+
+	private final ConnectionFactory connectionFactory;
+
+	private final TotaisLancamentoEmCache totaisEmCache;
+
+	public LancamentoRepositoryReativo(ConnectionFactory connectionFactory, TotaisLancamentoEmCache totaisEmCache) {
+		this.connectionFactory = connectionFactory;
+		this.totaisEmCache = totaisEmCache;
+	}
+
+	public Mono<Slice<ResumoLancamento>> resumir(LancamentoFilter lancamentoFilter, Pageable pageable,
+			ModoTotal modoTotal) {
+		return paginar(COLUNAS_RESUMO, this::resumo, lancamentoFilter, pageable, modoTotal);
+	}
+
+	public Mono<Slice<LancamentoDetalhe>> detalhar(LancamentoFilter lancamentoFilter, Pageable pageable,
+			ModoTotal modoTotal) {
+		return paginar(COLUNAS_DETALHE, this::detalhe, lancamentoFilter, pageable, modoTotal);
+	}
+
+	/**
+	 * Vazio quando o lançamento não existe.
+	 */
+	public Mono<LancamentoDetalhe> detalhar(Long codigo) {
+		Sql sql = new Sql(COLUNAS_DETALHE + JOINS);
+		sql.append(" where l.codigo = ").parametro(codigo);
+		return consultar(sql, this::detalhe).next();
+	}
+
+	/**
+	 * Como o paginar do LancamentoRepositoryImpl: no modo NENHUM busca um registro
+	 * a mais para saber se existe próxima página, nos outros busca a página e o
+	 * total ao mesmo tempo, cada um numa conexão.
+	 */
+	private <T> Mono<Slice<T>> paginar(String colunas, Function<Row, T> mapeamento,
+			LancamentoFilter lancamentoFilter, Pageable pageable, ModoTotal modoTotal) {
+		Sql sql = new Sql(colunas + JOINS);
+		criarRestricoes(lancamentoFilter, sql);
+		ordenarPorRelevancia(lancamentoFilter, sql);
+
+		if (modoTotal == ModoTotal.NENHUM) {
+			sql.append(" limit ").parametro(pageable.getPageSize() + 1).append(" offset ")
+					.parametro(pageable.getOffset());
+			return consultar(sql, mapeamento).collectList().map(conteudo -> {
+				boolean existeProxima = conteudo.size() > pageable.getPageSize();
+				return new SliceImpl<>(existeProxima ? conteudo.subList(0, pageable.getPageSize()) : conteudo,
+						pageable, existeProxima);
+			});
+		}
+
+		sql.append(" limit ").parametro(pageable.getPageSize()).append(" offset ").parametro(pageable.getOffset());
+		Mono<Long> total = modoTotal == ModoTotal.ESTIMADO ? totalEstimado(lancamentoFilter) : total(lancamentoFilter);
+		return Mono.zip(consultar(sql, mapeamento).collectList(), total)
+				.map(pagina -> new PageImpl<>(pagina.getT1(), pageable, pagina.getT2()));
+	}
+
+	/**
+	 * Mesma regra do totalEstimado do LancamentoRepositoryImpl.
+	 */
+	private Mono<Long> totalEstimado(LancamentoFilter lancamentoFilter) {
+		Sql restricoes = new Sql("");
+		criarRestricoes(lancamentoFilter, restricoes);
+
+		Mono<Long> totalEmCache = Mono.defer(() -> {
+			Long total = totaisEmCache.getIfPresent(lancamentoFilter);
+			return total != null ? Mono.just(total)
+					: total(lancamentoFilter).doOnNext(valor -> totaisEmCache.put(lancamentoFilter, valor));
+		});
+
+		if (restricoes.possuiRestricoes()) {
+			return totalEmCache;
+		}
+
+		Sql estimativa = new Sql("select reltuples::bigint from pg_class where oid = 'lancamento'::regclass");
+		return consultar(estimativa, linha -> linha.get(0, Long.class)).next().filter(valor -> valor > 0)
+				.switchIfEmpty(totalEmCache);
+	}
+
+	private Mono<Long> total(LancamentoFilter lancamentoFilter) {
+		Sql sql = new Sql("select count(*) from lancamento l");
+		criarRestricoes(lancamentoFilter, sql);
+		return consultar(sql, linha -> linha.get(0, Long.class)).next();
+	}
+
+	private void criarRestricoes(LancamentoFilter lancamentoFilter, Sql sql) {
+		new RestricoesSql(sql).aplicar(lancamentoFilter);
+	}
+
+	private void ordenarPorRelevancia(LancamentoFilter lancamentoFilter, Sql sql) {
+		if (!RestricoesLancamento.ordenarPorRelevancia(lancamentoFilter)) {
+			return;
+		}
+
+		sql.append(" order by ts_rank(to_tsvector('portuguese', l.descricao), plainto_tsquery('portuguese', ")
+				.parametro(lancamentoFilter.getDescricao()).append(")) desc, l.codigo asc");
+	}
+
+	/**
+	 * Pega uma conexão do pool só pelo tempo da consulta, e devolve mesmo se a
+	 * consulta falhar ou o cliente desistir.
+	 */
+	private <T> Flux<T> consultar(Sql sql, Function<Row, T> mapeamento) {
+		return Flux.usingWhen(connectionFactory.create(), con -> executar(con, sql, mapeamento), Connection::close);
+	}
+
+	private <T> Flux<T> executar(Connection con, Sql sql, Function<Row, T> mapeamento) {
+		Statement statement = con.createStatement(sql.toString());
+		for (int i = 0; i < sql.parametros.size(); i++) {
+			statement.bind(i, sql.parametros.get(i));
+		}
+		return Flux.from(statement.execute())
+				.flatMap(resultado -> resultado.map((linha, metadados) -> mapeamento.apply(linha)));
+	}
+
+	private ResumoLancamento resumo(Row linha) {
+		return new ResumoLancamento(linha.get("codigo", Long.class), linha.get("descricao", String.class),
+				linha.get("data_vencimento", LocalDate.class), linha.get("data_pagamento", LocalDate.class),
+				linha.get("valor", BigDecimal.class), TipoLancamento.valueOf(linha.get("tipo", String.class)),
+				linha.get("nome_categoria", String.class), linha.get("nome_pessoa", String.class));
+	}
+
+	private LancamentoDetalhe detalhe(Row linha) {
+		return new LancamentoDetalhe(linha.get("codigo", Long.class), linha.get("descricao", String.class),
+				linha.get("data_vencimento", LocalDate.class), linha.get("data_pagamento", LocalDate.class),
+				linha.get("valor", BigDecimal.class), linha.get("observacao", String.class),
+				TipoLancamento.valueOf(linha.get("tipo", String.class)), linha.get("codigo_categoria", Long.class),
+				linha.get("nome_categoria", String.class), linha.get("codigo_pessoa", Long.class),
+				linha.get("nome_pessoa", String.class), linha.get("ativo", Boolean.class),
+				linha.get("logradouro", String.class), linha.get("numero", String.class),
+				linha.get("complemento", String.class), linha.get("bairro", String.class),
+				linha.get("cep", String.class), linha.get("cidade", String.class), linha.get("estado", String.class));
+	}
+
+	/**
+	 * Cada restrição como um trecho de SQL. As expressões precisam continuar
+	 * iguais às dos índices, como as da Criteria do LancamentoRepositoryImpl.
+	 */
+	private static class RestricoesSql implements RestricoesLancamento {
+
+		private final Sql sql;
+
+		RestricoesSql(Sql sql) {
+			this.sql = sql;
+		}
+
+		@Override
+		public void descricaoComAsPalavras(String descricao) {
+			sql.restricao().append("to_tsvector('portuguese', l.descricao) @@ plainto_tsquery('portuguese', ")
+					.parametro(descricao).append(")");
+		}
+
+		@Override
+		public void descricaoComOTrecho(String padraoLike) {
+			sql.restricao().append("lower(l.descricao) like ").parametro(padraoLike).append(" escape '\\'");
+		}
+
+		@Override
+		public void vencimentoAPartirDe(LocalDate data) {
+			sql.restricao().append("l.data_vencimento >= ").parametro(data);
+		}
+
+		@Override
+		public void vencimentoAte(LocalDate data) {
+			sql.restricao().append("l.data_vencimento <= ").parametro(data);
+		}
+
+		@Override
+		public void pessoa(Long codigo) {
+			sql.restricao().append("l.codigo_pessoa = ").parametro(codigo);
+		}
+
+		@Override
+		public void categoria(Long codigo) {
+			sql.restricao().append("l.codigo_categoria = ").parametro(codigo);
+		}
+
+		@Override
+		public void tipo(TipoLancamento tipo) {
+			sql.restricao().append("l.tipo = ").parametro(tipo.name());
+		}
+
+		@Override
+		public void valorAPartirDe(BigDecimal valor) {
+			sql.restricao().append("l.valor >= ").parametro(valor);
+		}
+
+		@Override
+		public void valorAte(BigDecimal valor) {
+			sql.restricao().append("l.valor <= ").parametro(valor);
+		}
+
+		@Override
+		public void pago() {
+			sql.restricao().append("l.data_pagamento is not null");
+		}
+
+		@Override
+		public void naoPago() {
+			sql.restricao().append("l.data_pagamento is null");
+		}
+
+	}
+
+	/**
+	 * O SQL sendo montado e os valores dos parâmetros, que no PostgreSQL são $1,
+	 * $2... na ordem em que aparecem.
+	 */
+	private static class Sql {
+
+		private final StringBuilder texto;
+		private final List<Object> parametros = new ArrayList<>();
+		private int restricoes;
+
+		Sql(String inicio) {
+			texto = new StringBuilder(inicio);
+		}
+
+		Sql append(String trecho) {
+			texto.append(trecho);
+			return this;
+		}
+
+		Sql parametro(Object valor) {
+			parametros.add(valor);
+			texto.append('$').append(parametros.size());
+			return this;
+		}
+
+		/**
+		 * Começa a próxima restrição, com where na primeira e and nas outras.
+		 */
+		Sql restricao() {
+			texto.append(restricoes++ == 0 ? " where " : " and ");
+			return this;
+		}
+
+		boolean possuiRestricoes() {
+			return restricoes > 0;
+		}
+
+		@Override
+		public String toString() {
+			return texto.toString();
+		}
+
+	}
+
+}
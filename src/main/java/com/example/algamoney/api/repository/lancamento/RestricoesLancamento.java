@@ -0,0 +1,107 @@
+package com.example.algamoney.api.repository.lancamento;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.springframework.util.StringUtils;
+
+import com.example.algamoney.api.model.TipoLancamento;
+import com.example.algamoney.api.repository.filter.LancamentoFilter;
+
+/**
+ * Quais restrições um LancamentoFilter gera. O aplicar decide, num lugar só,
+ * quais campos do filtro entram na consulta e com quais valores, e chama um
+ * método para cada restrição. O LancamentoRepositoryImpl monta cada uma com
+ * Criteria e o LancamentoRepositoryReativo com SQL, então um filtro novo é um
+ * método novo aqui, que os dois são obrigados a implementar.
+ */
+interface RestricoesLancamento {
+
+	/**
+	 * Busca por palavras (full-text).
+	 */
+	void descricaoComAsPalavras(String descricao);
+
+	/**
+	 * Busca por trecho. O padrão já está em minúsculas, com os curingas do like e
+	 * com o % e o _ digitados pelo usuário escapados com \.
+	 */
+	void descricaoComOTrecho(String padraoLike);
+
+	void vencimentoAPartirDe(LocalDate data);
+
+	void vencimentoAte(LocalDate data);
+
+	void pessoa(Long codigo);
+
+	void categoria(Long codigo);
+
+	void tipo(TipoLancamento tipo);
+
+	void valorAPartirDe(BigDecimal valor);
+
+	void valorAte(BigDecimal valor);
+
+	void pago();
+
+	void naoPago();
+
+	default void aplicar(LancamentoFilter lancamentoFilter) {
+		if (!StringUtils.isEmpty(lancamentoFilter.getDescricao()) && lancamentoFilter.isBuscaTextual()) {
+			descricaoComAsPalavras(lancamentoFilter.getDescricao());
+		} else if (!StringUtils.isEmpty(lancamentoFilter.getDescricao())) {
+			descricaoComOTrecho("%" + escaparLike(lancamentoFilter.getDescricao().toLowerCase()) + "%");
+		}
+
+		if (lancamentoFilter.getDataVencimentoDe() != null) {
+			vencimentoAPartirDe(lancamentoFilter.getDataVencimentoDe());
+		}
+
+		if (lancamentoFilter.getDataVencimentoAte() != null) {
+			vencimentoAte(lancamentoFilter.getDataVencimentoAte());
+		}
+
+		if (lancamentoFilter.getCodigoPessoa() != null) {
+			pessoa(lancamentoFilter.getCodigoPessoa());
+		}
+
+		if (lancamentoFilter.getCodigoCategoria() != null) {
+			categoria(lancamentoFilter.getCodigoCategoria());
+		}
+
+		if (lancamentoFilter.getTipo() != null) {
+			tipo(lancamentoFilter.getTipo());
+		}
+
+		if (lancamentoFilter.getValorDe() != null) {
+			valorAPartirDe(lancamentoFilter.getValorDe());
+		}
+
+		if (lancamentoFilter.getValorAte() != null) {
+			valorAte(lancamentoFilter.getValorAte());
+		}
+
+		if (Boolean.TRUE.equals(lancamentoFilter.getPago())) {
+			pago();
+		} else if (Boolean.FALSE.equals(lancamentoFilter.getPago())) {
+			naoPago();
+		}
+	}
+
+	/**
+	 * A ordenação por relevância só vale na busca textual com alguma descrição.
+	 */
+	static boolean ordenarPorRelevancia(LancamentoFilter lancamentoFilter) {
+		return !StringUtils.isEmpty(lancamentoFilter.getDescricao()) && lancamentoFilter.isBuscaTextual()
+				&& lancamentoFilter.isOrdenarPorRelevancia();
+	}
+
+	/**
+	 * O % e o _ digitados pelo usuário devem ser procurados como texto, e não
+	 * funcionar como curingas do like.
+	 */
+	static String escaparLike(String texto) {
+		return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+	}
+
+}
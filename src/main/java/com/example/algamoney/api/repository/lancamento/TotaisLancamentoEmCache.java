@@ -0,0 +1,43 @@
+package com.example.algamoney.api.repository.lancamento;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+import com.example.algamoney.api.repository.filter.LancamentoFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Totais usados no modo estimado, por filtro. É o mesmo cache para as
+ * pesquisas pelo JPA e pelo R2DBC, que contam os mesmos lançamentos. Vale por
+ * pouco tempo, então um lançamento novo pode demorar até um minuto para
+ * aparecer no total.
+ */
+@Component
+public class TotaisLancamentoEmCache {
+
+	private final Cache<LancamentoFilter, Long> totais = Caffeine.newBuilder().maximumSize(1_000)
+			.expireAfterWrite(1, TimeUnit.MINUTES).build();
+
+	/**
+	 * O total do filtro, contado pelo contar se não estiver no cache.
+	 */
+	public Long get(LancamentoFilter lancamentoFilter, Function<LancamentoFilter, Long> contar) {
+		return totais.get(lancamentoFilter, contar);
+	}
+
+	/**
+	 * Para quem conta sem bloquear a thread, e guarda o total com o put quando a
+	 * contagem terminar.
+	 */
+	public Long getIfPresent(LancamentoFilter lancamentoFilter) {
+		return totais.getIfPresent(lancamentoFilter);
+	}
+
+	public void put(LancamentoFilter lancamentoFilter, Long total) {
+		totais.put(lancamentoFilter, total);
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.example.algamoney.api.repository.paginacao;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Posição de continuação da paginação por cursor (keyset). Guarda a chave de
+ * ordenação (dataVencimento, codigo) do último lançamento entregue, assim a
+ * próxima página começa logo depois dele, sem precisar que o banco percorra e
+ * descarte todos os registros anteriores como acontece com o OFFSET.
+ *
+ * Para o cliente o cursor é opaco, uma string em Base64 que ele só devolve na
+ * próxima requisição.
+ */
+public class CursorLancamento {
+
+	private static final String SEPARADOR = "|";
+
+	private final LocalDate dataVencimento;
+	private final Long codigo;
+
+	public CursorLancamento(LocalDate dataVencimento, Long codigo) {
+		this.dataVencimento = dataVencimento;
+		this.codigo = codigo;
+	}
+
+	/**
+	 * Converte o token recebido do cliente. Token vazio significa primeira página,
+	 * nesse caso retorna null.
+	 */
+	public static CursorLancamento decodificar(String token) {
+		if (StringUtils.isEmpty(token)) {
+			return null;
+		}
+
+		try {
+			String valor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separador = valor.indexOf(SEPARADOR);
+			if (separador < 0) {
+				throw new CursorInvalidoException(token);
+			}
+			return new CursorLancamento(LocalDate.parse(valor.substring(0, separador)),
+					Long.valueOf(valor.substring(separador + 1)));
+		} catch (IllegalArgumentException | DateTimeParseException e) {
+			// NumberFormatException também é um IllegalArgumentException.
+			throw new CursorInvalidoException(token);
+		}
+	}
+
+	public String codificar() {
+		String valor = dataVencimento + SEPARADOR + codigo;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public LocalDate getDataVencimento() {
+		return dataVencimento;
+	}
+
+	public Long getCodigo() {
+		return codigo;
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.example.algamoney.api.repository.paginacao;
+
+/**
+ * Como o total de registros é calculado na paginação.
+ */
+public enum ModoTotal {
+
+	/**
+	 * Faz o count(*) a cada página. É o padrão, mantém o contrato do Page.
+	 */
+	EXATO,
+
+	/**
+	 * Usa a estimativa do planejador do PostgreSQL ou um count guardado em cache.
+	 */
+	ESTIMADO,
+
+	/**
+	 * Não calcula o total, informa somente se existe próxima página (Slice).
+	 */
+	NENHUM;
+
+}
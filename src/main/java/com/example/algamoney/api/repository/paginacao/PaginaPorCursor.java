@@ -0,0 +1,32 @@
+package com.example.algamoney.api.repository.paginacao;
+
+import java.util.List;
+
+/**
+ * Página retornada na paginação por cursor. Não tem total de registros nem
+ * número de página, somente o conteúdo e o cursor para buscar a próxima
+ * página. Quando não existe próxima página, o proximoCursor vem nulo.
+ */
+public class PaginaPorCursor<T> {
+
+	private final List<T> conteudo;
+	private final String proximoCursor;
+
+	public PaginaPorCursor(List<T> conteudo, CursorLancamento proximoCursor) {
+		this.conteudo = conteudo;
+		this.proximoCursor = proximoCursor != null ? proximoCursor.codificar() : null;
+	}
+
+	public List<T> getConteudo() {
+		return conteudo;
+	}
+
+	public String getProximoCursor() {
+		return proximoCursor;
+	}
+
+	public boolean isUltima() {
+		return proximoCursor == null;
+	}
+
+}
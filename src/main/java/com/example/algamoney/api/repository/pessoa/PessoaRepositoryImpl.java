@@ -0,0 +1,55 @@
+package com.example.algamoney.api.repository.pessoa;
+
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+
+import com.example.algamoney.api.model.Pessoa;
+import com.example.algamoney.api.model.Pessoa_;
+
+public class PessoaRepositoryImpl implements PessoaRepositoryQuery {
+
+	@PersistenceContext
+	private EntityManager manager;
+
+	/**
+	 * Um update só das colunas informadas, sem buscar a pessoa antes. As chaves
+	 * são os caminhos dos atributos, como no JPQL: nome, ativo, endereco.cep...
+	 * Precisa de uma transação aberta por quem chama.
+	 *
+	 * @return quantas pessoas foram alteradas, zero se o código não existe
+	 */
+	@Override
+	public int atualizar(Long codigo, Map<String, Object> valores) {
+		CriteriaBuilder builder = manager.getCriteriaBuilder();
+		CriteriaUpdate<Pessoa> update = builder.createCriteriaUpdate(Pessoa.class);
+		Root<Pessoa> root = update.from(Pessoa.class);
+
+		valores.forEach((caminho, valor) -> {
+			Path<Object> atributo = caminho(root, caminho);
+			if (valor == null) {
+				// Com o valor null o Hibernate não sabe o tipo do parâmetro.
+				update.<Object>set(atributo, builder.nullLiteral(atributo.getJavaType()));
+			} else {
+				update.set(atributo, valor);
+			}
+		});
+		update.where(builder.equal(root.get(Pessoa_.codigo), codigo));
+
+		return manager.createQuery(update).executeUpdate();
+	}
+
+	private Path<Object> caminho(Root<Pessoa> root, String caminho) {
+		Path<Object> atributo = null;
+		for (String nome : caminho.split("\\.")) {
+			atributo = atributo == null ? root.get(nome) : atributo.get(nome);
+		}
+		return atributo;
+	}
+
+}
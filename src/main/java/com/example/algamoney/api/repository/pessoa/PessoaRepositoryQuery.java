@@ -0,0 +1,9 @@
+package com.example.algamoney.api.repository.pessoa;
+
+import java.util.Map;
+
+public interface PessoaRepositoryQuery {
+
+	public int atualizar(Long codigo, Map<String, Object> valores);
+
+}
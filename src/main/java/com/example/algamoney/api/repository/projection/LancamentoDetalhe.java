@@ -0,0 +1,154 @@
+package com.example.algamoney.api.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.example.algamoney.api.model.TipoLancamento;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * O lançamento completo da pesquisa, com a categoria e a pessoa (com endereço),
+ * buscado por projeção como o ResumoLancamento. Por não ser uma entidade, o
+ * Hibernate não guarda cópias para o dirty checking, e cada linha vira um único
+ * objeto, em vez de um Lancamento, uma Categoria, uma Pessoa e um Endereco.
+ *
+ * O JSON é exatamente o mesmo da entidade Lancamento. Quem monta é o
+ * LancamentoDetalheSerializer, com os campos na mesma ordem.
+ */
+@JsonSerialize(using = LancamentoDetalheSerializer.class)
+public class LancamentoDetalhe {
+
+	private final Long codigo;
+	private final String descricao;
+	private final LocalDate dataVencimento;
+	private final LocalDate dataPagamento;
+	private final BigDecimal valor;
+	private final String observacao;
+	private final TipoLancamento tipo;
+
+	private final Long codigoCategoria;
+	private final String nomeCategoria;
+
+	private final Long codigoPessoa;
+	private final String nomePessoa;
+	private final Boolean pessoaAtiva;
+
+	private final String logradouro;
+	private final String numero;
+	private final String complemento;
+	private final String bairro;
+	private final String cep;
+	private final String cidade;
+	private final String estado;
+
+	public LancamentoDetalhe(Long codigo, String descricao, LocalDate dataVencimento, LocalDate dataPagamento,
+			BigDecimal valor, String observacao, TipoLancamento tipo, Long codigoCategoria, String nomeCategoria,
+			Long codigoPessoa, String nomePessoa, Boolean pessoaAtiva, String logradouro, String numero,
+			String complemento, String bairro, String cep, String cidade, String estado) {
+		this.codigo = codigo;
+		this.descricao = descricao;
+		this.dataVencimento = dataVencimento;
+		this.dataPagamento = dataPagamento;
+		this.valor = valor;
+		this.observacao = observacao;
+		this.tipo = tipo;
+		this.codigoCategoria = codigoCategoria;
+		this.nomeCategoria = nomeCategoria;
+		this.codigoPessoa = codigoPessoa;
+		this.nomePessoa = nomePessoa;
+		this.pessoaAtiva = pessoaAtiva;
+		this.logradouro = logradouro;
+		this.numero = numero;
+		this.complemento = complemento;
+		this.bairro = bairro;
+		this.cep = cep;
+		this.cidade = cidade;
+		this.estado = estado;
+	}
+
+	/**
+	 * Como no Hibernate, que deixa o @Embedded nulo quando todas as colunas dele
+	 * são nulas.
+	 */
+	public boolean isPossuiEndereco() {
+		return logradouro != null || numero != null || complemento != null || bairro != null || cep != null
+				|| cidade != null || estado != null;
+	}
+
+	public Long getCodigo() {
+		return codigo;
+	}
+
+	public String getDescricao() {
+		return descricao;
+	}
+
+	public LocalDate getDataVencimento() {
+		return dataVencimento;
+	}
+
+	public LocalDate getDataPagamento() {
+		return dataPagamento;
+	}
+
+	public BigDecimal getValor() {
+		return valor;
+	}
+
+	public String getObservacao() {
+		return observacao;
+	}
+
+	public TipoLancamento getTipo() {
+		return tipo;
+	}
+
+	public Long getCodigoCategoria() {
+		return codigoCategoria;
+	}
+
+	public String getNomeCategoria() {
+		return nomeCategoria;
+	}
+
+	public Long getCodigoPessoa() {
+		return codigoPessoa;
+	}
+
+	public String getNomePessoa() {
+		return nomePessoa;
+	}
+
+	public Boolean getPessoaAtiva() {
+		return pessoaAtiva;
+	}
+
+	public String getLogradouro() {
+		return logradouro;
+	}
+
+	public String getNumero() {
+		return numero;
+	}
+
+	public String getComplemento() {
+		return complemento;
+	}
+
+	public String getBairro() {
+		return bairro;
+	}
+
+	public String getCep() {
+		return cep;
+	}
+
+	public String getCidade() {
+		return cidade;
+	}
+
+	public String getEstado() {
+		return estado;
+	}
+
+}
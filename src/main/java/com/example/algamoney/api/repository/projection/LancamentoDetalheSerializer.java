@@ -0,0 +1,118 @@
+package com.example.algamoney.api.repository.projection;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Escreve o LancamentoDetalhe no mesmo formato da entidade Lancamento, sem o
+ * Jackson precisar descobrir as propriedades por reflexão. Os nomes dos campos
+ * já ficam prontos (SerializedString), e datas e enums passam pelos
+ * serializadores configurados no ObjectMapper, para sair igual à entidade.
+ *
+ * Se um campo for incluído no Lancamento, na Pessoa, no Endereco ou na
+ * Categoria, precisa ser incluído aqui também, na mesma posição.
+ */
+public class LancamentoDetalheSerializer extends StdSerializer<LancamentoDetalhe> {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final SerializedString CODIGO = new SerializedString("codigo");
+	private static final SerializedString DESCRICAO = new SerializedString("descricao");
+	private static final SerializedString DATA_VENCIMENTO = new SerializedString("dataVencimento");
+	private static final SerializedString DATA_PAGAMENTO = new SerializedString("dataPagamento");
+	private static final SerializedString VALOR = new SerializedString("valor");
+	private static final SerializedString OBSERVACAO = new SerializedString("observacao");
+	private static final SerializedString TIPO = new SerializedString("tipo");
+	private static final SerializedString CATEGORIA = new SerializedString("categoria");
+	private static final SerializedString NOME = new SerializedString("nome");
+	private static final SerializedString PESSOA = new SerializedString("pessoa");
+	private static final SerializedString ENDERECO = new SerializedString("endereco");
+	private static final SerializedString LOGRADOURO = new SerializedString("logradouro");
+	private static final SerializedString NUMERO = new SerializedString("numero");
+	private static final SerializedString COMPLEMENTO = new SerializedString("complemento");
+	private static final SerializedString BAIRRO = new SerializedString("bairro");
+	private static final SerializedString CEP = new SerializedString("cep");
+	private static final SerializedString CIDADE = new SerializedString("cidade");
+	private static final SerializedString ESTADO = new SerializedString("estado");
+	private static final SerializedString ATIVO = new SerializedString("ativo");
+
+	public LancamentoDetalheSerializer() {
+		super(LancamentoDetalhe.class);
+	}
+
+	@Override
+	public void serialize(LancamentoDetalhe lancamento, JsonGenerator gen, SerializerProvider provider)
+			throws IOException {
+		gen.writeStartObject(lancamento);
+		escreverNumero(gen, CODIGO, lancamento.getCodigo());
+		escreverTexto(gen, DESCRICAO, lancamento.getDescricao());
+		escreverValor(gen, provider, DATA_VENCIMENTO, lancamento.getDataVencimento());
+		escreverValor(gen, provider, DATA_PAGAMENTO, lancamento.getDataPagamento());
+		gen.writeFieldName(VALOR);
+		gen.writeNumber(lancamento.getValor());
+		escreverTexto(gen, OBSERVACAO, lancamento.getObservacao());
+		escreverValor(gen, provider, TIPO, lancamento.getTipo());
+
+		gen.writeFieldName(CATEGORIA);
+		gen.writeStartObject();
+		escreverNumero(gen, CODIGO, lancamento.getCodigoCategoria());
+		escreverTexto(gen, NOME, lancamento.getNomeCategoria());
+		gen.writeEndObject();
+
+		gen.writeFieldName(PESSOA);
+		gen.writeStartObject();
+		escreverNumero(gen, CODIGO, lancamento.getCodigoPessoa());
+		escreverTexto(gen, NOME, lancamento.getNomePessoa());
+		gen.writeFieldName(ENDERECO);
+		if (lancamento.isPossuiEndereco()) {
+			gen.writeStartObject();
+			escreverTexto(gen, LOGRADOURO, lancamento.getLogradouro());
+			escreverTexto(gen, NUMERO, lancamento.getNumero());
+			escreverTexto(gen, COMPLEMENTO, lancamento.getComplemento());
+			escreverTexto(gen, BAIRRO, lancamento.getBairro());
+			escreverTexto(gen, CEP, lancamento.getCep());
+			escreverTexto(gen, CIDADE, lancamento.getCidade());
+			escreverTexto(gen, ESTADO, lancamento.getEstado());
+			gen.writeEndObject();
+		} else {
+			gen.writeNull();
+		}
+		gen.writeFieldName(ATIVO);
+		if (lancamento.getPessoaAtiva() != null) {
+			gen.writeBoolean(lancamento.getPessoaAtiva());
+		} else {
+			gen.writeNull();
+		}
+		gen.writeEndObject();
+
+		gen.writeEndObject();
+	}
+
+	private void escreverNumero(JsonGenerator gen, SerializedString campo, Long valor) throws IOException {
+		gen.writeFieldName(campo);
+		if (valor != null) {
+			gen.writeNumber(valor);
+		} else {
+			gen.writeNull();
+		}
+	}
+
+	/**
+	 * O writeString já escreve null quando o texto é nulo.
+	 */
+	private void escreverTexto(JsonGenerator gen, SerializedString campo, String valor) throws IOException {
+		gen.writeFieldName(campo);
+		gen.writeString(valor);
+	}
+
+	private void escreverValor(JsonGenerator gen, SerializerProvider provider, SerializedString campo, Object valor)
+			throws IOException {
+		gen.writeFieldName(campo);
+		provider.defaultSerializeValue(valor, gen);
+	}
+
+}
@@ -0,0 +1,56 @@
+package com.example.algamoney.api.repository.projection;
+
+import java.math.BigDecimal;
+
+import com.example.algamoney.api.model.TipoLancamento;
+
+/**
+ * Total de receitas ou despesas de uma categoria.
+ */
+public class LancamentoEstatisticaCategoria {
+
+	private Long codigoCategoria;
+	private String categoria;
+	private TipoLancamento tipo;
+	private BigDecimal total;
+
+	public LancamentoEstatisticaCategoria(Long codigoCategoria, String categoria, TipoLancamento tipo, BigDecimal total) {
+		this.codigoCategoria = codigoCategoria;
+		this.categoria = categoria;
+		this.tipo = tipo;
+		this.total = total;
+	}
+
+	public Long getCodigoCategoria() {
+		return codigoCategoria;
+	}
+
+	public void setCodigoCategoria(Long codigoCategoria) {
+		this.codigoCategoria = codigoCategoria;
+	}
+
+	public String getCategoria() {
+		return categoria;
+	}
+
+	public void setCategoria(String categoria) {
+		this.categoria = categoria;
+	}
+
+	public TipoLancamento getTipo() {
+		return tipo;
+	}
+
+	public void setTipo(TipoLancamento tipo) {
+		this.tipo = tipo;
+	}
+
+	public BigDecimal getTotal() {
+		return total;
+	}
+
+	public void setTotal(BigDecimal total) {
+		this.total = total;
+	}
+
+}
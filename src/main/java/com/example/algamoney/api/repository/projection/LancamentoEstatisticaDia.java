@@ -0,0 +1,47 @@
+package com.example.algamoney.api.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.example.algamoney.api.model.TipoLancamento;
+
+/**
+ * Total de receitas ou despesas com vencimento em um dia.
+ */
+public class LancamentoEstatisticaDia {
+
+	private LocalDate dia;
+	private TipoLancamento tipo;
+	private BigDecimal total;
+
+	public LancamentoEstatisticaDia(LocalDate dia, TipoLancamento tipo, BigDecimal total) {
+		this.dia = dia;
+		this.tipo = tipo;
+		this.total = total;
+	}
+
+	public LocalDate getDia() {
+		return dia;
+	}
+
+	public void setDia(LocalDate dia) {
+		this.dia = dia;
+	}
+
+	public TipoLancamento getTipo() {
+		return tipo;
+	}
+
+	public void setTipo(TipoLancamento tipo) {
+		this.tipo = tipo;
+	}
+
+	public BigDecimal getTotal() {
+		return total;
+	}
+
+	public void setTotal(BigDecimal total) {
+		this.total = total;
+	}
+
+}
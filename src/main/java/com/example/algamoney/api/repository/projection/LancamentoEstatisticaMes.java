@@ -0,0 +1,56 @@
+package com.example.algamoney.api.repository.projection;
+
+import java.math.BigDecimal;
+
+import com.example.algamoney.api.model.TipoLancamento;
+
+/**
+ * Total de receitas ou despesas com vencimento em um mês.
+ */
+public class LancamentoEstatisticaMes {
+
+	private Integer ano;
+	private Integer mes;
+	private TipoLancamento tipo;
+	private BigDecimal total;
+
+	public LancamentoEstatisticaMes(Integer ano, Integer mes, TipoLancamento tipo, BigDecimal total) {
+		this.ano = ano;
+		this.mes = mes;
+		this.tipo = tipo;
+		this.total = total;
+	}
+
+	public Integer getAno() {
+		return ano;
+	}
+
+	public void setAno(Integer ano) {
+		this.ano = ano;
+	}
+
+	public Integer getMes() {
+		return mes;
+	}
+
+	public void setMes(Integer mes) {
+		this.mes = mes;
+	}
+
+	public TipoLancamento getTipo() {
+		return tipo;
+	}
+
+	public void setTipo(TipoLancamento tipo) {
+		this.tipo = tipo;
+	}
+
+	public BigDecimal getTotal() {
+		return total;
+	}
+
+	public void setTotal(BigDecimal total) {
+		this.total = total;
+	}
+
+}
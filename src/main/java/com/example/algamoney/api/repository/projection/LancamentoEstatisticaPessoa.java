@@ -0,0 +1,56 @@
+package com.example.algamoney.api.repository.projection;
+
+import java.math.BigDecimal;
+
+import com.example.algamoney.api.model.TipoLancamento;
+
+/**
+ * Total de receitas ou despesas de uma pessoa.
+ */
+public class LancamentoEstatisticaPessoa {
+
+	private Long codigoPessoa;
+	private String pessoa;
+	private TipoLancamento tipo;
+	private BigDecimal total;
+
+	public LancamentoEstatisticaPessoa(Long codigoPessoa, String pessoa, TipoLancamento tipo, BigDecimal total) {
+		this.codigoPessoa = codigoPessoa;
+		this.pessoa = pessoa;
+		this.tipo = tipo;
+		this.total = total;
+	}
+
+	public Long getCodigoPessoa() {
+		return codigoPessoa;
+	}
+
+	public void setCodigoPessoa(Long codigoPessoa) {
+		this.codigoPessoa = codigoPessoa;
+	}
+
+	public String getPessoa() {
+		return pessoa;
+	}
+
+	public void setPessoa(String pessoa) {
+		this.pessoa = pessoa;
+	}
+
+	public TipoLancamento getTipo() {
+		return tipo;
+	}
+
+	public void setTipo(TipoLancamento tipo) {
+		this.tipo = tipo;
+	}
+
+	public BigDecimal getTotal() {
+		return total;
+	}
+
+	public void setTotal(BigDecimal total) {
+		this.total = total;
+	}
+
+}
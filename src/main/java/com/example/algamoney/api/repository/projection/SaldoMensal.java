@@ -0,0 +1,43 @@
+package com.example.algamoney.api.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Receitas, despesas e saldo de uma pessoa em um mês de vencimento, lidos da
+ * tabela saldo_mensal_pessoa.
+ */
+public class SaldoMensal {
+
+	private Integer ano;
+	private Integer mes;
+	private BigDecimal receitas;
+	private BigDecimal despesas;
+
+	public SaldoMensal(Integer ano, Integer mes, BigDecimal receitas, BigDecimal despesas) {
+		this.ano = ano;
+		this.mes = mes;
+		this.receitas = receitas;
+		this.despesas = despesas;
+	}
+
+	public Integer getAno() {
+		return ano;
+	}
+
+	public Integer getMes() {
+		return mes;
+	}
+
+	public BigDecimal getReceitas() {
+		return receitas;
+	}
+
+	public BigDecimal getDespesas() {
+		return despesas;
+	}
+
+	public BigDecimal getSaldo() {
+		return receitas.subtract(despesas);
+	}
+
+}
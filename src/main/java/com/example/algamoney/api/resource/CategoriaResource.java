@@ -7,6 +7,7 @@ import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -20,6 +21,8 @@ import org.springframework.web.bind.annotation.RestController;
 import com.example.algamoney.api.event.RecursoCriadoEvent;
 import com.example.algamoney.api.model.Categoria;
 import com.example.algamoney.api.repository.CategoriaRepository;
+import com.example.algamoney.api.service.CategoriaService;
+import com.example.algamoney.api.service.CategoriaService.ListaCategorias;
 
 @RestController
 @RequestMapping("/categorias")
@@ -28,6 +31,9 @@ public class CategoriaResource {
 	@Autowired
 	private CategoriaRepository categoriaRepository;
 
+	@Autowired
+	private CategoriaService categoriaService;
+
 	@Autowired
 	private ApplicationEventPublisher publisher;
 
@@ -41,19 +47,26 @@ public class CategoriaResource {
 	 * vai poder ler e escrever, mas se ele estiver acessando pelo cliente mobile,
 	 * ele somente poderá ler, mesmo que ele tenha o authority de cadastro.
 	 *
+	 * A lista vem do cache do CategoriaService, com o ETag. Quando o cliente manda
+	 * o mesmo ETag no If-None-Match, o Spring responde 304 sem corpo e a lista nem
+	 * é serializada. O Cache-Control é o mesmo do EtagFilter; sem ele, o Spring
+	 * Security manda no-store e o browser não guarda a lista.
+	 *
 	 * @return
 	 */
 	@GetMapping
 	@PreAuthorize("hasAuthority('ROLE_PESQUISAR_CATEGORIA') and #oauth2.hasScope('read')")
-	public List<Categoria> listar() {
-		return categoriaRepository.findAll();
+	public ResponseEntity<List<Categoria>> listar() {
+		ListaCategorias lista = categoriaService.listar();
+		return ResponseEntity.ok().eTag(lista.getEtag()).cacheControl(CacheControl.noCache().cachePrivate())
+				.body(lista.getCategorias());
 	}
 
 	@PostMapping
 //	@ResponseStatus(HttpStatus.CREATED)
 	@PreAuthorize("hasAuthority('ROLE_CADASTRAR_CATEGORIA') and #oauth2.hasScope('write')")
 	public ResponseEntity<Categoria> criar(@Valid @RequestBody Categoria categoria, HttpServletResponse response) {
-		Categoria categoriaSalva = categoriaRepository.save(categoria);
+		Categoria categoriaSalva = categoriaService.salvar(categoria);
 
 		publisher.publishEvent(new RecursoCriadoEvent(this, response, categoriaSalva.getCodigo()));
 
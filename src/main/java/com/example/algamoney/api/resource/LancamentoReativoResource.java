@@ -0,0 +1,68 @@
+package com.example.algamoney.api.resource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.InitBinder;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.algamoney.api.repository.filter.LancamentoFilter;
+import com.example.algamoney.api.repository.lancamento.LancamentoRepositoryReativo;
+import com.example.algamoney.api.repository.paginacao.ModoTotal;
+import com.example.algamoney.api.repository.projection.LancamentoDetalhe;
+import com.example.algamoney.api.repository.projection.ResumoLancamento;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * As pesquisas de /lancamentos, com os mesmos parâmetros, permissões e JSON,
+ * mas lendo o banco pelo R2DBC. Só existe com algamoney.reativo.habilitado=true.
+ *
+ * Continua sendo um controller do Spring MVC, porque a segurança do OAuth2 é de
+ * servlet. Ao receber o Mono, o Spring MVC libera a thread do Tomcat e escreve a
+ * resposta quando a consulta termina, então uma consulta lenta não segura uma
+ * thread enquanto espera o banco.
+ */
+@RestController
+@RequestMapping("/reativo/lancamentos")
+@ConditionalOnProperty(prefix = "algamoney.reativo", name = "habilitado", havingValue = "true")
+public class LancamentoReativoResource {
+
+	@Autowired
+	private LancamentoRepositoryReativo lancamentoRepositoryReativo;
+
+	@InitBinder("lancamentoFilter")
+	public void configurarFiltro(WebDataBinder binder) {
+		binder.setAllowedFields(LancamentoResource.CAMPOS_FILTRO);
+	}
+
+	@GetMapping
+	@PreAuthorize("hasAuthority('ROLE_PESQUISAR_LANCAMENTO') and #oauth2.hasScope('read')")
+	public Mono<Slice<LancamentoDetalhe>> pesquisar(LancamentoFilter lancamentoFilter, Pageable pageable,
+			@RequestParam(defaultValue = "EXATO") ModoTotal total) {
+		return lancamentoRepositoryReativo.detalhar(lancamentoFilter, pageable, total);
+	}
+
+	@GetMapping(params = "resumo")
+	@PreAuthorize("hasAuthority('ROLE_PESQUISAR_LANCAMENTO') and #oauth2.hasScope('read')")
+	public Mono<Slice<ResumoLancamento>> resumir(LancamentoFilter lancamentoFilter, Pageable pageable,
+			@RequestParam(defaultValue = "EXATO") ModoTotal total) {
+		return lancamentoRepositoryReativo.resumir(lancamentoFilter, pageable, total);
+	}
+
+	@GetMapping("/{codigo}")
+	@PreAuthorize("hasAuthority('ROLE_PESQUISAR_LANCAMENTO') and #oauth2.hasScope('read')")
+	public Mono<ResponseEntity<LancamentoDetalhe>> buscarPeloCodigo(@PathVariable Long codigo) {
+		return lancamentoRepositoryReativo.detalhar(codigo).map(ResponseEntity::ok)
+				.defaultIfEmpty(ResponseEntity.notFound().build());
+	}
+
+}
@@ -1,27 +1,44 @@
 package com.example.algamoney.api.resource;
 
+import java.beans.PropertyDescriptor;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
 import java.util.Arrays;
 import java.util.List;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -30,8 +47,24 @@ import com.example.algamoney.api.exceptionhandler.AlgamoneyExceptionHandler.Erro
 import com.example.algamoney.api.model.Lancamento;
 import com.example.algamoney.api.repository.LancamentoRepository;
 import com.example.algamoney.api.repository.filter.LancamentoFilter;
+import com.example.algamoney.api.repository.paginacao.CursorLancamento;
+import com.example.algamoney.api.repository.paginacao.ModoTotal;
+import com.example.algamoney.api.repository.paginacao.PaginaPorCursor;
+import com.example.algamoney.api.repository.projection.LancamentoDetalhe;
+import com.example.algamoney.api.repository.projection.LancamentoEstatisticaCategoria;
+import com.example.algamoney.api.repository.projection.LancamentoEstatisticaDia;
+import com.example.algamoney.api.repository.projection.LancamentoEstatisticaMes;
+import com.example.algamoney.api.repository.projection.LancamentoEstatisticaPessoa;
 import com.example.algamoney.api.repository.projection.ResumoLancamento;
+import com.example.algamoney.api.repository.projection.SaldoMensal;
+import com.example.algamoney.api.service.ExclusaoLancamentoService;
+import com.example.algamoney.api.service.ExportacaoLancamentoService;
+import com.example.algamoney.api.service.FormatoExportacao;
+import com.example.algamoney.api.service.ImportacaoLancamentoService;
 import com.example.algamoney.api.service.LancamentoService;
+import com.example.algamoney.api.service.ResultadoExclusao;
+import com.example.algamoney.api.service.ResultadoImportacao;
+import com.example.algamoney.api.service.exception.FiltroExclusaoVazioException;
 import com.example.algamoney.api.service.exception.PessoaInexistenteOuInativaException;
 
 @RestController
@@ -44,16 +77,60 @@ public class LancamentoResource {
 	@Autowired
 	private LancamentoService lancamentoService;
 
+	@Autowired
+	private ExportacaoLancamentoService exportacaoLancamentoService;
+
+	@Autowired
+	private ImportacaoLancamentoService importacaoLancamentoService;
+
+	@Autowired
+	private ExclusaoLancamentoService exclusaoLancamentoService;
+
 	@Autowired
 	private ApplicationEventPublisher publisher;
 
 	@Autowired
 	private MessageSource messageSource;
 
+	/**
+	 * As propriedades que podem ser preenchidas no LancamentoFilter. Também
+	 * usadas pelo LancamentoReativoResource.
+	 */
+	static final String[] CAMPOS_FILTRO = Arrays.stream(BeanUtils.getPropertyDescriptors(LancamentoFilter.class))
+			.filter(propriedade -> propriedade.getWriteMethod() != null).map(PropertyDescriptor::getName)
+			.toArray(String[]::new);
+
+	/**
+	 * Os parâmetros da paginação (page, size, total, cursor...) também são
+	 * oferecidos ao LancamentoFilter. Como ele não tem essas propriedades, o Spring
+	 * criava e ignorava uma exceção para cada um, a cada requisição, calculando até
+	 * sugestões de nomes parecidos. Com os campos permitidos, eles são descartados
+	 * antes.
+	 */
+	@InitBinder("lancamentoFilter")
+	public void configurarFiltro(WebDataBinder binder) {
+		binder.setAllowedFields(CAMPOS_FILTRO);
+	}
+
+	/**
+	 * O parâmetro total escolhe como o total de registros é calculado: EXATO (o
+	 * padrão, retorna um Page com o count), ESTIMADO (Page com um total
+	 * aproximado) ou NENHUM (retorna um Slice, que só informa se existe próxima
+	 * página).
+	 *
+	 * Os lançamentos vêm como LancamentoDetalhe, que tem o mesmo JSON da entidade
+	 * Lancamento mas é buscado e serializado com menos custo.
+	 *
+	 * @param lancamentoFilter
+	 * @param pageable
+	 * @param total
+	 * @return
+	 */
 	@GetMapping
 	@PreAuthorize("hasAuthority('ROLE_PESQUISAR_LANCAMENTO') and #oauth2.hasScope('read')")
-	public Page<Lancamento> pesquisar(LancamentoFilter lancamentoFilter, Pageable pageable) {
-		return lancamentoRepository.filtrar(lancamentoFilter, pageable);
+	public Slice<LancamentoDetalhe> pesquisar(LancamentoFilter lancamentoFilter, Pageable pageable,
+			@RequestParam(defaultValue = "EXATO") ModoTotal total) {
+		return lancamentoRepository.detalhar(lancamentoFilter, pageable, total);
 	}
 
 	/**
@@ -61,12 +138,115 @@ public class LancamentoResource {
 	 *
 	 * @param lancamentoFilter
 	 * @param pageable
+	 * @param total
 	 * @return
 	 */
 	@GetMapping(params = "resumo")
 	@PreAuthorize("hasAuthority('ROLE_PESQUISAR_LANCAMENTO') and #oauth2.hasScope('read')")
-	public Page<ResumoLancamento> resumir(LancamentoFilter lancamentoFilter, Pageable pageable) {
-		return lancamentoRepository.resumir(lancamentoFilter, pageable);
+	public Slice<ResumoLancamento> resumir(LancamentoFilter lancamentoFilter, Pageable pageable,
+			@RequestParam(defaultValue = "EXATO") ModoTotal total) {
+		return lancamentoRepository.resumir(lancamentoFilter, pageable, total);
+	}
+
+	/**
+	 * Paginação por cursor. Na primeira página o parâmetro cursor vai vazio, nas
+	 * próximas vai o proximoCursor que veio na resposta anterior. O tamanho da
+	 * página continua vindo do parâmetro size, o page é ignorado.
+	 *
+	 * @param lancamentoFilter
+	 * @param cursor
+	 * @param pageable
+	 * @return
+	 */
+	@GetMapping(params = "cursor")
+	@PreAuthorize("hasAuthority('ROLE_PESQUISAR_LANCAMENTO') and #oauth2.hasScope('read')")
+	public PaginaPorCursor<LancamentoDetalhe> pesquisarPorCursor(LancamentoFilter lancamentoFilter,
+			@RequestParam(required = false) String cursor, Pageable pageable) {
+		return lancamentoRepository.detalhar(lancamentoFilter, CursorLancamento.decodificar(cursor),
+				pageable.getPageSize());
+	}
+
+	@GetMapping(params = { "resumo", "cursor" })
+	@PreAuthorize("hasAuthority('ROLE_PESQUISAR_LANCAMENTO') and #oauth2.hasScope('read')")
+	public PaginaPorCursor<ResumoLancamento> resumirPorCursor(LancamentoFilter lancamentoFilter,
+			@RequestParam(required = false) String cursor, Pageable pageable) {
+		return lancamentoRepository.resumir(lancamentoFilter, CursorLancamento.decodificar(cursor),
+				pageable.getPageSize());
+	}
+
+	/**
+	 * Exporta todos os lançamentos do filtro de uma vez, em CSV ou NDJSON, sem
+	 * paginação. A resposta vai sendo enviada enquanto os lançamentos são lidos.
+	 *
+	 * @param lancamentoFilter
+	 * @param formato
+	 * @param response
+	 * @throws IOException
+	 */
+	@GetMapping("/export")
+	@PreAuthorize("hasAuthority('ROLE_PESQUISAR_LANCAMENTO') and #oauth2.hasScope('read')")
+	public void exportar(LancamentoFilter lancamentoFilter,
+			@RequestParam(defaultValue = "CSV") FormatoExportacao formato, HttpServletResponse response)
+			throws IOException {
+		response.setContentType(formato.getContentType());
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+				"attachment; filename=\"lancamentos." + formato.getExtensao() + "\"");
+
+		exportacaoLancamentoService.exportar(lancamentoFilter, formato, response.getWriter());
+	}
+
+	@GetMapping("/estatisticas/por-categoria")
+	@PreAuthorize("hasAuthority('ROLE_PESQUISAR_LANCAMENTO') and #oauth2.hasScope('read')")
+	public List<LancamentoEstatisticaCategoria> porCategoria(LancamentoFilter lancamentoFilter) {
+		return lancamentoRepository.porCategoria(lancamentoFilter);
+	}
+
+	@GetMapping("/estatisticas/por-pessoa")
+	@PreAuthorize("hasAuthority('ROLE_PESQUISAR_LANCAMENTO') and #oauth2.hasScope('read')")
+	public List<LancamentoEstatisticaPessoa> porPessoa(LancamentoFilter lancamentoFilter) {
+		return lancamentoRepository.porPessoa(lancamentoFilter);
+	}
+
+	@GetMapping("/estatisticas/por-dia")
+	@PreAuthorize("hasAuthority('ROLE_PESQUISAR_LANCAMENTO') and #oauth2.hasScope('read')")
+	public List<LancamentoEstatisticaDia> porDia(LancamentoFilter lancamentoFilter) {
+		return lancamentoRepository.porDia(lancamentoFilter);
+	}
+
+	@GetMapping("/estatisticas/por-mes")
+	@PreAuthorize("hasAuthority('ROLE_PESQUISAR_LANCAMENTO') and #oauth2.hasScope('read')")
+	public List<LancamentoEstatisticaMes> porMes(LancamentoFilter lancamentoFilter) {
+		return lancamentoRepository.porMes(lancamentoFilter);
+	}
+
+	/**
+	 * Receitas, despesas e saldo de uma pessoa mês a mês, pelo mês de vencimento.
+	 * Os meses de e ate (yyyy-MM) são opcionais. Meses sem lançamentos não
+	 * aparecem.
+	 *
+	 * @param codigoPessoa
+	 * @param de
+	 * @param ate
+	 * @return
+	 */
+	@GetMapping("/estatisticas/saldo-mensal")
+	@PreAuthorize("hasAuthority('ROLE_PESQUISAR_LANCAMENTO') and #oauth2.hasScope('read')")
+	public List<SaldoMensal> saldoMensal(@RequestParam Long codigoPessoa,
+			@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth de,
+			@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth ate) {
+		return lancamentoRepository.saldoMensal(codigoPessoa, de, ate);
+	}
+
+	/**
+	 * Refaz os saldos mensais a partir dos lançamentos. Enquanto roda, as
+	 * gravações de lançamentos esperam.
+	 */
+	@PostMapping("/estatisticas/saldo-mensal/reconstrucao")
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	@PreAuthorize("hasAuthority('ROLE_CADASTRAR_LANCAMENTO') and #oauth2.hasScope('write')")
+	public void reconstruirSaldoMensal() {
+		lancamentoRepository.reconstruirSaldoMensal();
 	}
 
 	@GetMapping("/{codigo}")
@@ -84,6 +264,31 @@ public class LancamentoResource {
 		return ResponseEntity.status(HttpStatus.CREATED).body(lancamentoSalvo);
 	}
 
+	/**
+	 * Importa muitos lançamentos de uma vez, de um array JSON no mesmo formato do
+	 * POST ou de um CSV. As linhas com erro são devolvidas no resultado e não
+	 * impedem a gravação das outras.
+	 *
+	 * @param entrada
+	 * @return
+	 * @throws IOException
+	 */
+	@PostMapping(value = "/importacao", consumes = MediaType.APPLICATION_JSON_VALUE)
+	@PreAuthorize("hasAuthority('ROLE_CADASTRAR_LANCAMENTO') and #oauth2.hasScope('write')")
+	public ResultadoImportacao importarJson(InputStream entrada) throws IOException {
+		return importacaoLancamentoService.importarJson(entrada);
+	}
+
+	@PostMapping(value = "/importacao", consumes = "text/csv")
+	@PreAuthorize("hasAuthority('ROLE_CADASTRAR_LANCAMENTO') and #oauth2.hasScope('write')")
+	public ResultadoImportacao importarCsv(HttpServletRequest request) throws IOException {
+		Charset charset = request.getCharacterEncoding() != null ? Charset.forName(request.getCharacterEncoding())
+				: StandardCharsets.UTF_8;
+		try (Reader entrada = new BufferedReader(new InputStreamReader(request.getInputStream(), charset))) {
+			return importacaoLancamentoService.importarCsv(entrada);
+		}
+	}
+
 	/**
 	 * Como essa exception é exclusiva de lançamento, eu não coloco no
 	 * ControllerAdvice, eu posso deixar somente nessa classe.
@@ -100,6 +305,15 @@ public class LancamentoResource {
 		return ResponseEntity.badRequest().body(erros);
 	}
 
+	@ExceptionHandler({ FiltroExclusaoVazioException.class })
+	public ResponseEntity<Object> handleFiltroExclusaoVazioException(FiltroExclusaoVazioException ex) {
+		String mensagemUsuario = messageSource.getMessage("lancamento.exclusao-sem-filtro", null,
+				LocaleContextHolder.getLocale());
+		String mensagemDesenvolvedor = ex.toString();
+		List<Erro> erros = Arrays.asList(new Erro(mensagemUsuario, mensagemDesenvolvedor));
+		return ResponseEntity.badRequest().body(erros);
+	}
+
 	@DeleteMapping("/{codigo}")
 	@ResponseStatus(HttpStatus.NO_CONTENT)
 	@PreAuthorize("hasAuthority('ROLE_REMOVER_LANCAMENTO') and #oauth2.hasScope('write')")
@@ -107,4 +321,31 @@ public class LancamentoResource {
 		lancamentoRepository.deleteById(codigo);
 	}
 
+	/**
+	 * Exclui de uma vez os lançamentos dos códigos enviados no corpo, um array JSON
+	 * como [1, 2, 3]. Os códigos que não existem são ignorados, e o resultado diz
+	 * quantos lançamentos foram excluídos.
+	 *
+	 * @param codigos
+	 * @return
+	 */
+	@DeleteMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+	@PreAuthorize("hasAuthority('ROLE_REMOVER_LANCAMENTO') and #oauth2.hasScope('write')")
+	public ResultadoExclusao removerPorCodigos(@RequestBody List<Long> codigos) {
+		return exclusaoLancamentoService.excluir(codigos);
+	}
+
+	/**
+	 * Sem corpo, exclui todos os lançamentos do filtro, com os mesmos parâmetros da
+	 * pesquisa. Pelo menos um filtro precisa ser informado.
+	 *
+	 * @param lancamentoFilter
+	 * @return
+	 */
+	@DeleteMapping
+	@PreAuthorize("hasAuthority('ROLE_REMOVER_LANCAMENTO') and #oauth2.hasScope('write')")
+	public ResultadoExclusao removerPorFiltro(LancamentoFilter lancamentoFilter) {
+		return exclusaoLancamentoService.excluir(lancamentoFilter);
+	}
+
 }
\ No newline at end of file
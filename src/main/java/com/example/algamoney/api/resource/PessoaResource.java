@@ -1,15 +1,22 @@
 package com.example.algamoney.api.resource;
 
+import java.util.Arrays;
+import java.util.List;
+
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -19,9 +26,12 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.algamoney.api.event.RecursoCriadoEvent;
+import com.example.algamoney.api.exceptionhandler.AlgamoneyExceptionHandler.Erro;
 import com.example.algamoney.api.model.Pessoa;
 import com.example.algamoney.api.repository.PessoaRepository;
 import com.example.algamoney.api.service.PessoaService;
+import com.example.algamoney.api.service.exception.AlteracaoPessoaInvalidaException;
+import com.fasterxml.jackson.databind.JsonNode;
 
 @RestController
 @RequestMapping("/pessoas")
@@ -36,6 +46,9 @@ public class PessoaResource {
 	@Autowired
 	private PessoaService pessoaService;
 
+	@Autowired
+	private MessageSource messageSource;
+
 	@PostMapping
 	@PreAuthorize("hasAuthority('ROLE_CADASTRAR_PESSOA') and #oauth2.hasScope('write')")
 	public ResponseEntity<Pessoa> criar(@Valid @RequestBody Pessoa pessoa, HttpServletResponse response) {
@@ -58,7 +71,7 @@ public class PessoaResource {
 	@ResponseStatus(HttpStatus.NO_CONTENT)
 	@PreAuthorize("hasAuthority('ROLE_REMOVER_PESSOA') and #oauth2.hasScope('write')")
 	public void remover(@PathVariable Long codigo) {
-		this.pessoaRepository.deleteById(codigo);
+		pessoaService.remover(codigo);
 	}
 
 	@PutMapping("/{codigo}")
@@ -68,6 +81,20 @@ public class PessoaResource {
 		return ResponseEntity.ok(pessoaSalva);
 	}
 
+	/**
+	 * Altera só as propriedades enviadas, por exemplo {"nome": "Novo nome"} ou
+	 * {"endereco": {"cep": "38.400-12"}}, com um update só no banco.
+	 *
+	 * @param codigo
+	 * @param alteracoes
+	 */
+	@PatchMapping("/{codigo}")
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	@PreAuthorize("hasAuthority('ROLE_CADASTRAR_PESSOA') and #oauth2.hasScope('write')")
+	public void atualizarParcialmente(@PathVariable Long codigo, @RequestBody JsonNode alteracoes) {
+		pessoaService.atualizarParcialmente(codigo, alteracoes);
+	}
+
 	@PutMapping("/{codigo}/ativo")
 	@ResponseStatus(HttpStatus.NO_CONTENT)
 	@PreAuthorize("hasAuthority('ROLE_CADASTRAR_PESSOA') and #oauth2.hasScope('write')")
@@ -75,4 +102,12 @@ public class PessoaResource {
 		pessoaService.atualizarPropriedadeAtivo(codigo, ativo);
 	}
 
+	@ExceptionHandler({ AlteracaoPessoaInvalidaException.class })
+	public ResponseEntity<Object> handleAlteracaoPessoaInvalidaException(AlteracaoPessoaInvalidaException ex) {
+		String mensagemUsuario = messageSource.getMessage("mensagem.invalida", null, LocaleContextHolder.getLocale());
+		String mensagemDesenvolvedor = ex.toString();
+		List<Erro> erros = Arrays.asList(new Erro(mensagemUsuario, mensagemDesenvolvedor));
+		return ResponseEntity.badRequest().body(erros);
+	}
+
 }
\ No newline at end of file
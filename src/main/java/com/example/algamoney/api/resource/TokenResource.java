@@ -1,14 +1,28 @@
 package com.example.algamoney.api.resource;
 
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.ClientDetailsService;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.authentication.OAuth2AuthenticationDetails;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.TokenStore;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.algamoney.api.token.SessaoTokenEnhancer;
+import com.example.algamoney.api.token.TokensRevogados;
+
 /**
  * Com o token JWT, não temos nenhum estado na aplicação. O JWTTokenStore, na
  * verdade não armazena em lugar nenhum (passamos ele pois o Spring Security
@@ -17,6 +31,10 @@ import org.springframework.web.bind.annotation.RestController;
  * o tempo de vida maior e é mais sensível. Como ele está num cookie http e em
  * produção é usado https, não tem problema usar assim. Então no logout da
  * aplicação, o que vamos fazer, é remover o refresh token do cookie http.
+ *
+ * Além disso, o access token usado no logout e a sessao dele vão para os
+ * TokensRevogados. Deixam de ser aceitos na hora todos os tokens do mesmo
+ * login, inclusive os refresh tokens de refreshes anteriores.
  * 
  * @author raffa
  *
@@ -25,14 +43,29 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/tokens")
 public class TokenResource {
 
+	@Autowired
+	private TokenStore tokenStore;
+
+	@Autowired
+	private ClientDetailsService clientDetailsService;
+
+	@Autowired
+	private TokensRevogados tokensRevogados;
+
 	/**
-	 * Faz o logout, removendo o refresh token.
+	 * Faz o logout, revogando o access token e removendo o refresh token.
 	 *
+	 * @param autenticacao
 	 * @param request
 	 * @param response
 	 */
 	@DeleteMapping("/revoke")
-	public void revoke(HttpServletRequest request, HttpServletResponse response) {
+	public void revoke(Authentication autenticacao, HttpServletRequest request, HttpServletResponse response) {
+
+		if (autenticacao instanceof OAuth2Authentication
+				&& autenticacao.getDetails() instanceof OAuth2AuthenticationDetails) {
+			revogar((OAuth2Authentication) autenticacao);
+		}
 
 		// Remover o refresh token.
 		Cookie cookie = new Cookie("refreshToken", null);
@@ -46,4 +79,29 @@ public class TokenResource {
 
 	}
 
+	/**
+	 * O cookie do refresh token só é mandado para /oauth/token, então ele não chega
+	 * aqui. O que liga os dois é a claim sessao, que todos os tokens do login
+	 * carregam. Por isso a sessao fica revogada até o último refresh token dela
+	 * vencer, e não só até o access token vencer. Tokens emitidos antes da claim
+	 * sessao existir não têm ela, e para eles continua valendo o jti, que o
+	 * refresh token guarda na claim ati.
+	 */
+	private void revogar(OAuth2Authentication autenticacao) {
+		String tokenValue = ((OAuth2AuthenticationDetails) autenticacao.getDetails()).getTokenValue();
+		OAuth2AccessToken token = tokenStore.readAccessToken(tokenValue);
+		String jti = (String) token.getAdditionalInformation().get(AccessTokenConverter.JTI);
+		String sessao = (String) token.getAdditionalInformation().get(SessaoTokenEnhancer.SESSAO);
+
+		long ate = token.getExpiration() == null ? 0 : token.getExpiration().getTime();
+		Integer validadeRefreshToken = clientDetailsService
+				.loadClientByClientId(autenticacao.getOAuth2Request().getClientId()).getRefreshTokenValiditySeconds();
+		if (validadeRefreshToken != null) {
+			ate = Math.max(ate, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(validadeRefreshToken));
+		}
+
+		tokensRevogados.revogar(jti, new Date(ate));
+		tokensRevogados.revogar(sessao, new Date(ate));
+	}
+
 }
@@ -2,8 +2,11 @@ package com.example.algamoney.api.security;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
@@ -14,8 +17,11 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import com.example.algamoney.api.config.property.AlgamoneyApiProperty;
 import com.example.algamoney.api.model.Usuario;
 import com.example.algamoney.api.repository.UsuarioRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 @Service
 public class AppUserDetailsService implements UserDetailsService {
@@ -23,27 +29,60 @@ public class AppUserDetailsService implements UserDetailsService {
 	@Autowired
 	private UsuarioRepository usuarioRepository;
 
+	/**
+	 * Quando muita gente loga junto, e no refresh token, o mesmo usuário é buscado
+	 * várias vezes seguidas. O cache guarda só a senha e as permissões, nunca o
+	 * User devolvido ao Spring, pois o Spring apaga a senha dele depois da
+	 * autenticação. Usuários que não existem não vão para o cache.
+	 */
+	private final Cache<String, UsuarioEmCache> usuarios;
+
+	public AppUserDetailsService(AlgamoneyApiProperty algamoneyApiProperty) {
+		this.usuarios = Caffeine.newBuilder().maximumSize(10_000)
+				.expireAfterWrite(algamoneyApiProperty.getLogin().getTempoCacheUsuariosEmSegundos(), TimeUnit.SECONDS)
+				.build();
+	}
+
 	@Override
 	public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-		Optional<Usuario> usuarioOptional = usuarioRepository.findByEmail(email);
-		Usuario usuario = usuarioOptional
-				.orElseThrow(() -> new UsernameNotFoundException("Usuário e/ou senha incorretos"));
+		UsuarioEmCache usuario = usuarios.get(email, this::buscarUsuario);
+		if (usuario == null) {
+			throw new UsernameNotFoundException("Usuário e/ou senha incorretos");
+		}
 		// Retorno um novo objeto User, passando o username, o password e os
 		// authorities. O Spring vai validar se o usuário e senha estão corretos.
-		return new User(email, usuario.getSenha(), getPermissoes(usuario));
+		return new User(email, usuario.senha, getPermissoes(usuario));
+	}
+
+	private UsuarioEmCache buscarUsuario(String email) {
+		Optional<Usuario> usuarioOptional = usuarioRepository.findByEmail(email);
+		return usuarioOptional.map(usuario -> new UsuarioEmCache(usuario.getSenha(),
+				usuario.getPermissoes().stream().map(p -> p.getDescricao()).collect(Collectors.toList())))
+				.orElse(null);
 	}
 
-	private Collection<? extends GrantedAuthority> getPermissoes(Usuario usuario) {
+	private Collection<? extends GrantedAuthority> getPermissoes(UsuarioEmCache usuario) {
 		Set<SimpleGrantedAuthority> authorities = new HashSet<>();
 
 		// Percorro as permissões do usuário, e para cada uma delas, eu adiciono no Set
 		// de authorities. A descrição da permissão é o ROLE_CADASTRAR_LANCAMENTO,
 		// ROLE_REMOVER_USUARIO. Assim, criamos o SimpleGrantedAuthority com essas
 		// permissões.
-		usuario.getPermissoes()
-				.forEach(p -> authorities.add(new SimpleGrantedAuthority(p.getDescricao().toUpperCase())));
+		usuario.permissoes.forEach(p -> authorities.add(new SimpleGrantedAuthority(p.toUpperCase())));
 
 		return authorities;
 	}
 
+	private static class UsuarioEmCache {
+
+		private final String senha;
+		private final List<String> permissoes;
+
+		UsuarioEmCache(String senha, List<String> permissoes) {
+			this.senha = senha;
+			this.permissoes = permissoes;
+		}
+
+	}
+
 }
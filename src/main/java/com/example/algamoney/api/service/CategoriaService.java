@@ -0,0 +1,89 @@
+package com.example.algamoney.api.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import com.example.algamoney.api.model.Categoria;
+import com.example.algamoney.api.repository.CategoriaRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * As categorias quase nunca mudam e são buscadas em toda página do front-end,
+ * então a lista fica em memória junto com o ETag dela. O cache é limpo quando
+ * uma categoria é salva por aqui, e expira sozinho depois de alguns minutos para
+ * pegar alterações feitas direto no banco ou em outra instância.
+ */
+@Service
+public class CategoriaService {
+
+	private static final String TODAS = "todas";
+
+	@Autowired
+	private CategoriaRepository categoriaRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private final Cache<String, ListaCategorias> cache = Caffeine.newBuilder().maximumSize(1)
+			.expireAfterWrite(10, TimeUnit.MINUTES).recordStats().build();
+
+	/**
+	 * Publica acertos e falhas do cache nas métricas (cache.gets, cache.puts...).
+	 */
+	@PostConstruct
+	public void registrarMetricas() {
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "categorias");
+	}
+
+	public ListaCategorias listar() {
+		return cache.get(TODAS, chave -> new ListaCategorias(categoriaRepository.findAll()));
+	}
+
+	public Categoria salvar(Categoria categoria) {
+		Categoria categoriaSalva = categoriaRepository.save(categoria);
+		cache.invalidateAll();
+		return categoriaSalva;
+	}
+
+	/**
+	 * A lista de categorias e o ETag calculado a partir dela, para não precisar
+	 * calcular de novo a cada requisição.
+	 */
+	public static class ListaCategorias {
+
+		private final List<Categoria> categorias;
+		private final String etag;
+
+		public ListaCategorias(List<Categoria> categorias) {
+			this.categorias = Collections.unmodifiableList(categorias);
+
+			StringBuilder conteudo = new StringBuilder();
+			for (Categoria categoria : categorias) {
+				conteudo.append(categoria.getCodigo()).append(':').append(categoria.getNome()).append('\n');
+			}
+			this.etag = DigestUtils.md5DigestAsHex(conteudo.toString().getBytes(StandardCharsets.UTF_8));
+		}
+
+		public List<Categoria> getCategorias() {
+			return categorias;
+		}
+
+		public String getEtag() {
+			return etag;
+		}
+
+	}
+
+}
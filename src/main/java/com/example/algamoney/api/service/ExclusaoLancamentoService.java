@@ -0,0 +1,100 @@
+package com.example.algamoney.api.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.algamoney.api.repository.LancamentoRepository;
+import com.example.algamoney.api.repository.filter.LancamentoFilter;
+import com.example.algamoney.api.service.exception.FiltroExclusaoVazioException;
+
+/**
+ * Exclusão de muitos lançamentos de uma vez, para desfazer uma importação
+ * errada, por exemplo. Cada lote de TAMANHO_LOTE códigos é removido com um
+ * único delete e na própria transação, em vez de um DELETE /lancamentos/{codigo}
+ * por lançamento, que ainda busca o lançamento (com pessoa e categoria) antes
+ * de remover. Os saldos mensais são acertados pelos triggers de lancamento a
+ * cada delete.
+ *
+ * Se um lote falhar, os lotes anteriores continuam excluídos.
+ */
+@Service
+public class ExclusaoLancamentoService {
+
+	private static final int TAMANHO_LOTE = 1_000;
+
+	@Autowired
+	private LancamentoRepository lancamentoRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	public ResultadoExclusao excluir(Collection<Long> codigos) {
+		long inicio = System.nanoTime();
+		ResultadoExclusao resultado = new ResultadoExclusao();
+
+		Set<Long> distintos = new LinkedHashSet<>(codigos);
+		distintos.remove(null);
+
+		List<Long> lote = new ArrayList<>(TAMANHO_LOTE);
+		for (Long codigo : distintos) {
+			lote.add(codigo);
+			if (lote.size() == TAMANHO_LOTE) {
+				resultado.adicionarExcluidos(excluirLote(lote));
+				lote.clear();
+			}
+		}
+		if (!lote.isEmpty()) {
+			resultado.adicionarExcluidos(excluirLote(lote));
+		}
+
+		resultado.concluir(System.nanoTime() - inicio);
+		return resultado;
+	}
+
+	/**
+	 * Exclui todos os lançamentos do filtro, em lotes pela ordem do código. Um
+	 * filtro vazio excluiria a tabela inteira, então não é aceito.
+	 */
+	public ResultadoExclusao excluir(LancamentoFilter lancamentoFilter) {
+		if (!lancamentoRepository.possuiRestricoes(lancamentoFilter)) {
+			throw new FiltroExclusaoVazioException();
+		}
+
+		long inicio = System.nanoTime();
+		ResultadoExclusao resultado = new ResultadoExclusao();
+
+		Long ultimoCodigo = null;
+		List<Long> lote;
+		do {
+			Long codigoMaiorQue = ultimoCodigo;
+			// A busca dos códigos fica na transação do delete, então é feita no primário,
+			// e não em uma réplica que pode estar atrasada.
+			lote = transactionTemplate.execute(status -> {
+				List<Long> encontrados = lancamentoRepository.codigos(lancamentoFilter, codigoMaiorQue,
+						TAMANHO_LOTE);
+				if (!encontrados.isEmpty()) {
+					resultado.adicionarExcluidos(lancamentoRepository.excluirPorCodigos(encontrados));
+				}
+				return encontrados;
+			});
+			if (!lote.isEmpty()) {
+				ultimoCodigo = lote.get(lote.size() - 1);
+			}
+		} while (lote.size() == TAMANHO_LOTE);
+
+		resultado.concluir(System.nanoTime() - inicio);
+		return resultado;
+	}
+
+	private int excluirLote(List<Long> lote) {
+		return transactionTemplate.execute(status -> lancamentoRepository.excluirPorCodigos(lote));
+	}
+
+}
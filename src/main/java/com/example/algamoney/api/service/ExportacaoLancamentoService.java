@@ -0,0 +1,119 @@
+package com.example.algamoney.api.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.algamoney.api.repository.LancamentoRepository;
+import com.example.algamoney.api.repository.filter.LancamentoFilter;
+import com.example.algamoney.api.repository.projection.ResumoLancamento;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Escreve os lançamentos direto na saída conforme vão sendo lidos do banco, sem
+ * montar a lista inteira em memória.
+ */
+@Service
+public class ExportacaoLancamentoService {
+
+	private static final String CABECALHO_CSV = "codigo,descricao,dataVencimento,dataPagamento,valor,tipo,categoria,pessoa";
+
+	@Autowired
+	private LancamentoRepository lancamentoRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * A transação precisa ficar aberta enquanto o Stream é percorrido, pois é nela
+	 * que o cursor do banco existe.
+	 */
+	@Transactional(readOnly = true)
+	public void exportar(LancamentoFilter lancamentoFilter, FormatoExportacao formato, Writer saida)
+			throws IOException {
+		try (Stream<ResumoLancamento> lancamentos = lancamentoRepository.exportar(lancamentoFilter)) {
+			if (formato == FormatoExportacao.NDJSON) {
+				escreverNdjson(lancamentos, saida);
+			} else {
+				escreverCsv(lancamentos, saida);
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		saida.flush();
+	}
+
+	private void escreverNdjson(Stream<ResumoLancamento> lancamentos, Writer saida) throws IOException {
+		// Sem o flush a cada objeto, quem decide quando enviar é o buffer da resposta.
+		ObjectWriter writer = objectMapper.writerFor(ResumoLancamento.class)
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		JsonGenerator gerador = objectMapper.getFactory().createGenerator(saida);
+		// Por padrão o Jackson separa os valores da raiz com espaço. Aqui o separador
+		// é a quebra de linha escrita depois de cada um.
+		gerador.setRootValueSeparator(null);
+
+		lancamentos.forEachOrdered(lancamento -> {
+			try {
+				writer.writeValue(gerador, lancamento);
+				gerador.writeRaw('\n');
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		gerador.flush();
+	}
+
+	private void escreverCsv(Stream<ResumoLancamento> lancamentos, Writer saida) throws IOException {
+		saida.write(CABECALHO_CSV);
+		saida.write("\r\n");
+
+		lancamentos.forEachOrdered(lancamento -> {
+			try {
+				saida.write(String.valueOf(lancamento.getCodigo()));
+				saida.write(',');
+				saida.write(campoCsv(lancamento.getDescricao()));
+				saida.write(',');
+				saida.write(campoCsv(lancamento.getDataVencimento()));
+				saida.write(',');
+				saida.write(campoCsv(lancamento.getDataPagamento()));
+				saida.write(',');
+				saida.write(lancamento.getValor().toPlainString());
+				saida.write(',');
+				saida.write(campoCsv(lancamento.getTipo()));
+				saida.write(',');
+				saida.write(campoCsv(lancamento.getCategoria()));
+				saida.write(',');
+				saida.write(campoCsv(lancamento.getPessoa()));
+				saida.write("\r\n");
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	/**
+	 * Conforme a RFC 4180, o campo que tem vírgula, aspas ou quebra de linha vai
+	 * entre aspas, e as aspas dentro dele são duplicadas.
+	 */
+	private String campoCsv(Object valor) {
+		if (valor == null) {
+			return "";
+		}
+
+		String texto = valor.toString();
+		if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0
+				&& texto.indexOf('\r') < 0) {
+			return texto;
+		}
+		return '"' + texto.replace("\"", "\"\"") + '"';
+	}
+
+}
@@ -0,0 +1,28 @@
+package com.example.algamoney.api.service;
+
+public enum FormatoExportacao {
+
+	CSV("text/csv", "csv"),
+
+	/**
+	 * Um JSON por linha (newline delimited JSON).
+	 */
+	NDJSON("application/x-ndjson", "ndjson");
+
+	private final String contentType;
+	private final String extensao;
+
+	private FormatoExportacao(String contentType, String extensao) {
+		this.contentType = contentType;
+		this.extensao = extensao;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public String getExtensao() {
+		return extensao;
+	}
+
+}
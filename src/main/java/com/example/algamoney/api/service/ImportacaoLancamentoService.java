@@ -0,0 +1,386 @@
+package com.example.algamoney.api.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.validation.Validator;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+import com.example.algamoney.api.model.Categoria;
+import com.example.algamoney.api.model.Lancamento;
+import com.example.algamoney.api.model.Pessoa;
+import com.example.algamoney.api.model.TipoLancamento;
+import com.example.algamoney.api.repository.CategoriaRepository;
+import com.example.algamoney.api.repository.PessoaRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Importação de muitos lançamentos de uma vez. A entrada é lida aos poucos e
+ * gravada em lotes de TAMANHO_LOTE linhas: cada lote consulta as pessoas e
+ * categorias em uma consulta só e é inserido com um único batch do JDBC, em vez
+ * de um POST, uma busca da pessoa e um commit por lançamento.
+ */
+@Service
+public class ImportacaoLancamentoService {
+
+	private static final int TAMANHO_LOTE = 1_000;
+
+	private static final String INSERIR_LANCAMENTO = "insert into lancamento (descricao, data_vencimento, "
+			+ "data_pagamento, valor, observacao, tipo, codigo_categoria, codigo_pessoa) "
+			+ "values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final List<String> COLUNAS_CSV = Arrays.asList("descricao", "dataVencimento", "dataPagamento",
+			"valor", "observacao", "tipo", "codigoCategoria", "codigoPessoa");
+
+	@Autowired
+	private PessoaRepository pessoaRepository;
+
+	@Autowired
+	private CategoriaRepository categoriaRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private MessageSource messageSource;
+
+	private SpringValidatorAdapter validator;
+
+	/**
+	 * Usa o mesmo validador do Spring MVC, pelo adaptador, para as mensagens dos
+	 * campos saírem do messages.properties igual no POST /lancamentos.
+	 */
+	@Autowired
+	public void setValidator(Validator validator) {
+		this.validator = new SpringValidatorAdapter(validator);
+	}
+
+	/**
+	 * Lê um array JSON de lançamentos, no mesmo formato do POST /lancamentos, um
+	 * elemento por vez.
+	 */
+	public ResultadoImportacao importarJson(InputStream entrada) throws IOException {
+		Importacao importacao = new Importacao();
+		long linha = 0;
+
+		try (JsonParser parser = objectMapper.getFactory().createParser(entrada)) {
+			if (parser.nextToken() != JsonToken.START_ARRAY) {
+				importacao.rejeitar(linha, "mensagem.invalida", "O conteúdo deve ser um array JSON");
+				return importacao.concluir();
+			}
+
+			JsonToken token;
+			while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+				linha++;
+				// Lê o elemento inteiro antes de converter. Assim, um elemento que não
+				// converte não deixa o parser no meio do objeto, e os próximos continuam.
+				JsonNode elemento = parser.readValueAsTree();
+				try {
+					importacao.adicionar(linha, objectMapper.treeToValue(elemento, Lancamento.class));
+				} catch (JsonProcessingException e) {
+					importacao.rejeitar(linha, "mensagem.invalida", e.getOriginalMessage());
+				}
+			}
+		} catch (JsonProcessingException e) {
+			// JSON malformado: não tem como continuar lendo, mas o que veio antes é
+			// gravado.
+			importacao.rejeitar(linha + 1, "mensagem.invalida", e.getOriginalMessage());
+		}
+
+		return importacao.concluir();
+	}
+
+	/**
+	 * Lê um CSV (RFC 4180) com cabeçalho. As colunas são descricao,
+	 * dataVencimento, dataPagamento, valor, observacao, tipo, codigoCategoria e
+	 * codigoPessoa, em qualquer ordem, e as datas no formato yyyy-MM-dd.
+	 */
+	public ResultadoImportacao importarCsv(Reader entrada) throws IOException {
+		Importacao importacao = new Importacao();
+
+		List<String> cabecalho = lerRegistroCsv(entrada);
+		if (cabecalho == null || !COLUNAS_CSV.containsAll(cabecalho)) {
+			importacao.rejeitar(0, "mensagem.invalida", "Cabeçalho deve conter apenas as colunas " + COLUNAS_CSV);
+			return importacao.concluir();
+		}
+
+		long linha = 0;
+		List<String> registro;
+		while ((registro = lerRegistroCsv(entrada)) != null) {
+			linha++;
+			if (registro.size() == 1 && registro.get(0).isEmpty()) {
+				continue;
+			}
+			if (registro.size() != cabecalho.size()) {
+				importacao.rejeitar(linha, "mensagem.invalida",
+						"Esperadas " + cabecalho.size() + " colunas, encontradas " + registro.size());
+				continue;
+			}
+
+			try {
+				importacao.adicionar(linha, converterRegistroCsv(cabecalho, registro));
+			} catch (RuntimeException e) {
+				importacao.rejeitar(linha, "mensagem.invalida", e.toString());
+			}
+		}
+
+		return importacao.concluir();
+	}
+
+	private Lancamento converterRegistroCsv(List<String> cabecalho, List<String> registro) {
+		Lancamento lancamento = new Lancamento();
+		for (int i = 0; i < cabecalho.size(); i++) {
+			String valor = registro.get(i).isEmpty() ? null : registro.get(i);
+			if (valor == null) {
+				continue;
+			}
+
+			switch (cabecalho.get(i)) {
+			case "descricao":
+				lancamento.setDescricao(valor);
+				break;
+			case "dataVencimento":
+				lancamento.setDataVencimento(LocalDate.parse(valor));
+				break;
+			case "dataPagamento":
+				lancamento.setDataPagamento(LocalDate.parse(valor));
+				break;
+			case "valor":
+				lancamento.setValor(new BigDecimal(valor));
+				break;
+			case "observacao":
+				lancamento.setObservacao(valor);
+				break;
+			case "tipo":
+				lancamento.setTipo(TipoLancamento.valueOf(valor));
+				break;
+			case "codigoCategoria":
+				Categoria categoria = new Categoria();
+				categoria.setCodigo(Long.valueOf(valor));
+				lancamento.setCategoria(categoria);
+				break;
+			case "codigoPessoa":
+				Pessoa pessoa = new Pessoa();
+				pessoa.setCodigo(Long.valueOf(valor));
+				lancamento.setPessoa(pessoa);
+				break;
+			default:
+				break;
+			}
+		}
+		return lancamento;
+	}
+
+	/**
+	 * Lê um registro do CSV, que pode ocupar mais de uma linha quando um campo
+	 * entre aspas tem quebra de linha. Retorna null no fim da entrada.
+	 */
+	private List<String> lerRegistroCsv(Reader entrada) throws IOException {
+		int c = entrada.read();
+		if (c == -1) {
+			return null;
+		}
+
+		List<String> campos = new ArrayList<>();
+		StringBuilder campo = new StringBuilder();
+		boolean entreAspas = false;
+		while (c != -1) {
+			if (entreAspas) {
+				if (c == '"') {
+					int proximo = entrada.read();
+					if (proximo != '"') {
+						// Fechou as aspas. O caractere seguinte é tratado fora delas.
+						entreAspas = false;
+						c = proximo;
+						continue;
+					}
+				}
+				campo.append((char) c);
+			} else if (c == '"') {
+				entreAspas = true;
+			} else if (c == ',') {
+				campos.add(campo.toString());
+				campo.setLength(0);
+			} else if (c == '\n') {
+				break;
+			} else if (c != '\r') {
+				campo.append((char) c);
+			}
+			c = entrada.read();
+		}
+		campos.add(campo.toString());
+		return campos;
+	}
+
+	private void preencher(PreparedStatement ps, Lancamento lancamento) throws SQLException {
+		ps.setString(1, lancamento.getDescricao());
+		ps.setObject(2, lancamento.getDataVencimento());
+		if (lancamento.getDataPagamento() != null) {
+			ps.setObject(3, lancamento.getDataPagamento());
+		} else {
+			ps.setNull(3, Types.DATE);
+		}
+		ps.setBigDecimal(4, lancamento.getValor());
+		ps.setString(5, lancamento.getObservacao());
+		ps.setString(6, lancamento.getTipo().name());
+		ps.setLong(7, lancamento.getCategoria().getCodigo());
+		ps.setLong(8, lancamento.getPessoa().getCodigo());
+	}
+
+	private String mensagem(String codigo) {
+		return messageSource.getMessage(codigo, null, LocaleContextHolder.getLocale());
+	}
+
+	private static class LinhaImportacao {
+
+		private final long numero;
+		private final Lancamento lancamento;
+
+		LinhaImportacao(long numero, Lancamento lancamento) {
+			this.numero = numero;
+			this.lancamento = lancamento;
+		}
+
+	}
+
+	/**
+	 * Estado de uma importação: o lote que está sendo montado e o resultado até
+	 * agora.
+	 */
+	private class Importacao {
+
+		private final long inicio = System.nanoTime();
+		private final List<LinhaImportacao> lote = new ArrayList<>(TAMANHO_LOTE);
+		private final ResultadoImportacao resultado = new ResultadoImportacao();
+
+		void adicionar(long numero, Lancamento lancamento) {
+			lote.add(new LinhaImportacao(numero, lancamento));
+			if (lote.size() == TAMANHO_LOTE) {
+				gravarLote();
+			}
+		}
+
+		void rejeitar(long numero, String codigoMensagem, String mensagemDesenvolvedor) {
+			resultado.rejeitar(numero, mensagem(codigoMensagem), mensagemDesenvolvedor);
+		}
+
+		ResultadoImportacao concluir() {
+			gravarLote();
+			resultado.concluir(System.nanoTime() - inicio);
+			return resultado;
+		}
+
+		private void gravarLote() {
+			List<LinhaImportacao> validas = validar(lote);
+			lote.clear();
+			if (validas.isEmpty()) {
+				return;
+			}
+
+			try {
+				transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERIR_LANCAMENTO, validas,
+						validas.size(), (ps, linha) -> preencher(ps, linha.lancamento)));
+				resultado.adicionarImportados(validas.size());
+			} catch (DataAccessException e) {
+				// Um erro desfaz o lote inteiro. Para saber qual linha deu problema, as
+				// linhas desse lote são gravadas de novo uma a uma.
+				for (LinhaImportacao linha : validas) {
+					try {
+						jdbcTemplate.update(INSERIR_LANCAMENTO, ps -> preencher(ps, linha.lancamento));
+						resultado.adicionarImportados(1);
+					} catch (DataAccessException ex) {
+						resultado.rejeitar(linha.numero, mensagem("recurso.operacao-nao-permitida"),
+								ExceptionUtils.getRootCauseMessage(ex));
+					}
+				}
+			}
+		}
+
+		/**
+		 * Valida os campos de cada linha e confere as pessoas e categorias do lote
+		 * inteiro com uma consulta para cada.
+		 */
+		private List<LinhaImportacao> validar(List<LinhaImportacao> linhas) {
+			Set<Long> codigosPessoa = new HashSet<>();
+			Set<Long> codigosCategoria = new HashSet<>();
+			List<LinhaImportacao> camposValidos = new ArrayList<>(linhas.size());
+
+			for (LinhaImportacao linha : linhas) {
+				BeanPropertyBindingResult erros = new BeanPropertyBindingResult(linha.lancamento, "lancamento");
+				validator.validate(linha.lancamento, erros);
+				if (erros.hasErrors()) {
+					List<FieldError> errosDosCampos = erros.getFieldErrors();
+					for (int i = 0; i < errosDosCampos.size(); i++) {
+						FieldError erro = errosDosCampos.get(i);
+						String mensagemUsuario = messageSource.getMessage(erro, LocaleContextHolder.getLocale());
+						if (i == 0) {
+							resultado.rejeitar(linha.numero, mensagemUsuario, erro.toString());
+						} else {
+							resultado.adicionarErro(linha.numero, mensagemUsuario, erro.toString());
+						}
+					}
+					continue;
+				}
+
+				codigosPessoa.add(linha.lancamento.getPessoa().getCodigo());
+				codigosCategoria.add(linha.lancamento.getCategoria().getCodigo());
+				camposValidos.add(linha);
+			}
+			codigosPessoa.remove(null);
+			codigosCategoria.remove(null);
+
+			Set<Long> pessoasAtivas = codigosPessoa.isEmpty() ? codigosPessoa
+					: new HashSet<>(pessoaRepository.buscarCodigosAtivos(codigosPessoa));
+			Set<Long> categoriasExistentes = codigosCategoria.isEmpty() ? codigosCategoria
+					: new HashSet<>(categoriaRepository.buscarCodigosExistentes(codigosCategoria));
+
+			List<LinhaImportacao> validas = new ArrayList<>(camposValidos.size());
+			for (LinhaImportacao linha : camposValidos) {
+				if (!pessoasAtivas.contains(linha.lancamento.getPessoa().getCodigo())) {
+					rejeitar(linha.numero, "pessoa.inexistente-ou-inativa",
+							"codigoPessoa=" + linha.lancamento.getPessoa().getCodigo());
+				} else if (!categoriasExistentes.contains(linha.lancamento.getCategoria().getCodigo())) {
+					rejeitar(linha.numero, "categoria.inexistente",
+							"codigoCategoria=" + linha.lancamento.getCategoria().getCodigo());
+				} else {
+					validas.add(linha);
+				}
+			}
+			return validas;
+		}
+
+	}
+
+}
@@ -1,32 +1,30 @@
 package com.example.algamoney.api.service;
 
-import java.util.Optional;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.algamoney.api.model.Lancamento;
-import com.example.algamoney.api.model.Pessoa;
 import com.example.algamoney.api.repository.LancamentoRepository;
-import com.example.algamoney.api.repository.PessoaRepository;
 import com.example.algamoney.api.service.exception.PessoaInexistenteOuInativaException;
 
 @Service
 public class LancamentoService {
 
 	@Autowired
-	private PessoaRepository pessoaRepository;
+	private PessoaService pessoaService;
 
 	@Autowired
 	private LancamentoRepository lancamentoRepository;
 
+	/**
+	 * Na mesma transação da gravação, a pessoa é conferida no primário. Assim uma
+	 * pessoa recém cadastrada já é encontrada, mesmo com a réplica atrasada.
+	 */
+	@Transactional
 	public Lancamento salvar(Lancamento lancamento) {
-		Optional<Pessoa> pessoaOptional = pessoaRepository.findById(lancamento.getPessoa().getCodigo());
-		Pessoa pessoa = null;
-		if (pessoaOptional.isPresent()) {
-			pessoa = pessoaOptional.get();
-		}
-		if (pessoa == null || pessoa.isInativo()) {
+		// Só precisa saber se a pessoa existe e está ativa, não precisa carregar ela.
+		if (!pessoaService.isAtiva(lancamento.getPessoa().getCodigo())) {
 			throw new PessoaInexistenteOuInativaException();
 		}
 		return lancamentoRepository.save(lancamento);
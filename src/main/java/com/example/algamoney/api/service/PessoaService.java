@@ -1,12 +1,26 @@
 package com.example.algamoney.api.service;
 
-import org.springframework.beans.BeanUtils;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.example.algamoney.api.model.Endereco;
 import com.example.algamoney.api.model.Pessoa;
 import com.example.algamoney.api.repository.PessoaRepository;
+import com.example.algamoney.api.service.exception.AlteracaoPessoaInvalidaException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 @Service
 public class PessoaService {
@@ -14,23 +28,115 @@ public class PessoaService {
 	@Autowired
 	private PessoaRepository pessoaRepository;
 
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Códigos das pessoas que já sabemos que estão ativas. Só as ativas ficam aqui,
+	 * então uma pessoa que não está no cache é sempre consultada no banco. Toda
+	 * alteração feita por este service remove a pessoa do cache, e a expiração
+	 * cobre o que for alterado fora dele.
+	 */
+	private final Cache<Long, Boolean> pessoasAtivas = Caffeine.newBuilder().maximumSize(10_000)
+			.expireAfterWrite(60, TimeUnit.SECONDS).build();
+
+	/**
+	 * Grava todas as colunas com um update só, sem buscar a pessoa antes. A pessoa
+	 * recebida já tem todos os dados, então é ela mesma que volta na resposta.
+	 */
+	@Transactional
 	public Pessoa atualizar(Long codigo, Pessoa pessoa) {
-		Pessoa pessoaSalva = buscarPessoaPeloCodigo(codigo);
+		Map<String, Object> valores = new LinkedHashMap<>();
+		valores.put("nome", pessoa.getNome());
+		valores.put("ativo", pessoa.getAtivo());
+		valores.putAll(valoresDoEndereco(pessoa.getEndereco()));
+		atualizar(codigo, valores);
+
+		pessoa.setCodigo(codigo);
+		return pessoa;
+	}
+
+	/**
+	 * Altera só as propriedades presentes no JSON, no mesmo formato do PUT. O
+	 * endereco pode vir com só alguns campos, e os que vierem null são apagados.
+	 * Ele inteiro null apaga o endereço todo. O nome e o ativo não podem ser null.
+	 */
+	@Transactional
+	public void atualizarParcialmente(Long codigo, JsonNode alteracoes) {
+		Pessoa pessoa;
+		try {
+			// Converte pelo Jackson para os tipos e as propriedades desconhecidas serem
+			// tratados igual no PUT. Do resultado só são usadas as propriedades enviadas.
+			pessoa = objectMapper.treeToValue(alteracoes, Pessoa.class);
+		} catch (JsonProcessingException e) {
+			throw new AlteracaoPessoaInvalidaException(e.getOriginalMessage());
+		}
+		if (pessoa == null || !alteracoes.isObject()) {
+			throw new AlteracaoPessoaInvalidaException("O conteúdo deve ser um objeto JSON");
+		}
 
-		// Copia as propriedades de um objeto para outro. Eu passo a origem, o destino e
-		// uma lista de propriedades para ignorar. Então copio os dados do objeto
-		// pessoa, que estou recebendo do usuário, com os dados que devem ser
-		// atualizados e copio para o objeto que veio do banco de dados, exceto o
-		// codigo.
-		BeanUtils.copyProperties(pessoa, pessoaSalva, "codigo");
+		Map<String, Object> valores = new LinkedHashMap<>();
+		Iterator<String> propriedades = alteracoes.fieldNames();
+		while (propriedades.hasNext()) {
+			String propriedade = propriedades.next();
+			switch (propriedade) {
+			case "nome":
+				valores.put("nome", obrigatorio(propriedade, pessoa.getNome()));
+				break;
+			case "ativo":
+				valores.put("ativo", obrigatorio(propriedade, pessoa.getAtivo()));
+				break;
+			case "endereco":
+				Map<String, Object> endereco = valoresDoEndereco(pessoa.getEndereco());
+				if (pessoa.getEndereco() == null) {
+					valores.putAll(endereco);
+				} else {
+					alteracoes.get(propriedade).fieldNames().forEachRemaining(
+							campo -> valores.put("endereco." + campo, endereco.get("endereco." + campo)));
+				}
+				break;
+			default:
+				throw new AlteracaoPessoaInvalidaException("Propriedade não pode ser alterada: " + propriedade);
+			}
+		}
 
-		return this.pessoaRepository.save(pessoaSalva);
+		if (valores.isEmpty()) {
+			buscarPessoaPeloCodigo(codigo);
+			return;
+		}
+		atualizar(codigo, valores);
 	}
 
+	@Transactional
 	public void atualizarPropriedadeAtivo(Long codigo, Boolean ativo) {
-		Pessoa pessoaSalva = buscarPessoaPeloCodigo(codigo);
-		pessoaSalva.setAtivo(ativo);
-		pessoaRepository.save(pessoaSalva);
+		if (pessoaRepository.atualizarAtivo(codigo, ativo) == 0) {
+			throw new EmptyResultDataAccessException(1);
+		}
+		removerDasAtivas(codigo);
+	}
+
+	public void remover(Long codigo) {
+		pessoaRepository.deleteById(codigo);
+		removerDasAtivas(codigo);
+	}
+
+	/**
+	 * Usado antes de gravar um lançamento, que só precisa saber se a pessoa existe
+	 * e está ativa.
+	 */
+	public boolean isAtiva(Long codigo) {
+		if (codigo == null) {
+			return false;
+		}
+		if (pessoasAtivas.getIfPresent(codigo) != null) {
+			return true;
+		}
+
+		boolean ativa = pessoaRepository.existsByCodigoAndAtivoTrue(codigo);
+		if (ativa) {
+			pessoasAtivas.put(codigo, Boolean.TRUE);
+		}
+		return ativa;
 	}
 
 	public Pessoa buscarPessoaPeloCodigo(Long codigo) {
@@ -41,4 +147,50 @@ public class PessoaService {
 		return pessoaSalva;
 	}
 
+	private void atualizar(Long codigo, Map<String, Object> valores) {
+		if (pessoaRepository.atualizar(codigo, valores) == 0) {
+			// Nenhuma linha alterada: o código não existe, então retorna 404.
+			throw new EmptyResultDataAccessException(1);
+		}
+		removerDasAtivas(codigo);
+	}
+
+	/**
+	 * Dentro de uma transação, a pessoa só sai do cache depois do commit. Se saísse
+	 * antes, um isAtiva de outra requisição ainda leria o valor antigo do banco e
+	 * colocaria a pessoa de volta, e ela ficaria como ativa até o cache expirar.
+	 */
+	private void removerDasAtivas(Long codigo) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			pessoasAtivas.invalidate(codigo);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				pessoasAtivas.invalidate(codigo);
+			}
+		});
+	}
+
+	private Map<String, Object> valoresDoEndereco(Endereco endereco) {
+		Endereco valores = endereco != null ? endereco : new Endereco();
+		Map<String, Object> colunas = new LinkedHashMap<>();
+		colunas.put("endereco.logradouro", valores.getLogradouro());
+		colunas.put("endereco.numero", valores.getNumero());
+		colunas.put("endereco.complemento", valores.getComplemento());
+		colunas.put("endereco.bairro", valores.getBairro());
+		colunas.put("endereco.cep", valores.getCep());
+		colunas.put("endereco.cidade", valores.getCidade());
+		colunas.put("endereco.estado", valores.getEstado());
+		return colunas;
+	}
+
+	private Object obrigatorio(String propriedade, Object valor) {
+		if (valor == null) {
+			throw new AlteracaoPessoaInvalidaException("Propriedade não pode ser null: " + propriedade);
+		}
+		return valor;
+	}
+
 }
@@ -0,0 +1,29 @@
+package com.example.algamoney.api.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resumo de uma exclusão de lançamentos em lote.
+ */
+public class ResultadoExclusao {
+
+	private long excluidos;
+	private long duracaoEmMilissegundos;
+
+	void adicionarExcluidos(int quantidade) {
+		excluidos += quantidade;
+	}
+
+	void concluir(long duracaoEmNanossegundos) {
+		duracaoEmMilissegundos = TimeUnit.NANOSECONDS.toMillis(duracaoEmNanossegundos);
+	}
+
+	public long getExcluidos() {
+		return excluidos;
+	}
+
+	public long getDuracaoEmMilissegundos() {
+		return duracaoEmMilissegundos;
+	}
+
+}
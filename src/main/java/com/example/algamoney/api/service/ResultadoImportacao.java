@@ -0,0 +1,100 @@
+package com.example.algamoney.api.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resumo de uma importação de lançamentos. As linhas rejeitadas não impedem a
+ * gravação das outras, elas só são listadas aqui com o motivo.
+ */
+public class ResultadoImportacao {
+
+	/**
+	 * Uma importação com muitos erros listaria todas as linhas de volta na
+	 * resposta. Acima desse limite só o contador de rejeitados aumenta.
+	 */
+	private static final int MAXIMO_ERROS_DETALHADOS = 1_000;
+
+	private long importados;
+	private long rejeitados;
+	private long duracaoEmMilissegundos;
+	private long linhasPorSegundo;
+	private List<Erro> erros = new ArrayList<>();
+
+	void adicionarImportados(int quantidade) {
+		importados += quantidade;
+	}
+
+	void rejeitar(long linha, String mensagemUsuario, String mensagemDesenvolvedor) {
+		rejeitados++;
+		adicionarErro(linha, mensagemUsuario, mensagemDesenvolvedor);
+	}
+
+	/**
+	 * Mais um erro de uma linha que já foi rejeitada.
+	 */
+	void adicionarErro(long linha, String mensagemUsuario, String mensagemDesenvolvedor) {
+		if (erros.size() < MAXIMO_ERROS_DETALHADOS) {
+			erros.add(new Erro(linha, mensagemUsuario, mensagemDesenvolvedor));
+		}
+	}
+
+	void concluir(long duracaoEmNanossegundos) {
+		duracaoEmMilissegundos = TimeUnit.NANOSECONDS.toMillis(duracaoEmNanossegundos);
+		if (duracaoEmNanossegundos > 0) {
+			linhasPorSegundo = importados * TimeUnit.SECONDS.toNanos(1) / duracaoEmNanossegundos;
+		}
+	}
+
+	public long getImportados() {
+		return importados;
+	}
+
+	public long getRejeitados() {
+		return rejeitados;
+	}
+
+	public long getDuracaoEmMilissegundos() {
+		return duracaoEmMilissegundos;
+	}
+
+	public long getLinhasPorSegundo() {
+		return linhasPorSegundo;
+	}
+
+	public List<Erro> getErros() {
+		return erros;
+	}
+
+	/**
+	 * Mesmo formato do erro do AlgamoneyExceptionHandler, com o número da linha
+	 * (ou do elemento do array JSON) que foi rejeitada.
+	 */
+	public static class Erro {
+
+		private long linha;
+		private String mensagemUsuario;
+		private String mensagemDesenvolvedor;
+
+		public Erro(long linha, String mensagemUsuario, String mensagemDesenvolvedor) {
+			this.linha = linha;
+			this.mensagemUsuario = mensagemUsuario;
+			this.mensagemDesenvolvedor = mensagemDesenvolvedor;
+		}
+
+		public long getLinha() {
+			return linha;
+		}
+
+		public String getMensagemUsuario() {
+			return mensagemUsuario;
+		}
+
+		public String getMensagemDesenvolvedor() {
+			return mensagemDesenvolvedor;
+		}
+
+	}
+
+}
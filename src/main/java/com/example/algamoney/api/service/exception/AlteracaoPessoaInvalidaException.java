@@ -0,0 +1,11 @@
+package com.example.algamoney.api.service.exception;
+
+public class AlteracaoPessoaInvalidaException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public AlteracaoPessoaInvalidaException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,7 @@
+package com.example.algamoney.api.service.exception;
+
+public class FiltroExclusaoVazioException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+}
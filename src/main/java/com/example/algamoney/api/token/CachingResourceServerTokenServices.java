@@ -0,0 +1,199 @@
+package com.example.algamoney.api.token;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.ClientDetailsService;
+import org.springframework.security.oauth2.provider.ClientRegistrationException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+import org.springframework.security.oauth2.provider.token.TokenStore;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Validar um JWT a cada requisição significa decodificar o base64, conferir a
+ * assinatura, ler o JSON das claims e montar de novo a OAuth2Authentication,
+ * sempre para o mesmo token durante os 30 minutos em que ele vale. Essa classe
+ * guarda a autenticação já validada, e só lê o token no TokenStore na primeira
+ * vez que vê o token.
+ *
+ * Essa primeira leitura faz as mesmas verificações do DefaultTokenServices
+ * (token válido, não expirado e de um cliente cadastrado), mas lê o token uma
+ * vez só. O DefaultTokenServices lia o token no loadAuthentication e de novo no
+ * readAccessToken, para pegar o jti e a expiração, conferindo a assinatura duas
+ * vezes.
+ *
+ * A chave do cache é o SHA-256 do token, para não manter os tokens em memória,
+ * e cada item expira junto com o token, nunca depois. Como o token pode ser
+ * revogado antes disso, o jti e a sessao dele são conferidos nos
+ * TokensRevogados em toda requisição, inclusive quando a autenticação vem do
+ * cache.
+ */
+public class CachingResourceServerTokenServices implements ResourceServerTokenServices, MeterBinder {
+
+	private final TokenStore tokenStore;
+
+	private final ClientDetailsService clientDetailsService;
+
+	private final Cache<String, AutenticacaoEmCache> autenticacoes;
+
+	private final TokensRevogados tokensRevogados;
+
+	public CachingResourceServerTokenServices(TokenStore tokenStore, ClientDetailsService clientDetailsService,
+			long tamanhoMaximo, TokensRevogados tokensRevogados) {
+		this.tokenStore = tokenStore;
+		this.clientDetailsService = clientDetailsService;
+		this.tokensRevogados = tokensRevogados;
+		this.autenticacoes = Caffeine.newBuilder().maximumSize(tamanhoMaximo).expireAfter(new ExpiraComOToken())
+				.recordStats().build();
+	}
+
+	/**
+	 * Publica acertos, falhas e remoções do cache nas métricas com o nome tokens.
+	 */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, autenticacoes, "tokens");
+	}
+
+	@Override
+	public OAuth2Authentication loadAuthentication(String accessToken)
+			throws AuthenticationException, InvalidTokenException {
+		String chave = resumo(accessToken);
+
+		AutenticacaoEmCache emCache = autenticacoes.getIfPresent(chave);
+		if (emCache != null) {
+			if (isRevogado(emCache.jti, emCache.sessao)) {
+				autenticacoes.invalidate(chave);
+				throw new InvalidTokenException("Token revogado");
+			}
+			return copiar(emCache.autenticacao);
+		}
+
+		// Se o token for inválido, estiver expirado ou revogado, a exceção sobe daqui e
+		// nada vai para o cache.
+		OAuth2AccessToken token = tokenStore.readAccessToken(accessToken);
+		if (token == null) {
+			throw new InvalidTokenException("Invalid access token: " + accessToken);
+		}
+		if (token.isExpired()) {
+			throw new InvalidTokenException("Access token expired: " + accessToken);
+		}
+
+		String jti = (String) token.getAdditionalInformation().get(AccessTokenConverter.JTI);
+		String sessao = (String) token.getAdditionalInformation().get(SessaoTokenEnhancer.SESSAO);
+		if (isRevogado(jti, sessao)) {
+			throw new InvalidTokenException("Token revogado");
+		}
+
+		OAuth2Authentication autenticacao = tokenStore.readAuthentication(token);
+		if (autenticacao == null) {
+			throw new InvalidTokenException("Invalid access token: " + accessToken);
+		}
+		conferirCliente(autenticacao.getOAuth2Request().getClientId());
+
+		Date expiracao = token.getExpiration();
+		if (expiracao != null && expiracao.getTime() > System.currentTimeMillis()) {
+			autenticacoes.put(chave, new AutenticacaoEmCache(autenticacao, jti, sessao, expiracao.getTime()));
+		}
+		return copiar(autenticacao);
+	}
+
+	private boolean isRevogado(String jti, String sessao) {
+		return tokensRevogados.isRevogado(jti) || tokensRevogados.isRevogado(sessao);
+	}
+
+	@Override
+	public OAuth2AccessToken readAccessToken(String accessToken) {
+		return tokenStore.readAccessToken(accessToken);
+	}
+
+	/**
+	 * Um token de um cliente que foi removido deixa de valer, como no
+	 * DefaultTokenServices.
+	 */
+	private void conferirCliente(String clientId) {
+		try {
+			clientDetailsService.loadClientByClientId(clientId);
+		} catch (ClientRegistrationException e) {
+			throw new InvalidTokenException("Client not valid: " + clientId, e);
+		}
+	}
+
+	/**
+	 * Quem recebe a autenticação altera ela (o OAuth2AuthenticationManager seta os
+	 * detalhes da requisição), então cada requisição recebe uma cópia e a que está
+	 * no cache nunca é compartilhada.
+	 */
+	private OAuth2Authentication copiar(OAuth2Authentication autenticacao) {
+		return new OAuth2Authentication(autenticacao.getOAuth2Request(), autenticacao.getUserAuthentication());
+	}
+
+	private String resumo(String accessToken) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(accessToken.getBytes(StandardCharsets.UTF_8));
+			return Base64.getEncoder().encodeToString(hash);
+		} catch (NoSuchAlgorithmException e) {
+			// Toda JVM é obrigada a ter SHA-256.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static class AutenticacaoEmCache {
+
+		private final OAuth2Authentication autenticacao;
+		private final String jti;
+		private final String sessao;
+		private final long expiracaoEmMilissegundos;
+
+		AutenticacaoEmCache(OAuth2Authentication autenticacao, String jti, String sessao,
+				long expiracaoEmMilissegundos) {
+			this.autenticacao = autenticacao;
+			this.jti = jti;
+			this.sessao = sessao;
+			this.expiracaoEmMilissegundos = expiracaoEmMilissegundos;
+		}
+
+	}
+
+	/**
+	 * Cada item do cache vive só até a expiração do próprio token. Ler ou
+	 * atualizar o item não muda esse prazo.
+	 */
+	private static class ExpiraComOToken implements Expiry<String, AutenticacaoEmCache> {
+
+		@Override
+		public long expireAfterCreate(String chave, AutenticacaoEmCache valor, long tempoAtual) {
+			long restante = valor.expiracaoEmMilissegundos - System.currentTimeMillis();
+			return TimeUnit.MILLISECONDS.toNanos(Math.max(restante, 0));
+		}
+
+		@Override
+		public long expireAfterUpdate(String chave, AutenticacaoEmCache valor, long tempoAtual,
+				long duracaoAtual) {
+			return expireAfterCreate(chave, valor, tempoAtual);
+		}
+
+		@Override
+		public long expireAfterRead(String chave, AutenticacaoEmCache valor, long tempoAtual, long duracaoAtual) {
+			return duracaoAtual;
+		}
+
+	}
+
+}
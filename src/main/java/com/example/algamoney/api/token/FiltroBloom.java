@@ -0,0 +1,86 @@
+package com.example.algamoney.api.token;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom sobre um vetor de bits. Responde "com certeza não está" ou
+ * "talvez esteja": nunca dá falso negativo, e a taxa de falso positivo fica
+ * perto da pedida enquanto não passar da capacidade.
+ *
+ * Os índices saem de um único hash de 64 bits, cortado em duas metades e
+ * combinado como h1 + i * h2 (Kirsch e Mitzenmacher), em vez de calcular um
+ * hash para cada função.
+ */
+final class FiltroBloom {
+
+	private final AtomicLongArray palavras;
+
+	private final long bits;
+
+	private final int funcoes;
+
+	private final int capacidade;
+
+	FiltroBloom(int capacidade, double taxaFalsoPositivo) {
+		double ln2 = Math.log(2);
+		long bitsNecessarios = (long) Math.ceil(-capacidade * Math.log(taxaFalsoPositivo) / (ln2 * ln2));
+
+		this.palavras = new AtomicLongArray((int) Math.max(1, (bitsNecessarios + 63) / 64));
+		this.bits = palavras.length() * 64L;
+		this.funcoes = (int) Math.max(1, Math.round((double) bits / capacidade * ln2));
+		this.capacidade = capacidade;
+	}
+
+	int getCapacidade() {
+		return capacidade;
+	}
+
+	void adicionar(String valor) {
+		long hash = hash(valor);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+
+		for (int i = 0; i < funcoes; i++) {
+			long bit = indice(h1 + i * h2);
+			long mascara = 1L << bit;
+			palavras.accumulateAndGet((int) (bit >>> 6), mascara, (atual, m) -> atual | m);
+		}
+	}
+
+	boolean talvezContenha(String valor) {
+		long hash = hash(valor);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+
+		for (int i = 0; i < funcoes; i++) {
+			long bit = indice(h1 + i * h2);
+			if ((palavras.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private long indice(int combinado) {
+		return (combinado & 0xFFFFFFFFL) % bits;
+	}
+
+	/**
+	 * FNV-1a de 64 bits sobre os caracteres, com a mistura final do MurmurHash3
+	 * para espalhar os bits das duas metades.
+	 */
+	private static long hash(String valor) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < valor.length(); i++) {
+			hash ^= valor.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+}
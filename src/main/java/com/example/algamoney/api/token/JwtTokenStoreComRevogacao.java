@@ -0,0 +1,93 @@
+package com.example.algamoney.api.token;
+
+import java.util.Map;
+
+import org.springframework.security.jwt.JwtHelper;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2RefreshToken;
+import org.springframework.security.oauth2.common.util.JsonParser;
+import org.springframework.security.oauth2.common.util.JsonParserFactory;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
+
+/**
+ * O JwtTokenStore de sempre, só que o refresh token deixa de ser aceito quando
+ * ele próprio foi revogado, quando o access token emitido junto com ele (a
+ * claim ati) foi, ou quando a sessao dele foi. Assim, depois do logout, nem o
+ * refresh token que estava no cookie nem os de refreshes anteriores conseguem
+ * mais gerar access tokens novos.
+ *
+ * Devolver null aqui faz o DefaultTokenServices responder invalid_grant, igual
+ * a um refresh token desconhecido.
+ *
+ * A assinatura de cada access token é conferida uma vez só: a autenticação de
+ * um token devolvido pelo readAccessToken é montada das claims dele, sem
+ * decodificar e conferir tudo de novo.
+ */
+public class JwtTokenStoreComRevogacao extends JwtTokenStore {
+
+	private final JwtAccessTokenConverter accessTokenConverter;
+
+	private final TokensRevogados tokensRevogados;
+
+	private final JsonParser jsonParser = JsonParserFactory.create();
+
+	public JwtTokenStoreComRevogacao(JwtAccessTokenConverter accessTokenConverter,
+			TokensRevogados tokensRevogados) {
+		super(accessTokenConverter);
+		this.accessTokenConverter = accessTokenConverter;
+		this.tokensRevogados = tokensRevogados;
+	}
+
+	@Override
+	public OAuth2AccessToken readAccessToken(String tokenValue) {
+		return new AccessTokenConferido(super.readAccessToken(tokenValue));
+	}
+
+	/**
+	 * Um token que não veio do readAccessToken, montado por outra classe, ainda
+	 * tem a assinatura conferida.
+	 */
+	@Override
+	public OAuth2Authentication readAuthentication(OAuth2AccessToken token) {
+		if (token instanceof AccessTokenConferido) {
+			return accessTokenConverter.extractAuthentication(claims(token.getValue()));
+		}
+		return super.readAuthentication(token);
+	}
+
+	@Override
+	public OAuth2RefreshToken readRefreshToken(String tokenValue) {
+		// Aqui a assinatura já foi conferida, então as claims podem ser lidas direto.
+		OAuth2RefreshToken refreshToken = super.readRefreshToken(tokenValue);
+
+		Map<String, Object> claims = claims(tokenValue);
+		if (tokensRevogados.isRevogado((String) claims.get(AccessTokenConverter.JTI))
+				|| tokensRevogados.isRevogado((String) claims.get(JwtAccessTokenConverter.ACCESS_TOKEN_ID))
+				|| tokensRevogados.isRevogado((String) claims.get(SessaoTokenEnhancer.SESSAO))) {
+			return null;
+		}
+		return refreshToken;
+	}
+
+	private Map<String, Object> claims(String tokenValue) {
+		return jsonParser.parseMap(JwtHelper.decode(tokenValue).getClaims());
+	}
+
+	/**
+	 * Access token que já teve a assinatura conferida por este token store.
+	 */
+	private static class AccessTokenConferido extends DefaultOAuth2AccessToken {
+
+		private static final long serialVersionUID = 1L;
+
+		AccessTokenConferido(OAuth2AccessToken accessToken) {
+			super(accessToken);
+		}
+
+	}
+
+}
@@ -0,0 +1,150 @@
+package com.example.algamoney.api.token;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.example.algamoney.api.config.property.AlgamoneyApiProperty;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * O login pelo password grant confere a senha do cliente e a do usuário com
+ * BCrypt, que é lento de propósito. Quando muita gente loga junto, os logins
+ * ocupam todos os processadores e o resto da api fica sem CPU. Esse filtro
+ * limita quantos logins rodam ao mesmo tempo (por padrão, metade dos
+ * processadores) e quantos podem esperar a vez. Quem passa do limite da fila
+ * recebe 429 na hora, e quem espera demais recebe 503, os dois com Retry-After.
+ *
+ * Roda logo depois do CorsFilter e antes do filtro do Spring Security, que é
+ * onde a senha do cliente é conferida.
+ *
+ * @author rafael.rutsatz
+ *
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class PasswordGrantBulkheadFilter implements Filter {
+
+	private final int concorrencia;
+	private final int tamanhoFila;
+	private final long tempoMaximoEsperaEmMilissegundos;
+
+	private final Semaphore vagas;
+	private final AtomicInteger aguardando = new AtomicInteger();
+
+	private final MeterRegistry meterRegistry;
+	private final Counter rejeitadosFilaCheia;
+	private final Counter rejeitadosTempoEsgotado;
+
+	public PasswordGrantBulkheadFilter(AlgamoneyApiProperty algamoneyApiProperty, MeterRegistry meterRegistry) {
+		this.concorrencia = algamoneyApiProperty.getLogin().getConcorrencia();
+		this.tamanhoFila = algamoneyApiProperty.getLogin().getTamanhoFila();
+		this.tempoMaximoEsperaEmMilissegundos = algamoneyApiProperty.getLogin().getTempoMaximoEsperaEmMilissegundos();
+		this.vagas = new Semaphore(concorrencia, true);
+
+		this.meterRegistry = meterRegistry;
+		Gauge.builder("algamoney.login.fila", aguardando, AtomicInteger::get)
+				.description("Logins esperando a vez").register(meterRegistry);
+		Gauge.builder("algamoney.login.em.andamento", vagas, v -> concorrencia - v.availablePermits())
+				.description("Logins sendo processados").register(meterRegistry);
+		this.rejeitadosFilaCheia = Counter.builder("algamoney.login.rejeitados").tag("motivo", "fila_cheia")
+				.register(meterRegistry);
+		this.rejeitadosTempoEsgotado = Counter.builder("algamoney.login.rejeitados").tag("motivo", "tempo_esgotado")
+				.register(meterRegistry);
+	}
+
+	@Override
+	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+			throws IOException, ServletException {
+
+		HttpServletRequest req = (HttpServletRequest) request;
+		HttpServletResponse resp = (HttpServletResponse) response;
+
+		if (!isPasswordGrant(req)) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		if (!vagas.tryAcquire() && !aguardarVaga(resp)) {
+			return;
+		}
+
+		Timer.Sample amostra = Timer.start(meterRegistry);
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			vagas.release();
+			amostra.stop(Timer.builder("algamoney.login").description("Tempo do login pelo password grant")
+					.tag("status", String.valueOf(resp.getStatus())).register(meterRegistry));
+		}
+	}
+
+	/**
+	 * Entra na fila e espera uma vaga. Retorna false, com a resposta de erro já
+	 * escrita, quando a fila está cheia ou o tempo de espera acabou.
+	 */
+	private boolean aguardarVaga(HttpServletResponse resp) throws IOException {
+		if (aguardando.incrementAndGet() > tamanhoFila) {
+			aguardando.decrementAndGet();
+			rejeitadosFilaCheia.increment();
+			rejeitar(resp, HttpStatus.TOO_MANY_REQUESTS);
+			return false;
+		}
+
+		boolean conseguiuVaga;
+		try {
+			conseguiuVaga = vagas.tryAcquire(tempoMaximoEsperaEmMilissegundos, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			conseguiuVaga = false;
+		} finally {
+			aguardando.decrementAndGet();
+		}
+
+		if (!conseguiuVaga) {
+			rejeitadosTempoEsgotado.increment();
+			rejeitar(resp, HttpStatus.SERVICE_UNAVAILABLE);
+		}
+		return conseguiuVaga;
+	}
+
+	private boolean isPasswordGrant(HttpServletRequest req) {
+		return "POST".equals(req.getMethod()) && "/oauth/token".equalsIgnoreCase(req.getRequestURI())
+				&& "password".equals(req.getParameter("grant_type"));
+	}
+
+	/**
+	 * Responde no mesmo formato de erro do /oauth/token. O temporarily_unavailable
+	 * é um dos códigos de erro da especificação do OAuth 2.
+	 */
+	private void rejeitar(HttpServletResponse resp, HttpStatus status) throws IOException {
+		resp.setStatus(status.value());
+		resp.setHeader(HttpHeaders.RETRY_AFTER, "1");
+		resp.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		resp.getWriter().write("{\"error\":\"temporarily_unavailable\","
+				+ "\"error_description\":\"Muitos logins ao mesmo tempo, tente novamente em instantes\"}");
+	}
+
+}
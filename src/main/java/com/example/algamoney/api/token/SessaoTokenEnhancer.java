@@ -0,0 +1,56 @@
+package com.example.algamoney.api.token;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.security.jwt.JwtHelper;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.util.JsonParser;
+import org.springframework.security.oauth2.common.util.JsonParserFactory;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.TokenRequest;
+import org.springframework.security.oauth2.provider.token.TokenEnhancer;
+
+/**
+ * Coloca nos tokens a claim sessao, que identifica o login. Ela é criada no
+ * password grant e passa de um refresh token para os tokens gerados a partir
+ * dele, então todos os tokens de um mesmo login têm a mesma sessao e o logout
+ * consegue revogar todos de uma vez. Só o jti não bastava: cada refresh gera um
+ * refresh token novo, e os anteriores continuam válidos.
+ *
+ * Roda antes do JwtAccessTokenConverter, que copia as informações adicionais do
+ * access token para o refresh token.
+ */
+public class SessaoTokenEnhancer implements TokenEnhancer {
+
+	public static final String SESSAO = "sessao";
+
+	private final JsonParser jsonParser = JsonParserFactory.create();
+
+	@Override
+	public OAuth2AccessToken enhance(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
+		String sessao = sessaoDoRefreshToken(authentication.getOAuth2Request().getRefreshTokenRequest());
+
+		Map<String, Object> informacoes = new LinkedHashMap<>(accessToken.getAdditionalInformation());
+		informacoes.put(SESSAO, sessao != null ? sessao : UUID.randomUUID().toString());
+
+		DefaultOAuth2AccessToken token = new DefaultOAuth2AccessToken(accessToken);
+		token.setAdditionalInformation(informacoes);
+		return token;
+	}
+
+	/**
+	 * No refresh, o DefaultTokenServices já conferiu a assinatura do refresh token
+	 * antes de gerar os tokens novos, então as claims podem ser lidas direto.
+	 */
+	private String sessaoDoRefreshToken(TokenRequest refresh) {
+		String refreshToken = refresh == null ? null : refresh.getRequestParameters().get("refresh_token");
+		if (refreshToken == null) {
+			return null;
+		}
+		return (String) jsonParser.parseMap(JwtHelper.decode(refreshToken).getClaims()).get(SESSAO);
+	}
+
+}
@@ -0,0 +1,121 @@
+package com.example.algamoney.api.token;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import com.example.algamoney.api.config.property.AlgamoneyApiProperty;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Lista dos tokens revogados antes da hora, pelo jti (o id que vai dentro de
+ * todo JWT). Como o JwtTokenStore não guarda nada, é a única forma de um token
+ * válido deixar de ser aceito.
+ *
+ * Quase todo token consultado não foi revogado, então a consulta passa antes
+ * por um filtro de Bloom: se ele diz que o jti não está lá, a resposta sai só
+ * com o hash, sem tocar no mapa. Quando ele diz que talvez esteja, o mapa com
+ * os jtis exatos decide. Cada jti fica até a data passada no revogar, e a
+ * limpeza periódica tira os vencidos do mapa e monta o filtro de novo só com
+ * os que sobraram, já que do filtro não dá para remover.
+ *
+ * A lista fica na memória de cada instância, então num cluster a revogação só
+ * vale na instância que recebeu o logout.
+ */
+@Component
+public class TokensRevogados implements MeterBinder, DisposableBean {
+
+	private static final double TAXA_FALSO_POSITIVO = 0.01;
+
+	/**
+	 * jti -> até quando ele fica revogado, em milissegundos.
+	 */
+	private final Map<String, Long> revogados = new ConcurrentHashMap<>();
+
+	private final int capacidade;
+
+	private volatile FiltroBloom filtro;
+
+	private final ScheduledExecutorService limpeza;
+
+	public TokensRevogados(AlgamoneyApiProperty algamoneyApiProperty) {
+		AlgamoneyApiProperty.Seguranca seguranca = algamoneyApiProperty.getSeguranca();
+		this.capacidade = seguranca.getCapacidadeTokensRevogados();
+		this.filtro = new FiltroBloom(capacidade, TAXA_FALSO_POSITIVO);
+
+		long intervalo = seguranca.getIntervaloLimpezaTokensRevogadosEmSegundos();
+		this.limpeza = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "limpeza-tokens-revogados");
+			thread.setDaemon(true);
+			return thread;
+		});
+		limpeza.scheduleWithFixedDelay(this::limpar, intervalo, intervalo, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Revoga o jti até a data informada. Depois dela o token já estaria expirado
+	 * de qualquer jeito, e o jti sai da lista na próxima limpeza.
+	 */
+	public synchronized void revogar(String jti, Date ate) {
+		if (jti == null || ate == null || ate.getTime() <= System.currentTimeMillis()) {
+			return;
+		}
+
+		revogados.merge(jti, ate.getTime(), Math::max);
+		filtro.adicionar(jti);
+
+		// Acima da capacidade a taxa de falso positivo sobe rápido, então o filtro
+		// cresce junto com a lista.
+		if (revogados.size() > filtro.getCapacidade()) {
+			reconstruirFiltro();
+		}
+	}
+
+	public boolean isRevogado(String jti) {
+		if (jti == null || !filtro.talvezContenha(jti)) {
+			return false;
+		}
+
+		Long ate = revogados.get(jti);
+		return ate != null && ate > System.currentTimeMillis();
+	}
+
+	synchronized void limpar() {
+		long agora = System.currentTimeMillis();
+		if (revogados.values().removeIf(ate -> ate <= agora)) {
+			reconstruirFiltro();
+		}
+	}
+
+	/**
+	 * Quem consulta continua usando o filtro antigo até a troca, que é uma
+	 * escrita só. As revogações esperam, pelo synchronized, para não caírem no
+	 * filtro antigo depois de ele ter sido copiado.
+	 */
+	private void reconstruirFiltro() {
+		FiltroBloom novo = new FiltroBloom(Math.max(capacidade, revogados.size() * 2), TAXA_FALSO_POSITIVO);
+		revogados.keySet().forEach(novo::adicionar);
+		filtro = novo;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("algamoney.tokens.revogados", revogados, Map::size)
+				.description("Tokens revogados que ainda não expiraram").register(registry);
+	}
+
+	@Override
+	public void destroy() {
+		limpeza.shutdownNow();
+	}
+
+}
@@ -0,0 +1 @@
+CREATE INDEX idx_lancamento_vencimento_codigo ON lancamento (data_vencimento, codigo);
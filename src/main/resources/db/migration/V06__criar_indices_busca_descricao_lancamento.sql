@@ -0,0 +1,7 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Atende o lower(descricao) like '%texto%' da pesquisa por trecho da descrição.
+CREATE INDEX idx_lancamento_descricao_trgm ON lancamento USING gin (lower(descricao) gin_trgm_ops);
+
+-- Atende a busca textual (full-text) e a ordenação por relevância.
+CREATE INDEX idx_lancamento_descricao_fts ON lancamento USING gin (to_tsvector('portuguese', descricao));
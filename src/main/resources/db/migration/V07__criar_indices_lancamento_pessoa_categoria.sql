@@ -0,0 +1,11 @@
+-- Os índices são criados com CONCURRENTLY, que não bloqueia inserts, updates e deletes em lancamento
+-- enquanto o índice é montado. O Flyway roda esses comandos fora de transação, que é o que o PostgreSQL
+-- exige para o CONCURRENTLY. Se a migração falhar no meio, o índice fica inválido: é preciso remover ele
+-- (drop index concurrently) e fazer o flyway repair antes de rodar de novo.
+
+-- Atende a verificação da chave estrangeira ao excluir uma pessoa, que sem índice percorre lancamento
+-- inteira, e a busca dos lançamentos de uma pessoa num período.
+CREATE INDEX CONCURRENTLY idx_lancamento_pessoa_vencimento ON lancamento (codigo_pessoa, data_vencimento);
+
+-- O mesmo para categoria.
+CREATE INDEX CONCURRENTLY idx_lancamento_categoria_vencimento ON lancamento (codigo_categoria, data_vencimento);
@@ -0,0 +1,10 @@
+-- Criados com CONCURRENTLY, como os da V07.
+
+-- Atende a faixa de valor (valorDe e valorAte) da pesquisa.
+CREATE INDEX CONCURRENTLY idx_lancamento_valor ON lancamento (valor);
+
+-- Os lançamentos ainda não pagos, que são a minoria, por vencimento. Por ser parcial, o índice só guarda esses,
+-- e fica bem menor do que um índice em data_pagamento. Atende a pesquisa com pago=false, sozinha ou com o
+-- período de vencimento, e a paginação por cursor, que ordena por data_vencimento e codigo.
+CREATE INDEX CONCURRENTLY idx_lancamento_vencimento_nao_pago ON lancamento (data_vencimento, codigo)
+	WHERE data_pagamento IS NULL;
@@ -0,0 +1,85 @@
+-- Total de receitas e de despesas de cada pessoa por mês de vencimento, para o saldo mensal ser lido sem somar
+-- os lançamentos. Quem mantém a tabela são os triggers de lancamento abaixo, na mesma transação de qualquer
+-- gravação em lancamento (cadastro, importação, exclusão ou um update feito direto no banco). Assim, depois
+-- do commit, o saldo sempre bate com os lançamentos.
+CREATE TABLE saldo_mensal_pessoa (
+	codigo_pessoa BIGINT NOT NULL,
+	mes DATE NOT NULL,
+	tipo VARCHAR(20) NOT NULL,
+	total DECIMAL(14,2) NOT NULL,
+	quantidade BIGINT NOT NULL,
+	PRIMARY KEY (codigo_pessoa, mes, tipo),
+	FOREIGN KEY (codigo_pessoa) REFERENCES pessoa(codigo)
+);
+
+-- Os triggers são por comando, não por linha: uma importação ou exclusão de milhares de lançamentos atualiza
+-- cada mês de cada pessoa uma vez só. As tabelas de transição (novos e antigos) têm as linhas afetadas pelo
+-- comando, e o mes é o primeiro dia do mês do vencimento.
+--
+-- O insert ... on conflict trava a linha de cada mês, então duas transações gravando lançamentos da mesma
+-- pessoa no mesmo mês somam uma depois da outra, sem perder nenhuma das duas. O order by faz todas travarem
+-- as linhas na mesma ordem, o que evita deadlock. Os meses que ficam sem lançamentos são removidos.
+CREATE FUNCTION atualizar_saldo_mensal_pessoa() RETURNS TRIGGER AS $$
+BEGIN
+	IF TG_OP = 'INSERT' THEN
+		INSERT INTO saldo_mensal_pessoa AS s (codigo_pessoa, mes, tipo, total, quantidade)
+		SELECT codigo_pessoa, date_trunc('month', data_vencimento)::date, tipo, sum(valor), count(*)
+		FROM novos
+		GROUP BY 1, 2, 3
+		ORDER BY 1, 2, 3
+		ON CONFLICT (codigo_pessoa, mes, tipo)
+		DO UPDATE SET total = s.total + excluded.total, quantidade = s.quantidade + excluded.quantidade;
+		RETURN NULL;
+	END IF;
+
+	IF TG_OP = 'DELETE' THEN
+		INSERT INTO saldo_mensal_pessoa AS s (codigo_pessoa, mes, tipo, total, quantidade)
+		SELECT codigo_pessoa, date_trunc('month', data_vencimento)::date, tipo, -sum(valor), -count(*)
+		FROM antigos
+		GROUP BY 1, 2, 3
+		ORDER BY 1, 2, 3
+		ON CONFLICT (codigo_pessoa, mes, tipo)
+		DO UPDATE SET total = s.total + excluded.total, quantidade = s.quantidade + excluded.quantidade;
+	ELSE
+		-- No update, sai o lançamento antigo e entra o novo. Se nada que entra no saldo mudou, a diferença é
+		-- zero e nenhuma linha é tocada.
+		INSERT INTO saldo_mensal_pessoa AS s (codigo_pessoa, mes, tipo, total, quantidade)
+		SELECT codigo_pessoa, mes, tipo, sum(valor), sum(quantidade)
+		FROM (
+			SELECT codigo_pessoa, date_trunc('month', data_vencimento)::date AS mes, tipo, -valor AS valor,
+				-1 AS quantidade
+			FROM antigos
+			UNION ALL
+			SELECT codigo_pessoa, date_trunc('month', data_vencimento)::date, tipo, valor, 1
+			FROM novos
+		) AS variacao
+		GROUP BY 1, 2, 3
+		HAVING sum(valor) <> 0 OR sum(quantidade) <> 0
+		ORDER BY 1, 2, 3
+		ON CONFLICT (codigo_pessoa, mes, tipo)
+		DO UPDATE SET total = s.total + excluded.total, quantidade = s.quantidade + excluded.quantidade;
+	END IF;
+
+	DELETE FROM saldo_mensal_pessoa
+	WHERE quantidade = 0 AND codigo_pessoa IN (SELECT codigo_pessoa FROM antigos);
+	RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER lancamento_saldo_mensal_insert AFTER INSERT ON lancamento
+	REFERENCING NEW TABLE AS novos
+	FOR EACH STATEMENT EXECUTE PROCEDURE atualizar_saldo_mensal_pessoa();
+
+CREATE TRIGGER lancamento_saldo_mensal_update AFTER UPDATE ON lancamento
+	REFERENCING OLD TABLE AS antigos NEW TABLE AS novos
+	FOR EACH STATEMENT EXECUTE PROCEDURE atualizar_saldo_mensal_pessoa();
+
+CREATE TRIGGER lancamento_saldo_mensal_delete AFTER DELETE ON lancamento
+	REFERENCING OLD TABLE AS antigos
+	FOR EACH STATEMENT EXECUTE PROCEDURE atualizar_saldo_mensal_pessoa();
+
+-- Os lançamentos que já existem.
+INSERT INTO saldo_mensal_pessoa (codigo_pessoa, mes, tipo, total, quantidade)
+SELECT codigo_pessoa, date_trunc('month', data_vencimento)::date, tipo, sum(valor), count(*)
+FROM lancamento
+GROUP BY 1, 2, 3;
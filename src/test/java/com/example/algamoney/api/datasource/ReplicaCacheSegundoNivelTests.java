@@ -0,0 +1,97 @@
+package com.example.algamoney.api.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.algamoney.api.model.Pessoa;
+import com.example.algamoney.api.repository.PessoaRepository;
+import com.example.algamoney.api.service.PessoaService;
+
+/**
+ * A réplica é o mesmo banco com o schema replica na frente do search_path. Lá
+ * fica uma cópia da tabela pessoa que não recebe as gravações do primário, como
+ * uma réplica parada.
+ */
+@SpringBootTest(properties = {
+		"algamoney.banco.replicas[0].url=jdbc:postgresql://localhost/algamoneyapi?currentSchema=replica",
+		"algamoney.banco.replicas[0].username=postgres", "algamoney.banco.replicas[0].password=postgres",
+		"algamoney.banco.consulta-atraso=select 0" })
+class ReplicaCacheSegundoNivelTests {
+
+	@Autowired
+	private PessoaService pessoaService;
+
+	@Autowired
+	private PessoaRepository pessoaRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private String nomeOriginal;
+
+	@BeforeEach
+	void criarReplica() {
+		jdbcTemplate.execute("create schema replica");
+		jdbcTemplate.execute("create table replica.pessoa as select * from public.pessoa");
+		nomeOriginal = jdbcTemplate.queryForObject("select nome from pessoa where codigo = 1", String.class);
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@AfterEach
+	void removerReplica() {
+		SecurityContextHolder.clearContext();
+		jdbcTemplate.update("update pessoa set nome = ? where codigo = 1", nomeOriginal);
+		jdbcTemplate.execute("drop schema replica cascade");
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@Test
+	void quemGravouLeOQueGravouMesmoComAReplicaAtrasada() {
+		autenticar("maria");
+		assertThat(pessoaRepository.findById(1L).get().getNome()).isEqualTo(nomeOriginal);
+
+		autenticar("admin");
+		Pessoa pessoa = pessoaRepository.findById(1L).get();
+		pessoa.setNome("Nome alterado");
+		pessoaService.atualizar(1L, pessoa);
+
+		// Os outros usuários continuam lendo da réplica, que ainda não tem a alteração.
+		autenticar("maria");
+		assertThat(pessoaRepository.findById(1L).get().getNome()).isEqualTo(nomeOriginal);
+
+		autenticar("admin");
+		assertThat(pessoaRepository.findById(1L).get().getNome()).isEqualTo("Nome alterado");
+	}
+
+	@Test
+	void soOQueFoiLidoDoPrimarioVaiParaOCache() {
+		pessoaRepository.findById(1L);
+		assertThat(entityManagerFactory.getCache().contains(Pessoa.class, 1L)).isFalse();
+
+		// Sem o readOnly, a transação vai para o primário.
+		transactionTemplate.execute(s -> pessoaRepository.findById(1L));
+		assertThat(entityManagerFactory.getCache().contains(Pessoa.class, 1L)).isTrue();
+	}
+
+	private void autenticar(String usuario) {
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(usuario, usuario));
+	}
+
+}
@@ -0,0 +1,109 @@
+package com.example.algamoney.api.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.algamoney.api.config.property.AlgamoneyApiProperty;
+
+/**
+ * Dois bancos H2 em memória fazem o papel do primário e da réplica. Cada um tem
+ * a tabela origem com o próprio nome, e a tabela atraso com o atraso que a
+ * consulta de verificação vai enxergar.
+ */
+class ReplicaRoutingDataSourceTests {
+
+	private final JdbcTemplate primario = new JdbcTemplate(criarBanco("primario"));
+	private final JdbcTemplate replica = new JdbcTemplate(criarBanco("replica"));
+
+	private ReplicaRoutingDataSource roteamento;
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate leitura;
+	private TransactionTemplate escrita;
+
+	@BeforeEach
+	void configurar() {
+		AlgamoneyApiProperty.Banco banco = new AlgamoneyApiProperty.Banco();
+		banco.setConsultaAtraso("select segundos from atraso");
+		banco.setIntervaloVerificacaoAtrasoEmSegundos(0);
+		roteamento = new ReplicaRoutingDataSource(primario.getDataSource(),
+				Collections.singletonList(replica.getDataSource()), banco);
+		roteamento.afterPropertiesSet();
+
+		DataSource dataSource = new LazyConnectionDataSourceProxy(roteamento);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		escrita = new TransactionTemplate(transactionManager);
+		leitura = new TransactionTemplate(transactionManager);
+		leitura.setReadOnly(true);
+	}
+
+	@AfterEach
+	void limpar() {
+		SecurityContextHolder.clearContext();
+		primario.execute("drop all objects");
+		replica.execute("drop all objects");
+	}
+
+	@Test
+	void deveLerDaReplicaEEscreverNoPrimario() {
+		assertThat(ler()).isEqualTo("replica");
+		assertThat(origem(escrita)).isEqualTo("primario");
+	}
+
+	@Test
+	void deveLerDoPrimarioQuandoAReplicaEstiverAtrasada() {
+		replica.update("update atraso set segundos = 60");
+		roteamento.verificarAtraso();
+
+		assertThat(ler()).isEqualTo("primario");
+
+		replica.update("update atraso set segundos = 0");
+		roteamento.verificarAtraso();
+
+		assertThat(ler()).isEqualTo("replica");
+	}
+
+	@Test
+	void deveLerDoPrimarioLogoDepoisDeUmaEscritaDoMesmoUsuario() {
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("admin", "admin"));
+
+		escrita.execute(s -> jdbcTemplate.update("update origem set nome = nome"));
+		assertThat(ler()).isEqualTo("primario");
+
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("maria", "maria"));
+		assertThat(ler()).isEqualTo("replica");
+	}
+
+	private String ler() {
+		return origem(leitura);
+	}
+
+	private String origem(TransactionTemplate transacao) {
+		return transacao.execute(s -> jdbcTemplate.queryForObject("select nome from origem", String.class));
+	}
+
+	private static DataSource criarBanco(String nome) {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + nome + ";DB_CLOSE_DELAY=-1");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("create table origem (nome varchar(20))");
+		jdbcTemplate.update("insert into origem values (?)", nome);
+		jdbcTemplate.execute("create table atraso (segundos double)");
+		jdbcTemplate.update("insert into atraso values (0)");
+		return dataSource;
+	}
+
+}
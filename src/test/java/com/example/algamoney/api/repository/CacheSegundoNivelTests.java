@@ -0,0 +1,107 @@
+package com.example.algamoney.api.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.algamoney.api.model.Pessoa;
+import com.example.algamoney.api.service.PessoaService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+
+/**
+ * Sem @Transactional: cada chamada abre a própria sessão, então o que é lido
+ * na segunda vez só pode vir do cache de segundo nível ou do banco. Os dados
+ * alterados voltam ao original no fim.
+ */
+@SpringBootTest
+class CacheSegundoNivelTests {
+
+	@Autowired
+	private PessoaService pessoaService;
+
+	@Autowired
+	private PessoaRepository pessoaRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private CacheManager cacheManagerSegundoNivel;
+
+	private String nomeOriginal;
+
+	@BeforeEach
+	void guardarNome() {
+		nomeOriginal = jdbcTemplate.queryForObject("select nome from pessoa where codigo = 3", String.class);
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@AfterEach
+	void restaurar() {
+		jdbcTemplate.update("update pessoa set nome = ? where codigo = 3", nomeOriginal);
+		jdbcTemplate.update("update pessoa set ativo = true where codigo = 5");
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@Test
+	void alteracaoPeloServiceRemoveAPessoaDoCache() throws Exception {
+		pessoaRepository.findById(3L);
+		assertThat(entityManagerFactory.getCache().contains(Pessoa.class, 3L)).isTrue();
+
+		pessoaService.atualizarParcialmente(3L, objectMapper.readTree("{\"nome\": \"Pedro Alterado\"}"));
+
+		assertThat(pessoaRepository.findById(3L).get().getNome()).isEqualTo("Pedro Alterado");
+	}
+
+	@Test
+	void consultaEmCacheEnxergaAPessoaDesativada() {
+		Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		assertThat(pessoaRepository.buscarCodigosAtivos(Arrays.asList(4L, 5L))).containsExactlyInAnyOrder(4L, 5L);
+		long acertos = estatisticas.getQueryCacheHitCount();
+		assertThat(pessoaRepository.buscarCodigosAtivos(Arrays.asList(4L, 5L))).containsExactlyInAnyOrder(4L, 5L);
+		assertThat(estatisticas.getQueryCacheHitCount()).isEqualTo(acertos + 1);
+
+		pessoaService.atualizarPropriedadeAtivo(5L, false);
+
+		assertThat(pessoaRepository.buscarCodigosAtivos(Arrays.asList(4L, 5L))).containsExactly(4L);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void regioesTemOTamanhoEAExpiracaoConfigurados() {
+		CaffeineConfiguration<Object, Object> pessoa = cacheManagerSegundoNivel.getCache("pessoa")
+				.getConfiguration(CaffeineConfiguration.class);
+		assertThat(pessoa.getMaximumSize()).isEqualTo(OptionalLong.of(10_000));
+		assertThat(pessoa.getExpireAfterWrite()).isEqualTo(OptionalLong.of(TimeUnit.SECONDS.toNanos(600)));
+
+		CaffeineConfiguration<Object, Object> timestamps = cacheManagerSegundoNivel
+				.getCache("default-update-timestamps-region").getConfiguration(CaffeineConfiguration.class);
+		assertThat(timestamps.getExpireAfterWrite()).isEmpty();
+
+		assertThat(entityManagerFactory.unwrap(SessionFactory.class).getStatistics().getSecondLevelCacheRegionNames())
+				.contains("categoria", "pessoa", "permissao", "usuario-permissoes");
+	}
+
+}
@@ -0,0 +1,323 @@
+package com.example.algamoney.api.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.algamoney.api.model.TipoLancamento;
+import com.example.algamoney.api.repository.filter.LancamentoFilter;
+import com.example.algamoney.api.repository.paginacao.CursorLancamento;
+import com.example.algamoney.api.repository.paginacao.ModoTotal;
+import com.example.algamoney.api.repository.projection.ResumoLancamento;
+
+/**
+ * Roda cada forma de consulta do LancamentoRepositoryImpl numa tabela com
+ * cinquenta mil lançamentos e confere, pelo EXPLAIN, que nenhuma percorre lancamento
+ * inteira (Seq Scan). Os filtros usados são seletivos, como na prática; uma
+ * busca que traz metade da tabela pode, com razão, preferir o Seq Scan.
+ *
+ * O SQL e os parâmetros de cada consulta são guardados por um proxy do
+ * DataSource, e o EXPLAIN é feito com os mesmos parâmetros, na mesma
+ * transação. Os lançamentos gerados e as estatísticas do ANALYZE somem no
+ * rollback do fim de cada teste.
+ */
+@SpringBootTest
+@Transactional
+class LancamentoPlanosExecucaoTests {
+
+	private static final List<Consulta> consultas = new ArrayList<>();
+
+	@Autowired
+	private LancamentoRepository lancamentoRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@BeforeEach
+	void gerarLancamentos() {
+		jdbcTemplate.update("insert into pessoa (nome, ativo) select 'Pessoa ' || i, true"
+				+ " from generate_series(1, 1000) i");
+		jdbcTemplate.update("insert into lancamento (descricao, data_vencimento, data_pagamento, valor, tipo,"
+				+ " codigo_categoria, codigo_pessoa) select 'Compra ' || i, date '2015-01-01' + i % 2500,"
+				+ " case when i % 20 = 0 then null else date '2015-01-01' + i % 2500 end, i % 1000,"
+				+ " case when i % 4 = 0 then 'RECEITA' else 'DESPESA' end, 1 + i % 5,"
+				+ " (select max(codigo) from pessoa) - i % 1000 from generate_series(1, 50000) i");
+		jdbcTemplate.execute("analyze pessoa");
+		jdbcTemplate.execute("analyze lancamento");
+		consultas.clear();
+	}
+
+	@Test
+	void pesquisaPorTrechoDaDescricao() throws SQLException {
+		LancamentoFilter filtro = new LancamentoFilter();
+		filtro.setDescricao("compra 4242");
+
+		lancamentoRepository.detalhar(filtro, PageRequest.of(0, 20), ModoTotal.EXATO);
+		lancamentoRepository.resumir(filtro, PageRequest.of(0, 20), ModoTotal.EXATO);
+
+		assertSemSeqScanEmLancamento();
+	}
+
+	@Test
+	void buscaTextualOrdenadaPorRelevancia() throws SQLException {
+		LancamentoFilter filtro = new LancamentoFilter();
+		filtro.setDescricao("4242");
+		filtro.setBuscaTextual(true);
+		filtro.setOrdenarPorRelevancia(true);
+
+		lancamentoRepository.detalhar(filtro, PageRequest.of(0, 20), ModoTotal.EXATO);
+
+		assertSemSeqScanEmLancamento();
+	}
+
+	@Test
+	void pesquisaPorPeriodoDeVencimento() throws SQLException {
+		LancamentoFilter filtro = umMes();
+
+		lancamentoRepository.detalhar(filtro, PageRequest.of(0, 20), ModoTotal.EXATO);
+		lancamentoRepository.resumir(filtro, PageRequest.of(0, 20), ModoTotal.ESTIMADO);
+
+		assertSemSeqScanEmLancamento();
+	}
+
+	@Test
+	void pesquisaPorPessoaEPorCategoria() throws SQLException {
+		LancamentoFilter porPessoa = new LancamentoFilter();
+		porPessoa.setCodigoPessoa(jdbcTemplate.queryForObject("select max(codigo) from pessoa", Long.class));
+		porPessoa.setTipo(TipoLancamento.RECEITA);
+
+		LancamentoFilter porCategoria = umMes();
+		porCategoria.setCodigoCategoria(2L);
+
+		lancamentoRepository.detalhar(porPessoa, PageRequest.of(0, 20), ModoTotal.EXATO);
+		lancamentoRepository.resumir(porCategoria, PageRequest.of(0, 20), ModoTotal.EXATO);
+
+		assertSemSeqScanEmLancamento();
+	}
+
+	@Test
+	void pesquisaPorFaixaDeValorENaoPagos() throws SQLException {
+		LancamentoFilter porValor = new LancamentoFilter();
+		porValor.setValorDe(new BigDecimal("100"));
+		porValor.setValorAte(new BigDecimal("105"));
+
+		LancamentoFilter naoPagosDoMes = umMes();
+		naoPagosDoMes.setPago(false);
+
+		// Sem o período, a página sem ordenação acha os primeiros não pagos mais
+		// rápido percorrendo a tabela, mas na ordem do cursor usa o índice parcial.
+		LancamentoFilter naoPagos = new LancamentoFilter();
+		naoPagos.setPago(false);
+
+		lancamentoRepository.detalhar(porValor, PageRequest.of(0, 20), ModoTotal.EXATO);
+		lancamentoRepository.resumir(naoPagosDoMes, PageRequest.of(0, 20), ModoTotal.EXATO);
+		lancamentoRepository.detalhar(naoPagos, null, 20);
+
+		assertSemSeqScanEmLancamento();
+	}
+
+	@Test
+	void paginacaoPorCursor() throws SQLException {
+		LancamentoFilter filtro = new LancamentoFilter();
+
+		lancamentoRepository.detalhar(filtro, null, 20);
+		lancamentoRepository.resumir(filtro, new CursorLancamento(LocalDate.of(2018, 3, 1), 50_000L), 20);
+
+		assertSemSeqScanEmLancamento();
+	}
+
+	@Test
+	void exportacaoDeUmPeriodo() throws SQLException {
+		try (Stream<ResumoLancamento> lancamentos = lancamentoRepository.exportar(umMes())) {
+			lancamentos.count();
+		}
+
+		assertSemSeqScanEmLancamento();
+	}
+
+	@Test
+	void estatisticasDeUmPeriodo() throws SQLException {
+		LancamentoFilter filtro = umMes();
+
+		lancamentoRepository.porCategoria(filtro);
+		lancamentoRepository.porPessoa(filtro);
+		lancamentoRepository.porDia(filtro);
+		lancamentoRepository.porMes(filtro);
+
+		assertSemSeqScanEmLancamento();
+	}
+
+	/**
+	 * A consulta que o PostgreSQL faz ao excluir uma pessoa ou uma categoria,
+	 * para conferir que nenhum lançamento aponta para ela. O código não tem
+	 * lançamentos, que é o caso da exclusão que dá certo.
+	 */
+	@Test
+	void verificacaoDasChavesEstrangeiras() throws SQLException {
+		for (String coluna : new String[] { "codigo_pessoa", "codigo_categoria" }) {
+			Consulta consulta = new Consulta(
+					"select 1 from only lancamento x where " + coluna + " = ? for key share of x");
+			consulta.parametros.add(new Parametro(setLong(), new Object[] { 1, 0L }));
+			consultas.add(consulta);
+		}
+
+		assertSemSeqScanEmLancamento();
+	}
+
+	private LancamentoFilter umMes() {
+		LancamentoFilter filtro = new LancamentoFilter();
+		filtro.setDataVencimentoDe(LocalDate.of(2017, 6, 1));
+		filtro.setDataVencimentoAte(LocalDate.of(2017, 6, 30));
+		return filtro;
+	}
+
+	private void assertSemSeqScanEmLancamento() throws SQLException {
+		List<Consulta> feitas = new ArrayList<>(consultas);
+		assertThat(feitas).isNotEmpty();
+
+		Connection con = DataSourceUtils.getConnection(dataSource);
+		for (Consulta consulta : feitas) {
+			String plano = explicar(con, consulta);
+			assertThat(plano).as("Plano de %s", consulta.sql).doesNotContain("Seq Scan on lancamento");
+		}
+	}
+
+	private String explicar(Connection con, Consulta consulta) throws SQLException {
+		try (PreparedStatement explain = con.prepareStatement("explain " + consulta.sql)) {
+			for (Parametro parametro : consulta.parametros) {
+				try {
+					parametro.metodo.invoke(explain, parametro.argumentos);
+				} catch (ReflectiveOperationException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+
+			StringBuilder plano = new StringBuilder();
+			try (ResultSet rs = explain.executeQuery()) {
+				while (rs.next()) {
+					plano.append(rs.getString(1)).append('\n');
+				}
+			}
+			return plano.toString();
+		}
+	}
+
+	private static Method setLong() {
+		try {
+			return PreparedStatement.class.getMethod("setLong", int.class, long.class);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static class Consulta {
+
+		private final String sql;
+		private final List<Parametro> parametros = new ArrayList<>();
+
+		Consulta(String sql) {
+			this.sql = sql;
+		}
+
+	}
+
+	private static class Parametro {
+
+		private final Method metodo;
+		private final Object[] argumentos;
+
+		Parametro(Method metodo, Object[] argumentos) {
+			this.metodo = metodo;
+			this.argumentos = argumentos;
+		}
+
+	}
+
+	/**
+	 * Envolve o DataSource para guardar as consultas (executeQuery) com os
+	 * parâmetros passados aos setXxx(indice, valor).
+	 */
+	@TestConfiguration
+	static class Configuracao {
+
+		@Bean
+		static BeanPostProcessor capturarConsultas() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					if (!(bean instanceof DataSource)) {
+						return bean;
+					}
+					return proxy(DataSource.class, bean, (dataSource, metodo, args) -> {
+						Object resultado = metodo.invoke(bean, args);
+						return resultado instanceof Connection ? conexao((Connection) resultado) : resultado;
+					});
+				}
+			};
+		}
+
+		private static Connection conexao(Connection con) {
+			return proxy(Connection.class, con, (proxy, metodo, args) -> {
+				Object resultado = metodo.invoke(con, args);
+				if (resultado instanceof PreparedStatement && metodo.getName().equals("prepareStatement")) {
+					return statement((PreparedStatement) resultado, new Consulta((String) args[0]));
+				}
+				return resultado;
+			});
+		}
+
+		private static PreparedStatement statement(PreparedStatement stmt, Consulta consulta) {
+			return proxy(PreparedStatement.class, stmt, (proxy, metodo, args) -> {
+				if (metodo.getName().startsWith("set") && args != null && args.length >= 2
+						&& metodo.getParameterTypes()[0] == int.class) {
+					consulta.parametros.add(new Parametro(metodo, args));
+				} else if (metodo.getName().equals("executeQuery") && args == null) {
+					consultas.add(consulta);
+				}
+				return metodo.invoke(stmt, args);
+			});
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <T> T proxy(Class<T> tipo, Object alvo, InvocationHandler handler) {
+			return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[] { tipo }, (proxy, metodo, args) -> {
+				try {
+					return handler.invoke(proxy, metodo, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			});
+		}
+
+	}
+
+}
@@ -0,0 +1,101 @@
+package com.example.algamoney.api.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import com.example.algamoney.api.model.TipoLancamento;
+import com.example.algamoney.api.repository.filter.LancamentoFilter;
+import com.example.algamoney.api.repository.lancamento.LancamentoRepositoryReativo;
+import com.example.algamoney.api.repository.paginacao.ModoTotal;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * As pesquisas pelo R2DBC precisam devolver o mesmo JSON das pesquisas pelo
+ * JPA, com os mesmos filtros. Usa os lançamentos cadastrados pela migração V03.
+ */
+@SpringBootTest(properties = { "algamoney.reativo.habilitado=true", "algamoney.reativo.username=postgres",
+		"algamoney.reativo.password=postgres" })
+class LancamentoRepositoryReativoTests {
+
+	@Autowired
+	private LancamentoRepository lancamentoRepository;
+
+	@Autowired
+	private LancamentoRepositoryReativo lancamentoRepositoryReativo;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Test
+	void mesmoJsonSemFiltro() throws Exception {
+		assertMesmoJson(new LancamentoFilter(), PageRequest.of(0, 5), ModoTotal.EXATO);
+		assertMesmoJson(new LancamentoFilter(), PageRequest.of(1, 5), ModoTotal.NENHUM);
+	}
+
+	@Test
+	void mesmoJsonComTrechoDaDescricaoEPeriodo() throws Exception {
+		LancamentoFilter filtro = new LancamentoFilter();
+		filtro.setDescricao("a");
+		filtro.setDataVencimentoDe(LocalDate.of(2017, 1, 1));
+		filtro.setDataVencimentoAte(LocalDate.of(2017, 6, 30));
+
+		assertMesmoJson(filtro, PageRequest.of(0, 3), ModoTotal.ESTIMADO);
+	}
+
+	@Test
+	void mesmoJsonComPessoaCategoriaTipoValorEPagamento() throws Exception {
+		LancamentoFilter filtro = new LancamentoFilter();
+		filtro.setTipo(TipoLancamento.DESPESA);
+		filtro.setValorDe(new BigDecimal("100"));
+		filtro.setValorAte(new BigDecimal("5000"));
+		filtro.setPago(false);
+		assertMesmoJson(filtro, PageRequest.of(0, 10), ModoTotal.EXATO);
+
+		filtro = new LancamentoFilter();
+		filtro.setCodigoPessoa(2L);
+		filtro.setCodigoCategoria(2L);
+		filtro.setPago(true);
+		assertMesmoJson(filtro, PageRequest.of(0, 10), ModoTotal.ESTIMADO);
+	}
+
+	@Test
+	void mesmoJsonComCuringasDoLikeNaDescricao() throws Exception {
+		LancamentoFilter filtro = new LancamentoFilter();
+		filtro.setDescricao("%_");
+
+		assertMesmoJson(filtro, PageRequest.of(0, 10), ModoTotal.EXATO);
+	}
+
+	@Test
+	void mesmoJsonNaBuscaTextualPorRelevancia() throws Exception {
+		LancamentoFilter filtro = new LancamentoFilter();
+		filtro.setDescricao("salário");
+		filtro.setBuscaTextual(true);
+		filtro.setOrdenarPorRelevancia(true);
+
+		assertMesmoJson(filtro, PageRequest.of(0, 10), ModoTotal.EXATO);
+	}
+
+	@Test
+	void mesmoJsonNaBuscaPeloCodigo() throws Exception {
+		assertThat(mapper.writeValueAsString(lancamentoRepositoryReativo.detalhar(1L).block()))
+				.isEqualTo(mapper.writeValueAsString(lancamentoRepository.findById(1L).get()));
+		assertThat(lancamentoRepositoryReativo.detalhar(-1L).blockOptional()).isEmpty();
+	}
+
+	private void assertMesmoJson(LancamentoFilter filtro, Pageable pageable, ModoTotal modoTotal) throws Exception {
+		assertThat(mapper.writeValueAsString(lancamentoRepositoryReativo.detalhar(filtro, pageable, modoTotal).block()))
+				.isEqualTo(mapper.writeValueAsString(lancamentoRepository.detalhar(filtro, pageable, modoTotal)));
+		assertThat(mapper.writeValueAsString(lancamentoRepositoryReativo.resumir(filtro, pageable, modoTotal).block()))
+				.isEqualTo(mapper.writeValueAsString(lancamentoRepository.resumir(filtro, pageable, modoTotal)));
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.example.algamoney.api.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import com.example.algamoney.api.repository.filter.LancamentoFilter;
+import com.example.algamoney.api.repository.paginacao.ModoTotal;
+import com.example.algamoney.api.repository.paginacao.PaginaPorCursor;
+import com.example.algamoney.api.repository.projection.LancamentoDetalhe;
+
+/**
+ * Garante que a pesquisa de lançamentos traz a pessoa e a categoria na mesma
+ * consulta, sem um select a mais para cada pessoa e categoria da página (N+1).
+ * Usa os lançamentos cadastrados pela migração V03.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class LancamentoRepositoryTests {
+
+	@Autowired
+	private LancamentoRepository lancamentoRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void detalharDeveExecutarSomenteAConsultaEOCount() {
+		Slice<LancamentoDetalhe> pagina = lancamentoRepository.detalhar(new LancamentoFilter(), PageRequest.of(0, 10),
+				ModoTotal.EXATO);
+
+		assertThat(pagina.getContent()).hasSize(10);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void detalharSemTotalDeveExecutarUmaConsulta() {
+		Slice<LancamentoDetalhe> pagina = lancamentoRepository.detalhar(new LancamentoFilter(), PageRequest.of(0, 10),
+				ModoTotal.NENHUM);
+
+		assertThat(pagina.getContent()).hasSize(10);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void detalharPorCursorDeveExecutarUmaConsulta() {
+		PaginaPorCursor<LancamentoDetalhe> pagina = lancamentoRepository.detalhar(new LancamentoFilter(), null, 10);
+
+		assertThat(pagina.getConteudo()).hasSize(10);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+}
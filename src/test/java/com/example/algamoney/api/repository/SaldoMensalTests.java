@@ -0,0 +1,129 @@
+package com.example.algamoney.api.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.algamoney.api.model.Lancamento;
+import com.example.algamoney.api.model.TipoLancamento;
+import com.example.algamoney.api.repository.projection.SaldoMensal;
+
+/**
+ * Depois de qualquer gravação em lancamento, a saldo_mensal_pessoa tem que ter
+ * exatamente as somas dos lançamentos. Tudo é desfeito no rollback do fim de
+ * cada teste, inclusive o que os triggers gravaram.
+ */
+@SpringBootTest
+@Transactional
+class SaldoMensalTests {
+
+	@Autowired
+	private LancamentoRepository lancamentoRepository;
+
+	@Autowired
+	private CategoriaRepository categoriaRepository;
+
+	@Autowired
+	private PessoaRepository pessoaRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void acompanhaCadastroAlteracaoEExclusao() {
+		Lancamento lancamento = new Lancamento();
+		lancamento.setDescricao("Conta de luz");
+		lancamento.setDataVencimento(LocalDate.of(2017, 6, 20));
+		lancamento.setValor(new BigDecimal("99.90"));
+		lancamento.setTipo(TipoLancamento.DESPESA);
+		lancamento.setCategoria(categoriaRepository.findById(1L).get());
+		lancamento.setPessoa(pessoaRepository.findById(1L).get());
+		lancamentoRepository.saveAndFlush(lancamento);
+		assertSaldosIguaisAosLancamentos();
+
+		lancamento.setTipo(TipoLancamento.RECEITA);
+		lancamento.setDataVencimento(LocalDate.of(2017, 7, 1));
+		lancamento.setPessoa(pessoaRepository.findById(2L).get());
+		lancamentoRepository.saveAndFlush(lancamento);
+		assertSaldosIguaisAosLancamentos();
+
+		lancamento.setObservacao("Só a observação mudou");
+		lancamentoRepository.saveAndFlush(lancamento);
+		assertSaldosIguaisAosLancamentos();
+
+		lancamentoRepository.delete(lancamento);
+		lancamentoRepository.flush();
+		assertSaldosIguaisAosLancamentos();
+	}
+
+	/**
+	 * Como a importação, que grava em lote, e os comandos que alteram muitas linhas
+	 * de uma vez.
+	 */
+	@Test
+	void acompanhaGravacoesDeMuitasLinhas() {
+		jdbcTemplate.update("insert into lancamento (descricao, data_vencimento, valor, tipo, codigo_categoria,"
+				+ " codigo_pessoa) select 'Lote ' || i, date '2017-01-01' + i % 365, i % 100,"
+				+ " case when i % 3 = 0 then 'RECEITA' else 'DESPESA' end, 1 + i % 5, 1 + i % 10"
+				+ " from generate_series(1, 2000) i");
+		assertSaldosIguaisAosLancamentos();
+
+		jdbcTemplate.update("update lancamento set valor = valor + 1, data_vencimento = data_vencimento + 20"
+				+ " where descricao like 'Lote %' and codigo % 2 = 0");
+		assertSaldosIguaisAosLancamentos();
+
+		jdbcTemplate.update("delete from lancamento where descricao like 'Lote %' and codigo % 3 <> 0");
+		assertSaldosIguaisAosLancamentos();
+	}
+
+	@Test
+	void reconstrucaoRefazOsSaldos() {
+		jdbcTemplate.update("delete from saldo_mensal_pessoa where codigo_pessoa = 1");
+		jdbcTemplate.update("update saldo_mensal_pessoa set total = 0 where codigo_pessoa = 2");
+
+		lancamentoRepository.reconstruirSaldoMensal();
+
+		assertSaldosIguaisAosLancamentos();
+	}
+
+	@Test
+	void saldoMensalJuntaReceitasEDespesasDoMes() {
+		jdbcTemplate.update("insert into lancamento (descricao, data_vencimento, valor, tipo, codigo_categoria,"
+				+ " codigo_pessoa) values ('Salário', '2030-01-05', 1000, 'RECEITA', 1, 3),"
+				+ " ('Aluguel', '2030-01-10', 400, 'DESPESA', 1, 3),"
+				+ " ('Mercado', '2030-01-31', 150.50, 'DESPESA', 1, 3),"
+				+ " ('Mercado', '2030-02-01', 80, 'DESPESA', 1, 3)");
+
+		List<SaldoMensal> saldos = lancamentoRepository.saldoMensal(3L, YearMonth.of(2030, 1), YearMonth.of(2030, 12));
+
+		assertThat(saldos).hasSize(2);
+		assertThat(saldos.get(0).getMes()).isEqualTo(1);
+		assertThat(saldos.get(0).getReceitas()).isEqualByComparingTo("1000");
+		assertThat(saldos.get(0).getDespesas()).isEqualByComparingTo("550.50");
+		assertThat(saldos.get(0).getSaldo()).isEqualByComparingTo("449.50");
+		assertThat(saldos.get(1).getMes()).isEqualTo(2);
+		assertThat(saldos.get(1).getReceitas()).isEqualByComparingTo("0");
+		assertThat(saldos.get(1).getSaldo()).isEqualByComparingTo("-80");
+	}
+
+	private void assertSaldosIguaisAosLancamentos() {
+		List<Map<String, Object>> esperados = jdbcTemplate.queryForList("select codigo_pessoa,"
+				+ " date_trunc('month', data_vencimento)::date as mes, tipo, sum(valor) as total,"
+				+ " count(*) as quantidade from lancamento group by 1, 2, 3 order by 1, 2, 3");
+		List<Map<String, Object>> saldos = jdbcTemplate.queryForList("select codigo_pessoa, mes, tipo, total,"
+				+ " quantidade from saldo_mensal_pessoa order by 1, 2, 3");
+
+		assertThat(saldos).isEqualTo(esperados);
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.example.algamoney.api.repository.projection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.algamoney.api.model.Categoria;
+import com.example.algamoney.api.model.Endereco;
+import com.example.algamoney.api.model.Lancamento;
+import com.example.algamoney.api.model.Pessoa;
+import com.example.algamoney.api.model.TipoLancamento;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * O JSON do LancamentoDetalhe tem que ser igual, byte a byte, ao da entidade
+ * Lancamento, que era o que a pesquisa devolvia antes.
+ */
+class LancamentoDetalheSerializerTests {
+
+	private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+	@Test
+	void mesmoJsonDaEntidadeComEndereco() throws Exception {
+		Endereco endereco = new Endereco();
+		endereco.setLogradouro("Rua do Abacaxi");
+		endereco.setNumero("10");
+		endereco.setBairro("Brasil");
+		endereco.setCep("38.400-12");
+		endereco.setCidade("Uberlândia");
+		endereco.setEstado("MG");
+
+		Lancamento lancamento = lancamento(endereco);
+		lancamento.setDataPagamento(LocalDate.of(2017, 6, 9));
+		lancamento.setObservacao("Com \"aspas\" e acentuação");
+
+		assertThat(mapper.writeValueAsString(detalhe(lancamento))).isEqualTo(mapper.writeValueAsString(lancamento));
+	}
+
+	@Test
+	void mesmoJsonDaEntidadeSemEndereco() throws Exception {
+		Lancamento lancamento = lancamento(null);
+
+		assertThat(mapper.writeValueAsString(detalhe(lancamento))).isEqualTo(mapper.writeValueAsString(lancamento));
+	}
+
+	private Lancamento lancamento(Endereco endereco) {
+		Categoria categoria = new Categoria();
+		categoria.setCodigo(2L);
+		categoria.setNome("Alimentação");
+
+		Pessoa pessoa = new Pessoa();
+		pessoa.setCodigo(1L);
+		pessoa.setNome("João Silva");
+		pessoa.setAtivo(true);
+		pessoa.setEndereco(endereco);
+
+		Lancamento lancamento = new Lancamento();
+		lancamento.setCodigo(1L);
+		lancamento.setDescricao("Salário mensal");
+		lancamento.setDataVencimento(LocalDate.of(2017, 6, 10));
+		lancamento.setValor(new BigDecimal("6500.00"));
+		lancamento.setTipo(TipoLancamento.RECEITA);
+		lancamento.setCategoria(categoria);
+		lancamento.setPessoa(pessoa);
+		return lancamento;
+	}
+
+	private LancamentoDetalhe detalhe(Lancamento lancamento) {
+		Pessoa pessoa = lancamento.getPessoa();
+		Endereco endereco = pessoa.getEndereco() != null ? pessoa.getEndereco() : new Endereco();
+		return new LancamentoDetalhe(lancamento.getCodigo(), lancamento.getDescricao(),
+				lancamento.getDataVencimento(), lancamento.getDataPagamento(), lancamento.getValor(),
+				lancamento.getObservacao(), lancamento.getTipo(), lancamento.getCategoria().getCodigo(),
+				lancamento.getCategoria().getNome(), pessoa.getCodigo(), pessoa.getNome(), pessoa.getAtivo(),
+				endereco.getLogradouro(), endereco.getNumero(), endereco.getComplemento(), endereco.getBairro(),
+				endereco.getCep(), endereco.getCidade(), endereco.getEstado());
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.example.algamoney.api.resource;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import javax.servlet.http.Cookie;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Cada refresh gera um refresh token novo (reuseRefreshTokens false), e os
+ * anteriores continuam com a assinatura e a validade em dia. O logout precisa
+ * derrubar todos eles, não só o último.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class TokenResourceTests {
+
+	private static final String CLIENTE = "Basic "
+			+ Base64.getEncoder().encodeToString("angular:@ngul@r0".getBytes(StandardCharsets.UTF_8));
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void logoutRevogaOsRefreshTokensDeRefreshesAnteriores() throws Exception {
+		MockHttpServletResponse login = login();
+		String primeiroRefresh = login.getCookie("refreshToken").getValue();
+		String primeiroAccess = accessToken(login);
+
+		MockHttpServletResponse refresh = refresh(primeiroRefresh).andExpect(status().isOk()).andReturn()
+				.getResponse();
+		String segundoRefresh = refresh.getCookie("refreshToken").getValue();
+		refresh = refresh(segundoRefresh).andExpect(status().isOk()).andReturn().getResponse();
+		String terceiroRefresh = refresh.getCookie("refreshToken").getValue();
+		String ultimoAccess = accessToken(refresh);
+
+		mockMvc.perform(delete("/tokens/revoke").header(HttpHeaders.AUTHORIZATION, "Bearer " + ultimoAccess))
+				.andExpect(status().isNoContent());
+
+		refresh(primeiroRefresh).andExpect(status().isBadRequest());
+		refresh(segundoRefresh).andExpect(status().isBadRequest());
+		refresh(terceiroRefresh).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/categorias/1").header(HttpHeaders.AUTHORIZATION, "Bearer " + primeiroAccess))
+				.andExpect(status().isUnauthorized());
+		mockMvc.perform(get("/categorias/1").header(HttpHeaders.AUTHORIZATION, "Bearer " + ultimoAccess))
+				.andExpect(status().isUnauthorized());
+
+		// Um login novo é outra sessao.
+		refresh(login().getCookie("refreshToken").getValue()).andExpect(status().isOk());
+	}
+
+	private MockHttpServletResponse login() throws Exception {
+		return mockMvc.perform(post("/oauth/token").header(HttpHeaders.AUTHORIZATION, CLIENTE)
+				.param("grant_type", "password").param("username", "admin@algamoney.com").param("password", "admin"))
+				.andExpect(status().isOk()).andReturn().getResponse();
+	}
+
+	private ResultActions refresh(String refreshToken) throws Exception {
+		MockHttpServletRequestBuilder request = post("/oauth/token").header(HttpHeaders.AUTHORIZATION, CLIENTE)
+				.param("grant_type", "refresh_token").cookie(new Cookie("refreshToken", refreshToken));
+		return mockMvc.perform(request);
+	}
+
+	private String accessToken(MockHttpServletResponse response) throws Exception {
+		return objectMapper.readTree(response.getContentAsString()).get("access_token").asText();
+	}
+
+}
@@ -0,0 +1,146 @@
+package com.example.algamoney.api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.algamoney.api.repository.filter.LancamentoFilter;
+import com.example.algamoney.api.service.exception.FiltroExclusaoVazioException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Os lotes do service entram na transação do teste, então tudo o que eles
+ * excluem volta no rollback do fim de cada teste. Os lançamentos criados aqui
+ * vencem em 2090, longe dos dados de exemplo.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class ExclusaoLancamentoServiceTests {
+
+	@Autowired
+	private ExclusaoLancamentoService exclusaoLancamentoService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Exatamente dois lotes cheios: a busca do terceiro lote não encontra nada e
+	 * encerra a exclusão.
+	 */
+	@Test
+	void filtroExcluiEmLotesSemTocarNoQueFicouDeFora() {
+		criarLancamentos(2_000, "2090-01-01");
+		criarLancamentos(10, "2091-01-01");
+
+		LancamentoFilter filtro = new LancamentoFilter();
+		filtro.setDataVencimentoDe(LocalDate.of(2090, 1, 1));
+		filtro.setDataVencimentoAte(LocalDate.of(2090, 12, 31));
+		ResultadoExclusao resultado = exclusaoLancamentoService.excluir(filtro);
+
+		assertThat(resultado.getExcluidos()).isEqualTo(2_000);
+		assertThat(quantidade("2090-01-01", "2090-12-31")).isZero();
+		assertThat(quantidade("2091-01-01", "2091-12-31")).isEqualTo(10);
+		assertSaldosIguaisAosLancamentos();
+	}
+
+	@Test
+	void codigosRepetidosNulosEInexistentesNaoContam() {
+		List<Long> codigos = criarLancamentos(1_500, "2090-01-01");
+
+		List<Long> pedidos = new ArrayList<>(codigos);
+		pedidos.addAll(codigos.subList(0, 10));
+		pedidos.add(null);
+		pedidos.add(Long.MAX_VALUE);
+		ResultadoExclusao resultado = exclusaoLancamentoService.excluir(pedidos);
+
+		assertThat(resultado.getExcluidos()).isEqualTo(1_500);
+		assertThat(quantidade("2090-01-01", "2090-12-31")).isZero();
+		assertSaldosIguaisAosLancamentos();
+
+		assertThat(exclusaoLancamentoService.excluir(Arrays.asList(codigos.get(0), null)).getExcluidos()).isZero();
+	}
+
+	@Test
+	void filtroSemRestricoesNaoExcluiNada() {
+		long antes = jdbcTemplate.queryForObject("select count(*) from lancamento", Long.class);
+
+		assertThatThrownBy(() -> exclusaoLancamentoService.excluir(new LancamentoFilter()))
+				.isInstanceOf(FiltroExclusaoVazioException.class);
+
+		// Só mudam a forma da busca, não quais lançamentos entram.
+		LancamentoFilter soOrdenacao = new LancamentoFilter();
+		soOrdenacao.setBuscaTextual(true);
+		soOrdenacao.setOrdenarPorRelevancia(true);
+		assertThatThrownBy(() -> exclusaoLancamentoService.excluir(soOrdenacao))
+				.isInstanceOf(FiltroExclusaoVazioException.class);
+
+		assertThat(jdbcTemplate.queryForObject("select count(*) from lancamento", Long.class)).isEqualTo(antes);
+	}
+
+	@Test
+	void filtroSemRestricoesRespondeBadRequest() throws Exception {
+		String autorizacao = "Bearer " + token();
+
+		mockMvc.perform(delete("/lancamentos").header(HttpHeaders.AUTHORIZATION, autorizacao))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(delete("/lancamentos").param("ordenarPorRelevancia", "true").param("buscaTextual", "true")
+				.header(HttpHeaders.AUTHORIZATION, autorizacao)).andExpect(status().isBadRequest());
+	}
+
+	private String token() throws Exception {
+		String cliente = Base64.getEncoder().encodeToString("angular:@ngul@r0".getBytes(StandardCharsets.UTF_8));
+		String resposta = mockMvc.perform(post("/oauth/token").header(HttpHeaders.AUTHORIZATION, "Basic " + cliente)
+				.param("grant_type", "password").param("username", "admin@algamoney.com").param("password", "admin"))
+				.andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(resposta).get("access_token").asText();
+	}
+
+	private List<Long> criarLancamentos(int quantidade, String vencimento) {
+		return jdbcTemplate.queryForList("insert into lancamento (descricao, data_vencimento, valor, tipo,"
+				+ " codigo_categoria, codigo_pessoa) select 'Exclusão ' || i, cast(? as date) + i % 300, i % 100,"
+				+ " case when i % 3 = 0 then 'RECEITA' else 'DESPESA' end, 1 + i % 5, 1 + i % 10"
+				+ " from generate_series(1, ?) i returning codigo", Long.class, vencimento, quantidade);
+	}
+
+	private long quantidade(String de, String ate) {
+		return jdbcTemplate.queryForObject("select count(*) from lancamento where data_vencimento between"
+				+ " cast(? as date) and cast(? as date)", Long.class, de, ate);
+	}
+
+	private void assertSaldosIguaisAosLancamentos() {
+		List<Map<String, Object>> esperados = jdbcTemplate.queryForList("select codigo_pessoa,"
+				+ " date_trunc('month', data_vencimento)::date as mes, tipo, sum(valor) as total,"
+				+ " count(*) as quantidade from lancamento group by 1, 2, 3 order by 1, 2, 3");
+		List<Map<String, Object>> saldos = jdbcTemplate.queryForList("select codigo_pessoa, mes, tipo, total,"
+				+ " quantidade from saldo_mensal_pessoa order by 1, 2, 3");
+
+		assertThat(saldos).isEqualTo(esperados);
+	}
+
+}
@@ -0,0 +1,138 @@
+package com.example.algamoney.api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.algamoney.api.model.Pessoa;
+import com.example.algamoney.api.service.exception.AlteracaoPessoaInvalidaException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * As alterações são conferidas direto na tabela, e os testes com @Transactional
+ * são desfeitos no rollback. Os que precisam de commit de verdade voltam a
+ * pessoa 4 ao estado original no fim.
+ */
+@SpringBootTest
+class PessoaServiceTests {
+
+	@Autowired
+	private PessoaService pessoaService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@AfterEach
+	void reativarPessoa() {
+		jdbcTemplate.update("update pessoa set ativo = true where codigo = 4");
+	}
+
+	/**
+	 * A outra thread faz o papel de uma requisição concorrente, que ainda enxerga
+	 * a pessoa ativa porque a desativação não foi confirmada.
+	 */
+	@Test
+	void pessoaDesativadaNaoVoltaParaOCacheAntesDoCommit() {
+		assertThat(pessoaService.isAtiva(4L)).isTrue();
+
+		transactionTemplate.execute(s -> {
+			pessoaService.atualizarPropriedadeAtivo(4L, false);
+			return CompletableFuture.supplyAsync(() -> pessoaService.isAtiva(4L)).join();
+		});
+
+		assertThat(pessoaService.isAtiva(4L)).isFalse();
+	}
+
+	@Test
+	@Transactional
+	void alteraSoOsCamposEnviados() throws Exception {
+		pessoaService.atualizarParcialmente(2L, objectMapper.readTree("{\"endereco\": {\"cep\": \"99.999-99\"}}"));
+
+		Map<String, Object> pessoa = pessoa(2L);
+		assertThat(pessoa.get("cep")).isEqualTo("99.999-99");
+		assertThat(pessoa.get("logradouro")).isEqualTo("Rua do Sabiá");
+		assertThat(pessoa.get("complemento")).isEqualTo("Apto 101");
+		assertThat(pessoa.get("nome")).isEqualTo("Maria Rita");
+	}
+
+	@Test
+	@Transactional
+	void nullApagaOCampoEEnderecoNullApagaOEnderecoTodo() throws Exception {
+		pessoaService.atualizarParcialmente(2L,
+				objectMapper.readTree("{\"nome\": \"Maria\", \"endereco\": {\"complemento\": null}}"));
+
+		Map<String, Object> pessoa = pessoa(2L);
+		assertThat(pessoa.get("nome")).isEqualTo("Maria");
+		assertThat(pessoa.get("complemento")).isNull();
+		assertThat(pessoa.get("logradouro")).isEqualTo("Rua do Sabiá");
+
+		pessoaService.atualizarParcialmente(2L, objectMapper.readTree("{\"endereco\": null}"));
+
+		pessoa = pessoa(2L);
+		assertThat(pessoa).containsEntry("logradouro", null).containsEntry("numero", null)
+				.containsEntry("bairro", null).containsEntry("cep", null).containsEntry("cidade", null)
+				.containsEntry("estado", null).containsEntry("nome", "Maria").containsEntry("ativo", true);
+	}
+
+	@Test
+	@Transactional
+	void recusaAlteracoesInvalidas() throws Exception {
+		for (String alteracao : new String[] { "{\"nome\": null}", "{\"ativo\": null}", "{\"codigo\": 5}",
+				"{\"endereco\": {\"pais\": \"Brasil\"}}", "[]" }) {
+			assertThatThrownBy(() -> pessoaService.atualizarParcialmente(2L, objectMapper.readTree(alteracao)))
+					.as(alteracao).isInstanceOf(AlteracaoPessoaInvalidaException.class);
+		}
+		assertThat(pessoa(2L).get("nome")).isEqualTo("Maria Rita");
+	}
+
+	@Test
+	@Transactional
+	void codigoInexistenteDaNaoEncontrado() throws Exception {
+		assertThatThrownBy(
+				() -> pessoaService.atualizarParcialmente(999_999L, objectMapper.readTree("{\"nome\": \"X\"}")))
+				.isInstanceOf(EmptyResultDataAccessException.class);
+		assertThatThrownBy(() -> pessoaService.atualizarParcialmente(999_999L, objectMapper.readTree("{}")))
+				.isInstanceOf(EmptyResultDataAccessException.class);
+		assertThatThrownBy(() -> pessoaService.atualizarPropriedadeAtivo(999_999L, false))
+				.isInstanceOf(EmptyResultDataAccessException.class);
+	}
+
+	@Test
+	@Transactional
+	void putGravaTodasAsColunasEAtivoSoOAtivo() {
+		Pessoa alterada = new Pessoa();
+		alterada.setNome("Maria Rita Souza");
+		alterada.setAtivo(true);
+		pessoaService.atualizar(2L, alterada);
+
+		assertThat(pessoa(2L)).containsEntry("nome", "Maria Rita Souza").containsEntry("logradouro", null)
+				.containsEntry("cidade", null);
+
+		pessoaService.atualizarPropriedadeAtivo(2L, false);
+
+		assertThat(pessoa(2L)).containsEntry("nome", "Maria Rita Souza").containsEntry("ativo", false);
+	}
+
+	private Map<String, Object> pessoa(Long codigo) {
+		return jdbcTemplate.queryForMap("select nome, ativo, logradouro, numero, complemento, bairro, cep, cidade,"
+				+ " estado from pessoa where codigo = ?", codigo);
+	}
+
+}
@@ -0,0 +1,139 @@
+package com.example.algamoney.api.token;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.client.BaseClientDetails;
+import org.springframework.security.oauth2.provider.client.InMemoryClientDetailsService;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+
+import com.example.algamoney.api.config.property.AlgamoneyApiProperty;
+
+/**
+ * Os tokens são JWTs de verdade, assinados com a chave do
+ * AuthorizationServerConfig. O converter conta quantas vezes um token foi
+ * decodificado e teve a assinatura conferida.
+ */
+class CachingResourceServerTokenServicesTests {
+
+	private int validacoes;
+
+	private final JwtAccessTokenConverter accessTokenConverter = new JwtAccessTokenConverter() {
+
+		@Override
+		protected Map<String, Object> decode(String token) {
+			validacoes++;
+			return super.decode(token);
+		}
+
+	};
+
+	private final TokensRevogados tokensRevogados = new TokensRevogados(new AlgamoneyApiProperty());
+
+	private final CachingResourceServerTokenServices tokenServicesComCache;
+
+	CachingResourceServerTokenServicesTests() throws Exception {
+		accessTokenConverter.setSigningKey("algaworks");
+		accessTokenConverter.afterPropertiesSet();
+
+		InMemoryClientDetailsService clientDetailsService = new InMemoryClientDetailsService();
+		clientDetailsService.setClientDetailsStore(
+				Collections.singletonMap("angular", new BaseClientDetails("angular", null, "read", "password", null)));
+
+		tokenServicesComCache = new CachingResourceServerTokenServices(
+				new JwtTokenStoreComRevogacao(accessTokenConverter, tokensRevogados), clientDetailsService, 100,
+				tokensRevogados);
+	}
+
+	@Test
+	void deveValidarOTokenSomenteUmaVez() {
+		OAuth2AccessToken token = token("angular", System.currentTimeMillis() + 60_000);
+
+		OAuth2Authentication primeira = tokenServicesComCache.loadAuthentication(token.getValue());
+		OAuth2Authentication segunda = tokenServicesComCache.loadAuthentication(token.getValue());
+
+		assertThat(validacoes).isEqualTo(1);
+		assertThat(segunda).isNotSameAs(primeira);
+		assertThat(segunda.getName()).isEqualTo("admin@algamoney.com");
+		assertThat(segunda.getOAuth2Request().getScope()).containsExactly("read");
+		assertThat(segunda.getAuthorities()).extracting(Object::toString)
+				.containsExactly("ROLE_PESQUISAR_LANCAMENTO");
+	}
+
+	@Test
+	void naoDeveManterNoCacheDepoisDaExpiracaoDoToken() throws InterruptedException {
+		// O exp do JWT é em segundos.
+		OAuth2AccessToken token = token("angular", System.currentTimeMillis() + 1_100);
+
+		tokenServicesComCache.loadAuthentication(token.getValue());
+		Thread.sleep(token.getExpiration().getTime() - System.currentTimeMillis() + 100);
+
+		assertThatThrownBy(() -> tokenServicesComCache.loadAuthentication(token.getValue()))
+				.isInstanceOf(InvalidTokenException.class);
+		assertThat(validacoes).isEqualTo(2);
+	}
+
+	@Test
+	void naoDeveGuardarTokenJaExpirado() {
+		OAuth2AccessToken token = token("angular", System.currentTimeMillis() - 1_000);
+
+		for (int i = 0; i < 2; i++) {
+			assertThatThrownBy(() -> tokenServicesComCache.loadAuthentication(token.getValue()))
+					.isInstanceOf(InvalidTokenException.class);
+		}
+		assertThat(validacoes).isEqualTo(2);
+	}
+
+	@Test
+	void deveRecusarTokenDeClienteNaoCadastrado() {
+		OAuth2AccessToken token = token("removido", System.currentTimeMillis() + 60_000);
+
+		assertThatThrownBy(() -> tokenServicesComCache.loadAuthentication(token.getValue()))
+				.isInstanceOf(InvalidTokenException.class).hasMessageContaining("removido");
+	}
+
+	@Test
+	void deveRecusarTokenRevogadoMesmoQueEstejaNoCache() {
+		long expiracao = System.currentTimeMillis() + 60_000;
+		OAuth2AccessToken token = token("angular", expiracao);
+		OAuth2AccessToken outro = token("angular", expiracao);
+		tokenServicesComCache.loadAuthentication(token.getValue());
+		tokenServicesComCache.loadAuthentication(outro.getValue());
+
+		tokensRevogados.revogar(token.getAdditionalInformation().get("jti").toString(), new Date(expiracao));
+
+		assertThatThrownBy(() -> tokenServicesComCache.loadAuthentication(token.getValue()))
+				.isInstanceOf(InvalidTokenException.class);
+		assertThatThrownBy(() -> tokenServicesComCache.loadAuthentication(token.getValue()))
+				.isInstanceOf(InvalidTokenException.class);
+		assertThat(tokenServicesComCache.loadAuthentication(outro.getValue()).getName())
+				.isEqualTo("admin@algamoney.com");
+	}
+
+	private OAuth2AccessToken token(String cliente, long expiracao) {
+		OAuth2Request request = new OAuth2Request(Collections.emptyMap(), cliente, AuthorityUtils.NO_AUTHORITIES,
+				true, Collections.singleton("read"), null, null, null, null);
+		OAuth2Authentication autenticacao = new OAuth2Authentication(request, new UsernamePasswordAuthenticationToken(
+				"admin@algamoney.com", "N/A", AuthorityUtils.createAuthorityList("ROLE_PESQUISAR_LANCAMENTO")));
+
+		// O valor vira o jti do JWT.
+		DefaultOAuth2AccessToken accessToken = new DefaultOAuth2AccessToken(UUID.randomUUID().toString());
+		accessToken.setExpiration(new Date(expiracao));
+		accessToken.setScope(request.getScope());
+		return accessTokenConverter.enhance(accessToken, autenticacao);
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.example.algamoney.api.token;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.algamoney.api.config.property.AlgamoneyApiProperty;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Um login por vez e um na fila. O primeiro fica preso na chain até o teste
+ * liberar, como um BCrypt demorado.
+ */
+class PasswordGrantBulkheadFilterTests {
+
+	private final CountDownLatch entrou = new CountDownLatch(1);
+
+	private final CountDownLatch liberar = new CountDownLatch(1);
+
+	private final FilterChain loginDemorado = (request, response) -> {
+		entrou.countDown();
+		try {
+			liberar.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	};
+
+	@Test
+	void padraoDeixaMetadeDosProcessadoresLivres() {
+		int processadores = Runtime.getRuntime().availableProcessors();
+
+		assertThat(new AlgamoneyApiProperty().getLogin().getConcorrencia()).isEqualTo(Math.max(1, processadores / 2));
+	}
+
+	@Test
+	void filaCheiaRespondeTooManyRequestsEEsperaLongaServiceUnavailable() throws Exception {
+		AlgamoneyApiProperty property = new AlgamoneyApiProperty();
+		property.getLogin().setConcorrencia(1);
+		property.getLogin().setTamanhoFila(1);
+		property.getLogin().setTempoMaximoEsperaEmMilissegundos(500);
+		MeterRegistry meterRegistry = new SimpleMeterRegistry();
+		PasswordGrantBulkheadFilter filtro = new PasswordGrantBulkheadFilter(property, meterRegistry);
+
+		CompletableFuture<MockHttpServletResponse> primeiro = CompletableFuture
+				.supplyAsync(() -> login(filtro, loginDemorado));
+		assertThat(entrou.await(5, TimeUnit.SECONDS)).isTrue();
+
+		CompletableFuture<MockHttpServletResponse> naFila = CompletableFuture
+				.supplyAsync(() -> login(filtro, (request, response) -> {
+				}));
+		while (meterRegistry.get("algamoney.login.fila").gauge().value() < 1) {
+			Thread.sleep(10);
+		}
+
+		MockHttpServletResponse semLugarNaFila = login(filtro, (request, response) -> {
+		});
+		assertThat(semLugarNaFila.getStatus()).isEqualTo(429);
+		assertThat(semLugarNaFila.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+
+		assertThat(naFila.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(503);
+
+		liberar.countDown();
+		assertThat(primeiro.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(200);
+		assertThat(login(filtro, (request, response) -> {
+		}).getStatus()).isEqualTo(200);
+		assertThat(meterRegistry.get("algamoney.login.rejeitados").counters()).extracting(c -> c.count())
+				.containsExactlyInAnyOrder(1.0, 1.0);
+	}
+
+	private MockHttpServletResponse login(PasswordGrantBulkheadFilter filtro, FilterChain chain) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/oauth/token");
+		request.setParameter("grant_type", "password");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		try {
+			filtro.doFilter(request, response, chain);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+		return response;
+	}
+
+}
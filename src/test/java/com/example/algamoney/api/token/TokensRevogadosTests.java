@@ -0,0 +1,53 @@
+package com.example.algamoney.api.token;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.algamoney.api.config.property.AlgamoneyApiProperty;
+
+/**
+ * A capacidade baixa obriga o filtro de Bloom a ser montado de novo algumas
+ * vezes durante o teste.
+ */
+class TokensRevogadosTests {
+
+	private final TokensRevogados tokensRevogados;
+
+	TokensRevogadosTests() {
+		AlgamoneyApiProperty propriedades = new AlgamoneyApiProperty();
+		propriedades.getSeguranca().setCapacidadeTokensRevogados(10);
+		tokensRevogados = new TokensRevogados(propriedades);
+	}
+
+	@Test
+	void naoPerdeNenhumJtiQuandoOFiltroCresce() {
+		Date ate = new Date(System.currentTimeMillis() + 60_000);
+		for (int i = 0; i < 1_000; i++) {
+			tokensRevogados.revogar("revogado-" + i, ate);
+		}
+
+		for (int i = 0; i < 1_000; i++) {
+			assertThat(tokensRevogados.isRevogado("revogado-" + i)).isTrue();
+			assertThat(tokensRevogados.isRevogado("valido-" + i)).isFalse();
+		}
+	}
+
+	@Test
+	void jtiSaiDaListaDepoisDaExpiracao() throws InterruptedException {
+		tokensRevogados.revogar("curto", new Date(System.currentTimeMillis() + 100));
+		tokensRevogados.revogar("longo", new Date(System.currentTimeMillis() + 60_000));
+		tokensRevogados.revogar("ja-expirado", new Date(System.currentTimeMillis() - 1_000));
+		assertThat(tokensRevogados.isRevogado("curto")).isTrue();
+
+		Thread.sleep(200);
+		tokensRevogados.limpar();
+
+		assertThat(tokensRevogados.isRevogado("curto")).isFalse();
+		assertThat(tokensRevogados.isRevogado("longo")).isTrue();
+		assertThat(tokensRevogados.isRevogado("ja-expirado")).isFalse();
+	}
+
+}